@@ -0,0 +1,125 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.cloud.aiplatform.fs.FeatureViewInternalStorage.FeatureData;
+import com.google.cloud.aiplatform.v1.FeatureValue;
+import com.google.cloud.aiplatform.v1.FeatureViewDataFormat;
+import com.google.cloud.aiplatform.v1.FeatureViewDataKey;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesRequest;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse;
+import com.google.cloud.bigtable.data.v2.StubBigtableDataClient;
+import com.google.cloud.bigtable.data.v2.models.Row;
+import com.google.cloud.bigtable.data.v2.models.RowCell;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.util.Timestamps;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Measures single fetches from the request to the response, with a stubbed BigtableDataClient
+// which returns a row of 10 features at once.
+//
+// Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="FetchBenchmark"
+// Add "-prof gc" to the JMH arguments for the bytes allocated per fetch, gc.alloc.rate.norm.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FetchBenchmark {
+
+  private static final String FEATURE_ONLINE_STORE =
+      "projects/p/locations/us-central1/featureOnlineStores/store";
+  private static final String FEATURE_VIEW = FEATURE_ONLINE_STORE + "/featureViews/users";
+  private static final String DATA_KEY = "key";
+
+  private FeatureOnlineStoreDirectClient client;
+  private PreparedFeatureView preparedFeatureView;
+  private FetchFeatureValuesRequest request;
+
+  @Setup
+  public void setup() {
+    // The specs are cached ahead, as from a metadata snapshot, so no fetch calls the admin API. Their
+    // revalidation in the background fails without credentials, which keeps the cached specs.
+    CloudBigtableCache.getInstance(Optional.empty())
+        .bootstrap(
+            FEATURE_ONLINE_STORE,
+            new CloudBigtableSpec("tenant-project", "instance-id", "default"));
+    FeatureViewCache.getInstance(Optional.empty())
+        .bootstrap(
+            FEATURE_VIEW,
+            new FeatureViewSpec(
+                /* continuousSyncEnabled= */ false,
+                "read-profile",
+                /* timestampsEnabled= */ false));
+
+    FeatureViewInternalStorage.Builder storage =
+        FeatureViewInternalStorage.newBuilder().setFeatureTimestamp(Timestamps.fromMillis(1000L));
+    for (int i = 0; i < 10; i++) {
+      storage.addFeatureData(
+          FeatureData.newBuilder()
+              .setName("feature_" + i)
+              .addValues(FeatureValue.newBuilder().setInt64Value(i).build()));
+    }
+    RowCell cell =
+        RowCell.create(
+            "users",
+            ByteString.copyFromUtf8("default"),
+            1000,
+            ImmutableList.of(),
+            storage.build().toByteString());
+    Row row = Row.create(ByteString.copyFromUtf8(DATA_KEY), ImmutableList.of(cell));
+
+    BigtableClient bigtableClient = new BigtableClient(new StubBigtableDataClient(row));
+    client =
+        new FeatureOnlineStoreDirectClient(FEATURE_VIEW, new BigtableClientManager(bigtableClient));
+    preparedFeatureView = client.prepareFeatureView();
+    request =
+        FetchFeatureValuesRequest.newBuilder()
+            .setFeatureView(FEATURE_VIEW)
+            .setDataKey(FeatureViewDataKey.newBuilder().setKey(DATA_KEY))
+            .setDataFormat(FeatureViewDataFormat.KEY_VALUE)
+            .build();
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.close();
+  }
+
+  @Benchmark
+  public FetchFeatureValuesResponse fetchFeatureValues() throws Exception {
+    return client.fetchFeatureValues(request);
+  }
+
+  @Benchmark
+  public FetchFeatureValuesResponse preparedFetchFeatureValues() throws Exception {
+    return preparedFeatureView.fetchFeatureValues(DATA_KEY);
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.bigtable.data.v2;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.bigtable.data.v2.models.Filters.Filter;
+import com.google.cloud.bigtable.data.v2.models.Row;
+import com.google.cloud.bigtable.data.v2.models.TargetId;
+
+// A BigtableDataClient whose single row reads return the same row at once, without a stub or a
+// channel. It is in the package of BigtableDataClient, whose constructor is package-private. Unlike
+// a mock, it does not allocate per read, so benchmarks only measure the client which reads it.
+public final class StubBigtableDataClient extends BigtableDataClient {
+
+  private final Row row;
+  private final ApiFuture<Row> rowFuture;
+
+  public StubBigtableDataClient(Row row) {
+    super(/* stub= */ null);
+    this.row = row;
+    this.rowFuture = ApiFutures.immediateFuture(row);
+  }
+
+  @Override
+  public Row readRow(TargetId targetId, String rowKey, Filter filter) {
+    return row;
+  }
+
+  @Override
+  public ApiFuture<Row> readRowAsync(TargetId targetId, String rowKey, Filter filter) {
+    return rowFuture;
+  }
+
+  @Override
+  public void close() {}
+}
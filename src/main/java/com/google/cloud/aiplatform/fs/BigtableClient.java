@@ -17,8 +17,16 @@ package com.google.cloud.aiplatform.fs;
 
 import static com.google.cloud.bigtable.data.v2.models.Filters.FILTERS;
 
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
 import com.google.api.gax.core.FixedCredentialsProvider;
+import com.google.api.gax.grpc.InstantiatingGrpcChannelProvider;
+import com.google.api.gax.rpc.ResponseObserver;
 import com.google.api.gax.rpc.ServerStream;
+import com.google.api.gax.rpc.StreamController;
+import com.google.api.gax.rpc.TransportChannelProvider;
+import com.google.auth.Credentials;
 import com.google.auth.oauth2.AccessToken;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.bigtable.data.v2.BigtableDataClient;
@@ -30,12 +38,19 @@ import com.google.cloud.bigtable.data.v2.models.TableId;
 import com.google.cloud.bigtable.data.v2.stub.metrics.NoopMetricsProvider;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.VerifyException;
+import com.google.common.util.concurrent.MoreExecutors;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * A client to interact with Bigtable.
@@ -45,6 +60,13 @@ public class BigtableClient {
   private final BigtableDataClient bigtableDataClient;
   private static final String defaultColumn = "default";
   private static final String directWriteColumn = "dw";
+  // Row key of the reads which warm up the channels. No feature view has a row with this key.
+  private static final String warmUpRowKey = "__vertex_fs_warm_up__";
+
+  // Number of reads and streams started on this client which are not finished yet.
+  private final AtomicInteger inFlightCount = new AtomicInteger();
+  // Number of reads sent by warmUp, one per channel of the pool.
+  private final int warmUpReadCount;
 
   public static BigtableClient create(
       String projectId, String instanceId, String accessToken, String appProfile) {
@@ -66,11 +88,25 @@ public class BigtableClient {
       String accessToken,
       String appProfile,
       Optional<DirectClientSettings> settings) {
+    // Expiration time needs to be null. If set to any time even far ahead in the future, creating
+    // Bigtable client fails, since these credentials cannot be refreshed.
+    this(
+        projectId,
+        instanceId,
+        GoogleCredentials.create(new AccessToken(accessToken, null)),
+        appProfile,
+        settings);
+  }
+
+  // Creates a client whose credentials are refreshed in place, such as FetchAccessTokenCredentials,
+  // so that its channels are kept when the token changes.
+  BigtableClient(
+      String projectId,
+      String instanceId,
+      Credentials credentials,
+      String appProfile,
+      Optional<DirectClientSettings> settings) {
     try {
-      // Expiration time needs to be null. If set to any time even far ahead in the future, creating
-      // Bigtable client fails.
-      AccessToken token = new AccessToken(accessToken, null);
-      GoogleCredentials credentials = GoogleCredentials.create(token);
       BigtableDataSettings.Builder settingsBuilder;
       if (settings.isPresent()) {
         // Let DirectClientSettings generate a BigtableDataSettings builder and apply all the configs.
@@ -86,7 +122,9 @@ public class BigtableClient {
               // Disable client side metric reporting;
               .setMetricsProvider(NoopMetricsProvider.INSTANCE);
 
-      bigtableDataClient = BigtableDataClient.create(settingsBuilder.build());
+      BigtableDataSettings dataSettings = settingsBuilder.build();
+      warmUpReadCount = channelCountOf(dataSettings);
+      bigtableDataClient = BigtableDataClient.create(dataSettings);
     } catch (IOException e) {
       throw new VerifyException(e);
     }
@@ -96,13 +134,79 @@ public class BigtableClient {
     // Constructor used for MockBigtableClient.
   BigtableClient() {
     bigtableDataClient = null;
+    warmUpReadCount = 1;
+  }
+
+  // Reads through the given data client, such as a stub in benchmarks.
+  @VisibleForTesting
+  BigtableClient(BigtableDataClient bigtableDataClient) {
+    this.bigtableDataClient = bigtableDataClient;
+    warmUpReadCount = 1;
+  }
+
+  private static int channelCountOf(BigtableDataSettings settings) {
+    TransportChannelProvider channelProvider =
+        settings.getStubSettings().getTransportChannelProvider();
+    if (channelProvider instanceof InstantiatingGrpcChannelProvider) {
+      return Math.max(
+          1,
+          ((InstantiatingGrpcChannelProvider) channelProvider)
+              .getChannelPoolSettings()
+              .getInitialChannelCount());
+    }
+    return 1;
   }
 
   public void close() {
     this.bigtableDataClient.close();
   }
 
-  private Filter buildFilter(InternalFetchRequest request) {
+  /**
+   * Opens the channels of the client before it serves fetches, by sending one read per channel of
+   * the pool to {@code tableId}. The reads match no row. Failed reads are ignored, since fetches
+   * would then fail the same way.
+   *
+   * @return Whether all the reads completed within {@code timeout}.
+   */
+  boolean warmUp(String tableId, Duration timeout) {
+    List<ApiFuture<Row>> reads = new ArrayList<>(warmUpReadCount);
+    for (int i = 0; i < warmUpReadCount; i++) {
+      reads.add(
+          bigtableDataClient.readRowAsync(TableId.of(tableId), warmUpRowKey, FILTERS.block()));
+    }
+    try {
+      ApiFutures.successfulAsList(reads).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ExecutionException | TimeoutException e) {
+      return false;
+    }
+  }
+
+  // Returns the number of reads and streams of this client which are not finished yet. A client
+  // which is replaced is only closed once this is zero.
+  int getInFlightCount() {
+    return inFlightCount.get();
+  }
+
+  // Counts the asynchronous call as in flight until its future is done.
+  private <T> ApiFuture<T> trackAsync(Supplier<ApiFuture<T>> call) {
+    inFlightCount.incrementAndGet();
+    ApiFuture<T> future;
+    try {
+      future = call.get();
+    } catch (RuntimeException e) {
+      inFlightCount.decrementAndGet();
+      throw e;
+    }
+    future.addListener(inFlightCount::decrementAndGet, MoreExecutors.directExecutor());
+    return future;
+  }
+
+  // Builds the filter which reads the latest cells of the FeatureView of the request.
+  static Filter buildFilter(InternalFetchRequest request) {
     if (request.featureViewSpec.continuousSyncEnabled) {
       return FILTERS
           .chain()
@@ -121,10 +225,48 @@ public class BigtableClient {
     }
   }
 
+  // Requests of a PreparedFeatureView carry the filter, other requests have it built on every read.
+  private static Filter filterOf(InternalFetchRequest request) {
+    return request.filter != null ? request.filter : buildFilter(request);
+  }
+
+  private static TableId tableIdOf(InternalFetchRequest request) {
+    return request.tableId != null
+        ? request.tableId
+        : TableId.of(request.cloudBigtableSpec.tableId);
+  }
+
   public Row fetchData(InternalFetchRequest request) throws Exception {
-    Filter filter = buildFilter(request);
-    return bigtableDataClient.readRow(
-        TableId.of(request.cloudBigtableSpec.tableId), request.dataKey, filter);
+    inFlightCount.incrementAndGet();
+    try {
+      return bigtableDataClient.readRow(tableIdOf(request), request.dataKey, filterOf(request));
+    } finally {
+      inFlightCount.decrementAndGet();
+    }
+  }
+
+  /**
+   * Asynchronous version of {@link #fetchData}. The returned future resolves to {@code null} when
+   * the row is not found in Bigtable.
+   */
+  public ApiFuture<Row> fetchDataAsync(InternalFetchRequest request) {
+    return trackAsync(
+        () ->
+            bigtableDataClient.readRowAsync(
+                tableIdOf(request), request.dataKey, filterOf(request)));
+  }
+
+  // Builds a single Query which reads all the unique keys in request.dataKeys.
+  private Query buildBatchQuery(InternalFetchRequest request, Filter filter) {
+    if (request.dataKeys == null || request.dataKeys.isEmpty()) {
+      throw new IllegalArgumentException("batchFetchData requires InternalFetchRequest with populated dataKeys.");
+    }
+
+    Query query = Query.create(tableIdOf(request));
+    for (String dataKey : new HashSet<>(request.dataKeys)) {
+      query = query.rowKey(dataKey);
+    }
+    return query.filter(filter);
   }
 
   /**
@@ -138,28 +280,15 @@ public class BigtableClient {
    * @throws Exception for other underlying issues during the Bigtable read.
    */
   public List<Row> batchFetchData(InternalFetchRequest request) throws Exception {
-    if (request.dataKeys == null || request.dataKeys.isEmpty()) {
-      throw new IllegalArgumentException("batchFetchData requires InternalFetchRequest with populated dataKeys.");
-    }
-
-    Filter filter = buildFilter(request);
-    TableId tableId = TableId.of(request.cloudBigtableSpec.tableId);
-
-    Query query = Query.create(tableId);
-    // Assuming request.dataKeys contains unique keys
-    Set<String> uniqueDataKeys = new HashSet<>(request.dataKeys);
-    for (String dataKey : uniqueDataKeys) {
-      query = query.rowKey(dataKey);
-    }
-    query = query.filter(filter);
-
-    ServerStream<Row> rowStream = bigtableDataClient.readRows(query);
+    Query query = buildBatchQuery(request, filterOf(request));
+    inFlightCount.incrementAndGet();
+    try {
+      ServerStream<Row> rowStream = bigtableDataClient.readRows(query);
 
-    List<Row> rows = new ArrayList<>();
-    Set<String> receivedKeys = new HashSet<>();
-    int expectedKeyCount = uniqueDataKeys.size();
+      List<Row> rows = new ArrayList<>();
+      Set<String> receivedKeys = new HashSet<>();
+      int expectedKeyCount = new HashSet<>(request.dataKeys).size();
 
-    try {
       for (Row row : rowStream) {
         rows.add(row);
         receivedKeys.add(row.getKey().toStringUtf8());
@@ -169,9 +298,122 @@ public class BigtableClient {
           break;
         }
       }
+      return rows;
+    } finally {
+      inFlightCount.decrementAndGet();
+    }
+  }
+
+  /**
+   * Asynchronous version of {@link #batchFetchData}. Rows are collected by a {@link
+   * ResponseObserver} on the gRPC threads, so no thread is parked while the stream is open.
+   *
+   * @param request An {@link InternalFetchRequest} with {@code dataKeys} set.
+   * @return A future of the rows found in Bigtable. Keys not found in Bigtable will not have
+   *     corresponding entries in the returned list.
+   * @throws IllegalArgumentException if {@code request.dataKeys} is null or empty.
+   */
+  public ApiFuture<List<Row>> batchFetchDataAsync(InternalFetchRequest request) {
+    return readRowsAsync(buildBatchQuery(request, filterOf(request)));
+  }
+
+  /**
+   * Reads only the timestamps of the cells of {@code request.dataKeys} which are newer than {@code
+   * newerThanMicros}, to revalidate cached feature values. Values are stripped, so revalidating
+   * unchanged rows costs almost no bytes. Every existing row also returns one of its latest cells,
+   * so that a row which is not returned at all was deleted.
+   *
+   * @param request An {@link InternalFetchRequest} with {@code dataKeys} set.
+   * @param newerThanMicros The oldest Bigtable timestamp of the cached cells of the keys.
+   * @return A future of the rows which still exist, with empty values.
+   */
+  public ApiFuture<List<Row>> revalidateAsync(InternalFetchRequest request, long newerThanMicros) {
+    Filter filter =
+        FILTERS
+            .chain()
+            .filter(filterOf(request))
+            .filter(
+                FILTERS
+                    .interleave()
+                    .filter(FILTERS.timestamp().range().startClosed(newerThanMicros + 1))
+                    // Keeps the row in the result when it has no newer cell.
+                    .filter(FILTERS.limit().cellsPerRow(1)))
+            .filter(FILTERS.value().strip());
+    return readRowsAsync(buildBatchQuery(request, filter));
+  }
+
+  /**
+   * Same as {@link #batchFetchData}, but the rows are decoded by a {@link FeatureViewCellAdapter}
+   * into {@link FeatureViewCell}s while they are streamed, without building {@link Row}s first.
+   *
+   * @param request An {@link InternalFetchRequest} with {@code dataKeys} set.
+   * @return The cells of the keys found in Bigtable, with the row key as their string key.
+   */
+  public List<FeatureViewCell> batchFetchFeatureViewCells(InternalFetchRequest request) {
+    FeatureViewCellAdapter adapter = FeatureViewCellAdapter.forRequest(request);
+    Query query = buildBatchQuery(request, filterOf(request));
+    int expectedKeyCount = new HashSet<>(request.dataKeys).size();
+
+    List<FeatureViewCell> cells = new ArrayList<>();
+    inFlightCount.incrementAndGet();
+    try {
+      for (FeatureViewCell cell : bigtableDataClient.readRowsCallable(adapter).call(query)) {
+        cells.add(cell);
+        // Keys are unique in the query, so each of them is returned at most once.
+        if (cells.size() >= expectedKeyCount) {
+          break;
+        }
+      }
+      return cells;
     } finally {
+      inFlightCount.decrementAndGet();
     }
+  }
 
-    return rows;
+  /** Asynchronous version of {@link #batchFetchFeatureViewCells}. */
+  public ApiFuture<List<FeatureViewCell>> batchFetchFeatureViewCellsAsync(
+      InternalFetchRequest request) {
+    FeatureViewCellAdapter adapter = FeatureViewCellAdapter.forRequest(request);
+    Query query = buildBatchQuery(request, filterOf(request));
+    return trackAsync(
+        () -> {
+          SettableApiFuture<List<FeatureViewCell>> result = SettableApiFuture.create();
+          bigtableDataClient.readRowsCallable(adapter).call(query, collectInto(result));
+          return result;
+        });
+  }
+
+  private ApiFuture<List<Row>> readRowsAsync(Query query) {
+    return trackAsync(
+        () -> {
+          SettableApiFuture<List<Row>> result = SettableApiFuture.create();
+          bigtableDataClient.readRowsAsync(query, collectInto(result));
+          return result;
+        });
+  }
+
+  // Collects the streamed rows, and completes the future with them once the stream ends.
+  private static <RowT> ResponseObserver<RowT> collectInto(SettableApiFuture<List<RowT>> result) {
+    return new ResponseObserver<RowT>() {
+      private final List<RowT> rows = new ArrayList<>();
+
+      @Override
+      public void onStart(StreamController controller) {}
+
+      @Override
+      public void onResponse(RowT row) {
+        rows.add(row);
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        result.setException(t);
+      }
+
+      @Override
+      public void onComplete() {
+        result.set(rows);
+      }
+    };
   }
 }
@@ -15,15 +15,31 @@
  */
 package com.google.cloud.aiplatform.fs;
 
+import com.google.api.gax.core.CredentialsProvider;
 import com.google.api.gax.rpc.NotFoundException;
 import com.google.api.gax.rpc.PermissionDeniedException;
+import com.google.auth.oauth2.AccessToken;
+import com.google.cloud.aiplatform.v1.FeatureOnlineStoreName;
 import com.google.cloud.aiplatform.v1.FeatureOnlineStoreServiceClient;
 import com.google.cloud.aiplatform.v1.FeatureOnlineStoreServiceSettings;
+import com.google.cloud.aiplatform.v1.FeatureViewName;
 import com.google.cloud.aiplatform.v1.GenerateFetchAccessTokenRequest;
 import com.google.cloud.aiplatform.v1.GenerateFetchAccessTokenResponse;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.protobuf.Timestamp;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.TimeUnit;
@@ -34,16 +50,59 @@ public class BigtableClientManager {
 
   Logger logger = Logger.getLogger(FeatureOnlineStoreDirectClient.class.getName());
 
-  private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+  // Maximum time to wait for the channels of a new client to open before it replaces the old one.
+  private static final Duration WARM_UP_TIMEOUT = Duration.ofSeconds(10);
+  // A fetch may get the old client right before the swap and only count itself in flight right
+  // after, so the old client is never closed earlier than this.
+  private static final Duration DRAIN_GRACE_PERIOD = Duration.ofSeconds(1);
+  private static final Duration DRAIN_POLL_INTERVAL = Duration.ofMillis(100);
+  // The old client is closed after this even if fetches are still in flight on it.
+  private static final Duration MAX_DRAIN_TIME = Duration.ofSeconds(60);
+  // Interval of the checks of the specs of the connection, which the metadata caches reload in the
+  // background.
+  static final Duration SPEC_CHECK_INTERVAL = Duration.ofMinutes(1);
+
+  // Reads the current specs of the connection. A new tenant project, instance or read app profile
+  // reconnects the manager, see checkSpecs().
+  interface SpecSource {
+    CloudBigtableSpec getCloudBigtableSpec();
+
+    FeatureViewSpec getFeatureViewSpec();
+  }
+
+  // Runs the token refreshes, the spec checks and the drain checks of replaced clients.
+  private final ScheduledExecutorService scheduler;
   private final AtomicReference<BigtableClient> clientRef = new AtomicReference<BigtableClient>();
+  // Clients which were replaced and are not closed yet.
+  private final Set<BigtableClient> drainingClients = ConcurrentHashMap.newKeySet();
+
+  // Target of the connection, which changes when the specs do. Written under connectionLock, and
+  // volatile so that hasTarget() does not wait for a reconnection. The lock is not held while a new
+  // client is created and warmed up.
+  private final Object connectionLock = new Object();
+  private volatile String projectId;
+  private volatile String instanceId;
+  private String tableId;
+  private volatile String appProfile;
+  private boolean connectionClosed;
+
+  // FeatureViews of the clients which use the manager, with their number of clients. Tokens are
+  // generated for tokenFeatureView, which is one of them. Guarded by this.
+  private final Map<String, Integer> featureViews = new LinkedHashMap<>();
+  private String tokenFeatureView;
 
-  private final String projectId;
-  private final String instanceId;
-  private final String featureView;
   private final String location;
-  private final String appProfile;
+  private final SpecSource specSource;
 
   private final Optional<DirectClientSettings> settings;
+  // Shared by the Bigtable clients of the manager, which keep their channels when it is refreshed.
+  private final FetchAccessTokenCredentials credentials;
+  private final TokenRefresher tokenRefresher;
+  // Client of GenerateFetchAccessToken, created with the first token and reused by the refreshes.
+  // Guarded by this.
+  private FeatureOnlineStoreServiceClient tokenClient;
+  // Set once the token client is closed, after which no token is generated. Guarded by this.
+  private boolean tokenClientClosed;
 
   public BigtableClientManager(
       CloudBigtableSpec btSpec,
@@ -51,24 +110,195 @@ public class BigtableClientManager {
       String featureView,
       String location,
       Optional<DirectClientSettings> settings) {
+    this(btSpec, fvSpec, featureView, location, settings, /* specSource= */ null);
+  }
+
+  // A null specSource reads the specs from the metadata caches.
+  @VisibleForTesting
+  BigtableClientManager(
+      CloudBigtableSpec btSpec,
+      FeatureViewSpec fvSpec,
+      String featureView,
+      String location,
+      Optional<DirectClientSettings> settings,
+      SpecSource specSource) {
+    this(
+        btSpec,
+        fvSpec,
+        featureView,
+        location,
+        settings,
+        specSource,
+        Executors.newScheduledThreadPool(1));
+  }
+
+  @VisibleForTesting
+  BigtableClientManager(
+      CloudBigtableSpec btSpec,
+      FeatureViewSpec fvSpec,
+      String featureView,
+      String location,
+      Optional<DirectClientSettings> settings,
+      SpecSource specSource,
+      ScheduledExecutorService scheduler) {
+    this.scheduler = scheduler;
     this.projectId = btSpec.tenantProjectId;
     this.instanceId = btSpec.instanceId;
-    this.featureView = featureView;
+    this.tableId = btSpec.tableId;
+    this.featureViews.put(featureView, 1);
+    this.tokenFeatureView = featureView;
     this.location = location;
     this.appProfile = fvSpec.readAppProfileId;
     this.settings = settings;
+    this.specSource = specSource != null ? specSource : cachedSpecSource();
+    this.credentials =
+        new FetchAccessTokenCredentials(generateInitialAccessToken(), this::generateAccessToken);
     createConnection();
 
-    // Schedule the refresh every 45 minutes
-    scheduler.scheduleAtFixedRate(this::createConnection, 45, 45, TimeUnit.MINUTES);
+    // Refresh the access token ahead of its expiration time. The connection is kept.
+    this.tokenRefresher = new TokenRefresher(credentials, scheduler);
+    tokenRefresher.start();
+    scheduler.scheduleWithFixedDelay(
+        this::checkSpecs,
+        SPEC_CHECK_INTERVAL.toMillis(),
+        SPEC_CHECK_INTERVAL.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  // Serves fetches with a client which is never replaced, without tokens or spec checks, such as a
+  // client of a stubbed BigtableDataClient in benchmarks.
+  @VisibleForTesting
+  BigtableClientManager(BigtableClient client) {
+    this.scheduler = Executors.newScheduledThreadPool(1);
+    this.location = null;
+    this.settings = Optional.empty();
+    this.specSource = null;
+    this.credentials = null;
+    this.tokenRefresher = new TokenRefresher(/* credentials= */ null, scheduler);
+    this.clientRef.set(client);
   }
-  private void createConnection() {
-    logger.log(Level.FINE, "Refreshing Bigtable connection...");
-    // Generate access token
-    String accessToken = null;
+
+  // Reads the specs of the FeatureView of the tokens from the metadata caches. Reading them also
+  // lets the caches reload specs which are due for a refresh.
+  private SpecSource cachedSpecSource() {
+    Optional<CredentialsProvider> credentialsProvider =
+        settings.map(DirectClientSettings::getCredentialsProvider);
+    return new SpecSource() {
+      @Override
+      public CloudBigtableSpec getCloudBigtableSpec() {
+        FeatureViewName name = FeatureViewName.parse(getTokenFeatureView());
+        String fosName =
+            FeatureOnlineStoreName.of(
+                    name.getProject(), name.getLocation(), name.getFeatureOnlineStore())
+                .toString();
+        return CloudBigtableCache.getInstance(credentialsProvider).getCloudBigtableSpec(fosName);
+      }
+
+      @Override
+      public FeatureViewSpec getFeatureViewSpec() {
+        return FeatureViewCache.getInstance(credentialsProvider)
+            .getFeatureViewSpec(getTokenFeatureView());
+      }
+    };
+  }
+
+  // Reconnects to the new tenant project, instance or read app profile of the specs, if any of them
+  // changed. The new client is warmed up before it replaces the current one, which is then drained.
+  @VisibleForTesting
+  void checkSpecs() {
+    CloudBigtableSpec btSpec;
+    FeatureViewSpec fvSpec;
+    try {
+      btSpec = specSource.getCloudBigtableSpec();
+      fvSpec = specSource.getFeatureViewSpec();
+    } catch (RuntimeException e) {
+      // The current connection is kept until the specs can be read again.
+      logger.log(Level.FINE, "Checking the specs of the Bigtable connection failed: " + e);
+      return;
+    }
+    synchronized (connectionLock) {
+      if (connectionClosed) {
+        return;
+      }
+      // Requests carry the table of their own spec, so a new table only changes the warm-up reads.
+      tableId = btSpec.tableId;
+      if (hasTarget(btSpec.tenantProjectId, btSpec.instanceId, fvSpec.readAppProfileId)) {
+        return;
+      }
+      logger.log(
+          Level.INFO,
+          String.format(
+              "Bigtable connection of %s changed to project %s, instance %s, app profile %s.",
+              getTokenFeatureView(),
+              btSpec.tenantProjectId,
+              btSpec.instanceId,
+              fvSpec.readAppProfileId));
+      projectId = btSpec.tenantProjectId;
+      instanceId = btSpec.instanceId;
+      appProfile = fvSpec.readAppProfileId;
+    }
+    createConnection();
+  }
+
+  // Whether the connection goes to the given tenant project, instance and app profile, which it
+  // stops doing once the specs change.
+  boolean hasTarget(String projectId, String instanceId, String appProfile) {
+    return Objects.equals(this.projectId, projectId)
+        && Objects.equals(this.instanceId, instanceId)
+        && Objects.equals(this.appProfile, appProfile);
+  }
+
+  // Adds a client of the FeatureView to a shared manager. A token is generated for the FeatureView
+  // first, so that the client only gets the connection if it may read its FeatureView. Throws the
+  // NotFoundException or PermissionDeniedException of the token request.
+  void addFeatureView(String featureView) {
+    try {
+      generateAccessToken(featureView);
+    } catch (NotFoundException | PermissionDeniedException e) {
+      throw e;
+    } catch (Exception e) {
+      logger.log(Level.SEVERE, String.format("Generating access token failed: %s", e));
+      throw new RuntimeException(e);
+    }
+    synchronized (this) {
+      featureViews.merge(featureView, 1, Integer::sum);
+      if (!featureViews.containsKey(tokenFeatureView)) {
+        // All clients of the FeatureView of the tokens left before this one joined.
+        tokenFeatureView = featureView;
+      }
+    }
+  }
+
+  // Removes a client of the FeatureView from a shared manager. Once the FeatureView has no client
+  // left, tokens are generated for another FeatureView, since this one may be deleted.
+  void removeFeatureView(String featureView) {
+    synchronized (this) {
+      Integer count = featureViews.get(featureView);
+      if (count == null) {
+        return;
+      }
+      if (count > 1) {
+        featureViews.put(featureView, count - 1);
+        return;
+      }
+      featureViews.remove(featureView);
+      if (featureView.equals(tokenFeatureView) && !featureViews.isEmpty()) {
+        tokenFeatureView = featureViews.keySet().iterator().next();
+      }
+    }
+  }
+
+  @VisibleForTesting
+  synchronized String getTokenFeatureView() {
+    return tokenFeatureView;
+  }
+
+  private AccessToken generateInitialAccessToken() {
     try {
-      accessToken = generateAccessToken();
+      return generateAccessToken();
     } catch (Exception e) {
+      // The manager is not created, so nothing else closes the client.
+      closeTokenClient();
       if (e instanceof NotFoundException) {
         throw (NotFoundException) e;
       } else if (e instanceof PermissionDeniedException) {
@@ -78,24 +308,163 @@ public class BigtableClientManager {
         throw new RuntimeException(e);
       }
     }
-    // Create a new Bigtable client and close old client.
+  }
+
+  // Replaces the access token of the Bigtable connection in place. In-flight and new calls keep
+  // using the same channels. A failure is retried in the background.
+  @VisibleForTesting
+  void refreshAccessToken() {
+    logger.log(Level.FINE, "Refreshing Bigtable access token...");
+    tokenRefresher.refresh();
+  }
+
+  /** Returns the health of the refreshes of the access token of the Bigtable connection. */
+  public TokenRefreshStatus getTokenRefreshStatus() {
+    return tokenRefresher.getStatus();
+  }
+
+  // Replaces the Bigtable client with a new one to the current target, which has new channels. It
+  // creates the initial connection, and reconnects when the specs change.
+  @VisibleForTesting
+  void createConnection() {
+    String newProjectId;
+    String newInstanceId;
+    String newAppProfile;
+    String warmUpTableId;
+    synchronized (connectionLock) {
+      if (connectionClosed) {
+        return;
+      }
+      newProjectId = projectId;
+      newInstanceId = instanceId;
+      newAppProfile = appProfile;
+      warmUpTableId = tableId;
+    }
+    logger.log(Level.FINE, "Creating Bigtable connection...");
+    // The new client is created and warmed up without the lock, while the old client keeps
+    // serving, so that token refreshes and drain checks on the scheduler do not wait for it.
     BigtableClient newClient =
-        BigtableClient.create(this.projectId, this.instanceId, accessToken, appProfile, settings);
-    BigtableClient oldClient = clientRef.getAndSet(newClient);
-    if (oldClient != null) {
-      CompletableFuture.runAsync(() -> {
+        new BigtableClient(newProjectId, newInstanceId, credentials, newAppProfile, settings);
+    if (clientRef.get() != null && !newClient.warmUp(warmUpTableId, WARM_UP_TIMEOUT)) {
+      logger.log(Level.FINE, "New Bigtable connection was not warmed up in time.");
+    }
+    synchronized (connectionLock) {
+      if (!connectionClosed && hasTarget(newProjectId, newInstanceId, newAppProfile)) {
+        BigtableClient oldClient = clientRef.getAndSet(newClient);
+        if (oldClient != null) {
+          drainingClients.add(oldClient);
+          long deadlineNanos = System.nanoTime() + MAX_DRAIN_TIME.toNanos();
+          scheduleDrainCheck(oldClient, deadlineNanos, DRAIN_GRACE_PERIOD);
+        }
+        return;
+      }
+    }
+    // The manager was shut down while the new client was warmed up, or the target changed again and
+    // a newer client replaces this one.
+    logger.log(Level.FINE, "New Bigtable connection is no longer needed.");
+    newClient.close();
+  }
+
+  private void scheduleDrainCheck(BigtableClient client, long deadlineNanos, Duration delay) {
+    try {
+      scheduler.schedule(
+          () -> closeWhenDrained(client, deadlineNanos), delay.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // The manager is shut down, which closes the draining clients.
+      closeDrainingClient(client);
+    }
+  }
+
+  // Closes the replaced client once no fetch is in flight on it, or once its deadline is over.
+  private void closeWhenDrained(BigtableClient client, long deadlineNanos) {
+    int inFlightCount = client.getInFlightCount();
+    if (inFlightCount > 0 && System.nanoTime() - deadlineNanos < 0) {
+      scheduleDrainCheck(client, deadlineNanos, DRAIN_POLL_INTERVAL);
+      return;
+    }
+    if (inFlightCount > 0) {
+      logger.log(
+          Level.FINE,
+          String.format("Closing old Bigtable connection with %d calls in flight.", inFlightCount));
+    }
+    closeDrainingClient(client);
+  }
+
+  private void closeDrainingClient(BigtableClient client) {
+    if (!drainingClients.remove(client)) {
+      return;
+    }
+    try {
+      client.close();
+      logger.log(Level.FINE, "Old Bigtable connection closed.");
+    } catch (Exception e) {
+      logger.log(Level.FINE, "Error closing old connection: " + e.getMessage());
+    }
+  }
+
+  // Generates a token for the FeatureView of the tokens. If that FeatureView was deleted, or may no
+  // longer be read, the token is generated for another FeatureView of the clients, which the
+  // following tokens are then generated for.
+  @VisibleForTesting
+  AccessToken generateAccessToken() throws Exception {
+    String featureView;
+    List<String> otherFeatureViews;
+    synchronized (this) {
+      featureView = tokenFeatureView;
+      otherFeatureViews = new ArrayList<>(featureViews.keySet());
+    }
+    otherFeatureViews.remove(featureView);
+    try {
+      return generateAccessToken(featureView);
+    } catch (NotFoundException | PermissionDeniedException e) {
+      for (String otherFeatureView : otherFeatureViews) {
+        AccessToken token;
         try {
-          Thread.sleep(10000); // Wait for 10 sec before closing old connection.
-          oldClient.close();
-          logger.log(Level.FINE, "Old Bigtable connection closed.");
-        } catch (Exception e) {
-          logger.log(Level.FINE, "Error closing old connection: " + e.getMessage());
+          token = generateAccessToken(otherFeatureView);
+        } catch (NotFoundException | PermissionDeniedException otherException) {
+          e.addSuppressed(otherException);
+          continue;
+        }
+        synchronized (this) {
+          if (featureView.equals(tokenFeatureView)) {
+            tokenFeatureView = otherFeatureView;
+          }
         }
-      });
+        logger.log(
+            Level.INFO,
+            String.format(
+                "Generating access token for %s failed, using %s instead: %s",
+                featureView, otherFeatureView, e));
+        return token;
+      }
+      throw e;
     }
   }
 
-  private String generateAccessToken() throws Exception {
+  private AccessToken generateAccessToken(String featureView) throws Exception {
+    GenerateFetchAccessTokenRequest request =
+        GenerateFetchAccessTokenRequest.newBuilder()
+            .setFeatureView(featureView)
+            .build();
+    GenerateFetchAccessTokenResponse response = getTokenClient().generateFetchAccessToken(request);
+    // Without an expiration time, the token is only replaced by the scheduled refresh.
+    Date expirationTime = null;
+    if (response.hasExpireTime()) {
+      Timestamp expireTime = response.getExpireTime();
+      expirationTime =
+          new Date(expireTime.getSeconds() * 1000L + expireTime.getNanos() / 1_000_000);
+    }
+    return new AccessToken(response.getAccessToken(), expirationTime);
+  }
+
+  private synchronized FeatureOnlineStoreServiceClient getTokenClient() throws IOException {
+    if (tokenClientClosed) {
+      // A refresh racing with shutdown() would otherwise create a client which is never closed.
+      throw new IllegalStateException("The BigtableClientManager is shut down.");
+    }
+    if (tokenClient != null) {
+      return tokenClient;
+    }
     String endpoint = String.format("%s-aiplatform.googleapis.com:443", location);
       FeatureOnlineStoreServiceSettings setting;
     if (this.settings.isPresent() && this.settings.get().getCredentialsProvider() != null) {
@@ -112,14 +481,16 @@ public class BigtableClientManager {
                 .setEndpoint(endpoint)
                 .build();
     }
-    FeatureOnlineStoreServiceClient onlineServiceClient = FeatureOnlineStoreServiceClient.create(setting);
-    GenerateFetchAccessTokenRequest request =
-        GenerateFetchAccessTokenRequest.newBuilder()
-            .setFeatureView(featureView)
-            .build();
-    GenerateFetchAccessTokenResponse response =
-        onlineServiceClient.generateFetchAccessToken(request);
-    return response.getAccessToken();
+    tokenClient = FeatureOnlineStoreServiceClient.create(setting);
+    return tokenClient;
+  }
+
+  private synchronized void closeTokenClient() {
+    tokenClientClosed = true;
+    if (tokenClient != null) {
+      tokenClient.close();
+      tokenClient = null;
+    }
   }
 
   public BigtableClient getClient() {
@@ -127,11 +498,21 @@ public class BigtableClientManager {
   }
 
   public void shutdown() {
+    tokenRefresher.stop();
     scheduler.shutdown();
-    BigtableClient client = clientRef.getAndSet(null);
+    BigtableClient client;
+    synchronized (connectionLock) {
+      // No spec check creates a new client from now on.
+      connectionClosed = true;
+      client = clientRef.getAndSet(null);
+    }
+    for (BigtableClient drainingClient : drainingClients) {
+      closeDrainingClient(drainingClient);
+    }
     if (client != null) {
       client.close();
     }
+    closeTokenClient();
     logger.log(Level.INFO,"Bigtable connection and scheduler shut down.");
   }
 }
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+// Registry of the BigtableClientManagers shared by the clients of this process which enable
+// connection sharing in their DirectClientSettings. Clients of FeatureViews served by the same
+// Bigtable instance and app profile, and created with the same settings, get the same manager, so
+// they share its channel pool, token refresh and scheduler. Every client is checked for access to
+// its own FeatureView when it joins. Managers are reference-counted, and are shut down once the
+// last client releases them.
+final class BigtableClientManagerRegistry {
+
+  private static final BigtableClientManagerRegistry INSTANCE =
+      new BigtableClientManagerRegistry();
+
+  // Managers which new clients join, including the ones still being created. Guarded by this.
+  private final Map<Key, SharedManager> managers = new HashMap<>();
+  // All created managers which are not shut down, to release them. Guarded by this.
+  private final Map<BigtableClientManager, SharedManager> acquiredManagers =
+      new IdentityHashMap<>();
+
+  static BigtableClientManagerRegistry getInstance() {
+    return INSTANCE;
+  }
+
+  // Returns the shared manager of the connection of the FeatureView, creating it with the token of
+  // the FeatureView if no client uses the connection yet.
+  BigtableClientManager acquire(
+      CloudBigtableSpec btSpec,
+      FeatureViewSpec fvSpec,
+      String featureView,
+      String location,
+      DirectClientSettings settings) {
+    return acquire(
+        new Key(btSpec.tenantProjectId, btSpec.instanceId, fvSpec.readAppProfileId, settings),
+        featureView,
+        () ->
+            new BigtableClientManager(
+                btSpec, fvSpec, featureView, location, Optional.of(settings)));
+  }
+
+  // Managers are created outside of the lock, so that the creation of one connection does not
+  // hold up the clients of the others. Concurrent clients of a new connection wait for the manager
+  // of the first one. If its creation fails, they try again with their own FeatureView, since the
+  // failure may be specific to the FeatureView of the first client.
+  BigtableClientManager acquire(
+      Key key, String featureView, Supplier<BigtableClientManager> factory) {
+    while (true) {
+      SharedManager shared;
+      boolean create = false;
+      synchronized (this) {
+        shared = managers.get(key);
+        if (shared != null && shared.isRetargeted()) {
+          // The manager reconnected to another instance or app profile. Its clients keep it, and
+          // new clients of this connection get a new manager.
+          managers.remove(key);
+          shared = null;
+        }
+        if (shared == null) {
+          shared = new SharedManager(key);
+          managers.put(key, shared);
+          create = true;
+        }
+        // Counted before the manager is created, so that it is not shut down in between.
+        shared.refCount++;
+      }
+      if (create) {
+        return create(shared, factory);
+      }
+      BigtableClientManager manager;
+      try {
+        manager = Uninterruptibles.getUninterruptibly(shared.manager);
+      } catch (ExecutionException e) {
+        continue;
+      }
+      try {
+        manager.addFeatureView(featureView);
+      } catch (RuntimeException e) {
+        release(manager, /* featureView= */ null);
+        throw e;
+      }
+      return manager;
+    }
+  }
+
+  private BigtableClientManager create(
+      SharedManager shared, Supplier<BigtableClientManager> factory) {
+    BigtableClientManager manager;
+    try {
+      manager = factory.get();
+    } catch (RuntimeException e) {
+      synchronized (this) {
+        managers.remove(shared.key, shared);
+      }
+      shared.manager.setException(e);
+      throw e;
+    }
+    synchronized (this) {
+      acquiredManagers.put(manager, shared);
+    }
+    shared.manager.set(manager);
+    return manager;
+  }
+
+  // Releases a manager returned by acquire for a client of the FeatureView, and shuts it down if no
+  // other client uses it.
+  // A null FeatureView releases a client which failed to join the manager.
+  void release(BigtableClientManager manager, String featureView) {
+    synchronized (this) {
+      SharedManager shared = acquiredManagers.get(manager);
+      if (shared == null) {
+        // Not a shared manager, or one which is already shut down.
+        return;
+      }
+      shared.refCount--;
+      if (shared.refCount > 0) {
+        if (featureView != null) {
+          manager.removeFeatureView(featureView);
+        }
+        return;
+      }
+      acquiredManagers.remove(manager);
+      managers.remove(shared.key, shared);
+    }
+    manager.shutdown();
+  }
+
+  // Number of clients of the connection, including the ones which wait for its manager to be
+  // created.
+  @VisibleForTesting
+  synchronized int clientCount(Key key) {
+    SharedManager shared = managers.get(key);
+    return shared != null ? shared.refCount : 0;
+  }
+
+  static final class Key {
+    private final String tenantProjectId;
+    private final String instanceId;
+    private final String appProfileId;
+    // Compared by identity, since the settings of the Bigtable connection come from it.
+    private final DirectClientSettings settings;
+
+    Key(
+        String tenantProjectId,
+        String instanceId,
+        String appProfileId,
+        DirectClientSettings settings) {
+      this.tenantProjectId = tenantProjectId;
+      this.instanceId = instanceId;
+      this.appProfileId = appProfileId;
+      this.settings = settings;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return Objects.equals(tenantProjectId, other.tenantProjectId)
+          && Objects.equals(instanceId, other.instanceId)
+          && Objects.equals(appProfileId, other.appProfileId)
+          && settings == other.settings;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(
+          tenantProjectId, instanceId, appProfileId, System.identityHashCode(settings));
+    }
+  }
+
+  private static final class SharedManager {
+    final Key key;
+    // Set once the manager is created, or failed to be.
+    final SettableFuture<BigtableClientManager> manager = SettableFuture.create();
+    int refCount;
+
+    SharedManager(Key key) {
+      this.key = key;
+    }
+
+    // Whether the created manager no longer connects to the instance and app profile of the key.
+    boolean isRetargeted() {
+      if (!manager.isDone()) {
+        return false;
+      }
+      try {
+        return !manager.get().hasTarget(key.tenantProjectId, key.instanceId, key.appProfileId);
+      } catch (ExecutionException | InterruptedException e) {
+        return false;
+      }
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.cloud.aiplatform.fs.FeatureViewInternalStorage.FeatureData;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Offsets of the feature names and serialized values in a cell value, which is a serialized {@link
+ * FeatureViewInternalStorage}, built in one pass over the cell without decoding it. As in {@link
+ * Converter#internalStorageToKeyValuesList}, features without values are left out, and a feature
+ * with several values fails the indexing.
+ */
+final class CellFeatureIndex {
+
+  private static final int FEATURE_DATA_TAG =
+      FeatureProjection.tag(
+          FeatureViewInternalStorage.FEATURE_DATA_FIELD_NUMBER,
+          WireFormat.WIRETYPE_LENGTH_DELIMITED);
+  private static final int NAME_TAG =
+      FeatureProjection.tag(FeatureData.NAME_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+  private static final int VALUES_TAG =
+      FeatureProjection.tag(FeatureData.VALUES_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+
+  private final ByteString cellValue;
+  private final int size;
+  // Offset and length in cellValue of the name and the FeatureValue of each feature, in the order
+  // of the cell. A feature without a name has the empty name.
+  private final int[] nameOffsets;
+  private final int[] nameLengths;
+  private final int[] valueOffsets;
+  private final int[] valueLengths;
+
+  private CellFeatureIndex(
+      ByteString cellValue,
+      int size,
+      int[] nameOffsets,
+      int[] nameLengths,
+      int[] valueOffsets,
+      int[] valueLengths) {
+    this.cellValue = cellValue;
+    this.size = size;
+    this.nameOffsets = nameOffsets;
+    this.nameLengths = nameLengths;
+    this.valueOffsets = valueOffsets;
+    this.valueLengths = valueLengths;
+  }
+
+  static CellFeatureIndex build(ByteString cellValue, InternalFetchRequest request)
+      throws IOException {
+    int size = 0;
+    int[] nameOffsets = new int[16];
+    int[] nameLengths = new int[16];
+    int[] valueOffsets = new int[16];
+    int[] valueLengths = new int[16];
+    CodedInputStream input = cellValue.newCodedInput();
+    while (true) {
+      int tag = input.readTag();
+      if (tag == 0) {
+        break;
+      }
+      if (tag != FEATURE_DATA_TAG) {
+        input.skipField(tag);
+        continue;
+      }
+      int oldLimit = input.pushLimit(input.readRawVarint32());
+      int nameOffset = 0;
+      int nameLength = 0;
+      int valueOffset = 0;
+      int valueLength = 0;
+      int valueCount = 0;
+      while (!input.isAtEnd()) {
+        int featureDataTag = input.readTag();
+        if (featureDataTag == NAME_TAG) {
+          nameLength = input.readRawVarint32();
+          nameOffset = input.getTotalBytesRead();
+          input.skipRawBytes(nameLength);
+        } else if (featureDataTag == VALUES_TAG) {
+          valueLength = input.readRawVarint32();
+          valueOffset = input.getTotalBytesRead();
+          input.skipRawBytes(valueLength);
+          valueCount++;
+        } else {
+          input.skipField(featureDataTag);
+        }
+      }
+      input.popLimit(oldLimit);
+      if (valueCount > 1) {
+        throw Converter.multipleFeatureValues(request);
+      }
+      if (valueCount == 0) {
+        continue;
+      }
+      if (size == nameOffsets.length) {
+        nameOffsets = Arrays.copyOf(nameOffsets, size * 2);
+        nameLengths = Arrays.copyOf(nameLengths, size * 2);
+        valueOffsets = Arrays.copyOf(valueOffsets, size * 2);
+        valueLengths = Arrays.copyOf(valueLengths, size * 2);
+      }
+      nameOffsets[size] = nameOffset;
+      nameLengths[size] = nameLength;
+      valueOffsets[size] = valueOffset;
+      valueLengths[size] = valueLength;
+      size++;
+    }
+    return new CellFeatureIndex(
+        cellValue, size, nameOffsets, nameLengths, valueOffsets, valueLengths);
+  }
+
+  int size() {
+    return size;
+  }
+
+  // The UTF-8 name of the feature, sharing the bytes of the cell.
+  ByteString name(int index) {
+    return cellValue.substring(nameOffsets[index], nameOffsets[index] + nameLengths[index]);
+  }
+
+  // The serialized FeatureValue of the feature, sharing the bytes of the cell.
+  ByteString value(int index) {
+    return cellValue.substring(valueOffsets[index], valueOffsets[index] + valueLengths[index]);
+  }
+
+  // Returns the index of the first feature with the UTF-8 name, or -1 if there is none. The names
+  // are compared with the bytes of the cell.
+  int indexOf(byte[] name) {
+    for (int i = 0; i < size; i++) {
+      if (nameLengths[i] != name.length) {
+        continue;
+      }
+      int offset = nameOffsets[i];
+      int j = 0;
+      while (j < name.length && name[j] == cellValue.byteAt(offset + j)) {
+        j++;
+      }
+      if (j == name.length) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -28,12 +28,20 @@ import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.cloud.aiplatform.v1.FeatureOnlineStoreAdminServiceClient;
 import com.google.cloud.aiplatform.v1.FeatureOnlineStoreName;
 import com.google.cloud.aiplatform.v1.GetFeatureOnlineStoreRequest;
+import com.google.common.base.Ticker;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.grpc.Status;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -44,54 +52,87 @@ class CloudBigtableCache {
   // Singleton cache, shared across all threads in Java.
   private static volatile CloudBigtableCache BIGTABLE_CACHE;
 
+  // Specs are reloaded in the background once they are older than this. Fetches read the reloaded
+  // specs, and the BigtableClientManager reconnects when their instance or app profile changed.
+  static final Duration DEFAULT_REFRESH_AFTER_WRITE = Duration.ofMinutes(5);
+
   private final LoadingCache<String, CloudBigtableSpec> cache;
   private final FeatureOnlineStoreAdminServiceClientFactory clientFactory;
 
   // Default constructor to uses the real admin service client.
   private CloudBigtableCache() {
-    this(new DefaultFeatureOnlineStoreAdminServiceClientFactory());
+    this(
+        new PooledFeatureOnlineStoreAdminServiceClientFactory(
+            new DefaultFeatureOnlineStoreAdminServiceClientFactory()));
   }
 
     // Default constructor to uses the real admin service client.
     private CloudBigtableCache(CredentialsProvider credentialsProvider) {
-        this(new DefaultFeatureOnlineStoreAdminServiceClientFactory(credentialsProvider));
+        this(
+            new PooledFeatureOnlineStoreAdminServiceClientFactory(
+                new DefaultFeatureOnlineStoreAdminServiceClientFactory(credentialsProvider)));
     }
 
   CloudBigtableCache(FeatureOnlineStoreAdminServiceClientFactory clientFactory) {
+    this(clientFactory, DEFAULT_REFRESH_AFTER_WRITE, newRefreshExecutor(), Ticker.systemTicker());
+  }
+
+  // Specs older than refreshAfterWrite are reloaded on refreshExecutor, while the old spec is still
+  // returned. If the reload fails, the old spec is kept until the next refresh.
+  CloudBigtableCache(
+      FeatureOnlineStoreAdminServiceClientFactory clientFactory,
+      Duration refreshAfterWrite,
+      Executor refreshExecutor,
+      Ticker ticker) {
     this.clientFactory = clientFactory;
+    CacheLoader<String, CloudBigtableSpec> loader = new CacheLoader<String, CloudBigtableSpec>() {
+      @Override
+      public CloudBigtableSpec load(String fosName) throws Exception {
+        FeatureOnlineStoreName name = FeatureOnlineStoreName.parse(fosName);
+        FeatureOnlineStoreAdminServiceClient adminClient =
+            clientFactory.createClient(name.getLocation());
+        GetFeatureOnlineStoreRequest fosRequest =
+            GetFeatureOnlineStoreRequest.newBuilder().setName(fosName).build();
+        FeatureOnlineStore fos;
+        try {
+          fos = adminClient.getFeatureOnlineStore(fosRequest);
+        } finally {
+          clientFactory.releaseClient(name.getLocation(), adminClient);
+        }
+        if (!fos.hasBigtable()) {
+          throw new InvalidArgumentException(
+              new Throwable("Online store storage is not Bigtable"),
+              /* statusCode= */ GrpcStatusCode.of(Status.Code.INVALID_ARGUMENT),
+              /* retryable= */false);
+        }
+        Bigtable bt = fos.getBigtable();
+        if (bt.hasBigtableMetadata()) {
+            return new CloudBigtableSpec(fos);
+        }
+        // Failover check in case of the filed number missmatch.
+        BigtableInternal internalBt = BigtableInternal.parseFrom(bt.toByteArray(), ExtensionRegistryLite.newInstance());
+        if (!internalBt.hasBigtableMetadata()) {
+          throw new InvalidArgumentException(
+              new Throwable("Direct access to Bigtable is not enabled"),
+              /* statusCode= */ GrpcStatusCode.of(Status.Code.INVALID_ARGUMENT),
+              /* retryable= */false);
+        }
+        return new CloudBigtableSpec(fos);
+      }
+    };
     cache = CacheBuilder.newBuilder()
         .maximumSize(100) // Limit cache size
-        .build(new CacheLoader<String, CloudBigtableSpec>() {
-          @Override
-          public CloudBigtableSpec load(String fosName) throws Exception {
-            FeatureOnlineStoreName name = FeatureOnlineStoreName.parse(fosName);
-            FeatureOnlineStoreAdminServiceClient adminClient =
-                clientFactory.createClient(name.getLocation());
-            GetFeatureOnlineStoreRequest fosRequest =
-                GetFeatureOnlineStoreRequest.newBuilder().setName(fosName).build();
-            FeatureOnlineStore fos = adminClient.getFeatureOnlineStore(fosRequest);
-            adminClient.close();
-            if (!fos.hasBigtable()) {
-              throw new InvalidArgumentException(
-                  new Throwable("Online store storage is not Bigtable"),
-                  /* statusCode= */ GrpcStatusCode.of(Status.Code.INVALID_ARGUMENT),
-                  /* retryable= */false);
-            }
-            Bigtable bt = fos.getBigtable();
-            if (bt.hasBigtableMetadata()) {
-                return new CloudBigtableSpec(fos);
-            }
-            // Failover check in case of the filed number missmatch.
-            BigtableInternal internalBt = BigtableInternal.parseFrom(bt.toByteArray(), ExtensionRegistryLite.newInstance());
-            if (!internalBt.hasBigtableMetadata()) {
-              throw new InvalidArgumentException(
-                  new Throwable("Direct access to Bigtable is not enabled"),
-                  /* statusCode= */ GrpcStatusCode.of(Status.Code.INVALID_ARGUMENT),
-                  /* retryable= */false);
-            }
-            return new CloudBigtableSpec(fos);
-          }
-        });
+        .refreshAfterWrite(refreshAfterWrite.toNanos(), TimeUnit.NANOSECONDS)
+        .ticker(ticker)
+        .build(CacheLoader.asyncReloading(loader, refreshExecutor));
+  }
+
+  private static Executor newRefreshExecutor() {
+    return Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("CloudBigtableCache-refresh-%d")
+            .build());
   }
 
   // Method to be called by FeatureOnlineStoreDirectClient to load Bigtable metadata.
@@ -136,6 +177,18 @@ class CloudBigtableCache {
     cache.invalidateAll();
   }
 
+  // Returns a copy of the cached specs, keyed by FeatureOnlineStore resource name.
+  Map<String, CloudBigtableSpec> snapshot() {
+    return new HashMap<>(cache.asMap());
+  }
+
+  // Caches a spec read from a snapshot, and reloads it in the background. Until the reload
+  // succeeds, the snapshot spec is served.
+  void bootstrap(String fosName, CloudBigtableSpec spec) {
+    cache.put(fosName, spec);
+    cache.refresh(fosName);
+  }
+
 }
 
 class CloudBigtableSpec {
@@ -144,6 +197,11 @@ class CloudBigtableSpec {
   String instanceId;
   String tableId;
 
+  CloudBigtableSpec(String tenantProjectId, String instanceId, String tableId) {
+    this.tenantProjectId = tenantProjectId;
+    this.instanceId = instanceId;
+    this.tableId = tableId;
+  }
 
   CloudBigtableSpec(FeatureOnlineStore fos) {
       Bigtable bt = fos.getBigtable();
@@ -19,16 +19,17 @@ import com.google.api.gax.grpc.GrpcStatusCode;
 import com.google.api.gax.rpc.InternalException;
 import com.google.api.gax.rpc.UnimplementedException;
 import com.google.cloud.aiplatform.fs.FeatureViewInternalStorage.FeatureData;
-import com.google.cloud.aiplatform.v1.FeatureValue;
 import com.google.cloud.aiplatform.v1.FeatureViewDataFormat;
 import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse;
 import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse.FeatureNameValuePairList;
 import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse.FeatureNameValuePairList.FeatureNameValuePair;
 import com.google.cloud.bigtable.data.v2.models.Row;
 import com.google.cloud.bigtable.data.v2.models.RowCell;
+import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 import io.grpc.Status;
 import io.grpc.Status.Code;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -50,6 +51,12 @@ public class Converter {
   // Column name for direct write.
   private static final String  kDirectWriteColumn = "dw";
 
+  // Qualifiers of the columns above, compared with the qualifiers of the cells without decoding
+  // them to Strings.
+  private static final ByteString kDefaultQualifier = ByteString.copyFromUtf8(kDefaultColumn);
+  private static final ByteString kDirectWriteQualifier =
+      ByteString.copyFromUtf8(kDirectWriteColumn);
+
   // Converts a single RowCell to FeatureViewCell. This is called for direct write or batch sync.
   public static FeatureViewCell populateFeatureViewCellFromBTCell(RowCell cell) throws InvalidProtocolBufferException {
     FeatureViewInternalStorage internalStorage = FeatureViewInternalStorage.parseFrom(cell.getValue());
@@ -60,6 +67,20 @@ public class Converter {
   }
 
   public static FeatureViewCell rowToFeatureViewCell(Row row, InternalFetchRequest request) throws Exception {
+    return populateFeatureViewCellFromBTCell(selectCell(row, request));
+  }
+
+  // Converts the value and timestamp of a cell, as kept by OffHeapCellStore, to the response.
+  static FetchFeatureValuesResponse cellValueToResponse(
+      ByteString value, long timestampMicros, InternalFetchRequest request) throws IOException {
+    return FetchFeatureValuesResponse.newBuilder()
+        .setKeyValues(internalStorageToKeyValuesList(parseInternalStorage(value, request), request))
+        .build();
+  }
+
+  // Selects the cell holding the latest feature values of the row, out of the batch sync and
+  // direct write cells.
+  static RowCell selectCell(Row row, InternalFetchRequest request) {
     // When continuous sync is enabled.
     if (request.featureViewSpec.continuousSyncEnabled) {
       throw new UnimplementedException(
@@ -68,7 +89,8 @@ public class Converter {
           /* retryable= */ false);
     }
 
-    if (row.getCells().size() > 2) {
+    List<RowCell> cells = row.getCells();
+    if (cells.size() > 2) {
       throw new InternalException(
           new Throwable("Unexpected data is returned from bigtable."),
           /* statusCode= */ GrpcStatusCode.of(Code.INTERNAL),
@@ -76,42 +98,36 @@ public class Converter {
     }
 
     // When both batch sync and direct write exist.
-    if (row.getCells().size() == 2) {
+    if (cells.size() == 2) {
       logger.log(Level.FINE, "Converting Row for both batch and direct write sync");
-      int defaultCellIndex = row.getCells().get(0).getQualifier().toString().contains(kDefaultColumn)? 0 : 1;
-      RowCell defaultCell = row.getCells().get(defaultCellIndex);
-      RowCell directWriteCell = row.getCells().get(1-defaultCellIndex);
-      if (!defaultCell.getFamily().equals(request.featureViewId)
-          || !defaultCell.getQualifier().toString().contains(kDefaultColumn)){
+      int defaultCellIndex = cells.get(0).getQualifier().equals(kDefaultQualifier) ? 0 : 1;
+      RowCell defaultCell = cells.get(defaultCellIndex);
+      RowCell directWriteCell = cells.get(1-defaultCellIndex);
+      if (!isCellOf(defaultCell, request, kDefaultQualifier)){
         throw new InternalException(
             new Throwable("Unexpected data is returned from bigtable."),
             /* statusCode= */ GrpcStatusCode.of(Status.Code.INTERNAL),
             /* retryable= */ false);
       }
-      if (!directWriteCell.getFamily().equals(request.featureViewId) || !directWriteCell.getQualifier().toString().contains(kDirectWriteColumn)){
+      if (!isCellOf(directWriteCell, request, kDirectWriteQualifier)){
         throw new InternalException(
             new Throwable("Unexpected data is returned from bigtable."),
             /* statusCode= */ GrpcStatusCode.of(Status.Code.INTERNAL),
             /* retryable= */ false);
       }
-      RowCell resultCell = defaultCell.getTimestamp() >= directWriteCell.getTimestamp() ? defaultCell : directWriteCell;
-      return populateFeatureViewCellFromBTCell(resultCell);
+      return defaultCell.getTimestamp() >= directWriteCell.getTimestamp() ? defaultCell : directWriteCell;
     }
 
     // Only Direct write column exists.
-    if (row.getCells().size() == 1 &&
-        row.getCells().get(0).getFamily().equals(request.featureViewId) &&
-        row.getCells().get(0).getQualifier().toString().contains(kDirectWriteColumn)) {
+    if (cells.size() == 1 && isCellOf(cells.get(0), request, kDirectWriteQualifier)) {
       logger.log(Level.FINE, "Converting Row for direct write only");
-      return populateFeatureViewCellFromBTCell(row.getCells().get(0));
+      return cells.get(0);
     }
 
     // Only Batch Sync column exists.
-    if (row.getCells().size() == 1 &&
-        row.getCells().get(0).getFamily().equals(request.featureViewId) &&
-        row.getCells().get(0).getQualifier().toString().contains(kDefaultColumn)) {
+    if (cells.size() == 1 && isCellOf(cells.get(0), request, kDefaultQualifier)) {
       logger.log(Level.FINE, "Converting Row for batch sync only");
-      return populateFeatureViewCellFromBTCell(row.getCells().get(0));
+      return cells.get(0);
     }
 
     // Conversion did not happen. Log the request for further investigation.
@@ -123,32 +139,73 @@ public class Converter {
         /* retryable= */ false);
   }
 
+  // Whether the cell is in the column family of the FeatureView, with the given qualifier.
+  private static boolean isCellOf(RowCell cell, InternalFetchRequest request, ByteString qualifier) {
+    return cell.getFamily().equals(request.featureViewId) && cell.getQualifier().equals(qualifier);
+  }
+
   // Converts FeatureViewCell to FeatureNameValuePairList for the keyValue type.
   public static FeatureNameValuePairList internalStorageToKeyValuesList(
       FeatureViewCell cell,
       InternalFetchRequest request) {
+    return internalStorageToKeyValuesList(cell.getInternalStorage(), request);
+  }
+
+  // Same as above, without wrapping the internal storage in a FeatureViewCell first.
+  static FeatureNameValuePairList internalStorageToKeyValuesList(
+      FeatureViewInternalStorage internalStorage,
+      InternalFetchRequest request) {
     FeatureNameValuePairList.Builder keyValueList = FeatureNameValuePairList.newBuilder();
-    for (FeatureData featureData : cell.getInternalStorage().getFeatureDataList()) {
-      if (featureData.getValuesList().size() > 1) {
-        logger.log(Level.FINE,
-            String.format("OnlineStoreId:%s, featureViewId:%s returned multiple feature values",
-                request.onlineStoreId, request.featureViewId));
-        throw new InternalException(
-            new Throwable("Multiple feature values is not yet supported."),
-            /* statusCode= */ GrpcStatusCode.of(Status.Code.INTERNAL),
-            /* retryable= */ false);
+    for (int i = 0; i < internalStorage.getFeatureDataCount(); i++) {
+      FeatureData featureData = internalStorage.getFeatureData(i);
+      if (featureData.getValuesCount() > 1) {
+        throw multipleFeatureValues(request);
       }
-      FeatureNameValuePair.Builder feature = FeatureNameValuePair.newBuilder()
-          .setName(featureData.getName());
-      if (featureData.getValuesList().isEmpty())
+      if (featureData.getValuesCount() == 0)
         continue;
-      FeatureValue value = featureData.getValuesList().get(0);
-      feature.setValue(value);
-      keyValueList.addFeatures(feature);
+      keyValueList.addFeatures(
+          FeatureNameValuePair.newBuilder()
+              .setName(featureData.getName())
+              .setValue(featureData.getValues(0)));
     }
     return keyValueList.build();
   }
 
+  // The error of a feature with several values, which responses do not support yet.
+  static InternalException multipleFeatureValues(InternalFetchRequest request) {
+    if (logger.isLoggable(Level.FINE)) {
+      logger.log(Level.FINE,
+          String.format("OnlineStoreId:%s, featureViewId:%s returned multiple feature values",
+              request.onlineStoreId, request.featureViewId));
+    }
+    return new InternalException(
+        new Throwable("Multiple feature values is not yet supported."),
+        /* statusCode= */ GrpcStatusCode.of(Status.Code.INTERNAL),
+        /* retryable= */ false);
+  }
+
+  // Parses the internal storage of the cell which holds the latest feature values of the row.
+  private static FeatureViewInternalStorage rowToInternalStorage(
+      Row row, InternalFetchRequest request) throws IOException {
+    return parseInternalStorage(selectCell(row, request).getValue(), request);
+  }
+
+  // Parses a cell value, skipping the features which are not in the projection of the request.
+  static FeatureViewInternalStorage parseInternalStorage(
+      ByteString value, InternalFetchRequest request) throws IOException {
+    if (request.featureProjection == null) {
+      return FeatureViewInternalStorage.parseFrom(value);
+    }
+    return request.featureProjection.parse(value);
+  }
+
+  // The response of an entity which is not found in a batch fetch.
+  static FetchFeatureValuesResponse notFoundResponse() {
+    return FetchFeatureValuesResponse.newBuilder()
+        .setKeyValues(FeatureNameValuePairList.getDefaultInstance())
+        .build();
+  }
+
   public static FetchFeatureValuesResponse rowToResponse(Row row, InternalFetchRequest request) throws Exception {
     if (request.format == FeatureViewDataFormat.PROTO_STRUCT) {
       // Should not reach here. This is checked at fetchFeatureValues() and returned already.
@@ -158,13 +215,14 @@ public class Converter {
           /* retryable= */ false);
     }
 
-    // Step 1. Convert from Bigtable Row to FeatureViewCell.
-    FeatureViewCell cell = rowToFeatureViewCell(row, request);
+    // Step 1. Parse the internal storage of the latest cell of the Bigtable Row. The cell is not
+    // wrapped in a FeatureViewCell, since only its features make it to the response.
+    FeatureViewInternalStorage internalStorage = rowToInternalStorage(row, request);
 
-    // Step 2. Convert from FeatureViewCell to FetchFeatureValuesResponse.
+    // Step 2. Convert from the internal storage to FetchFeatureValuesResponse.
     FetchFeatureValuesResponse.Builder responseBuilder = FetchFeatureValuesResponse.newBuilder();
     // Processing KEY_VALUE request.
-    responseBuilder.setKeyValues(internalStorageToKeyValuesList(cell, request));
+    responseBuilder.setKeyValues(internalStorageToKeyValuesList(internalStorage, request));
     return responseBuilder.build();
   }
 
@@ -210,9 +268,9 @@ public class Converter {
       if (foundRow != null) {
         // Key was found in Bigtable. Convert the Row to a FeatureViewCell and then to a Response.
         try {
-          FeatureViewCell cell = rowToFeatureViewCell(foundRow, request);
           response = FetchFeatureValuesResponse.newBuilder()
-              .setKeyValues(internalStorageToKeyValuesList(cell, request))
+              .setKeyValues(
+                  internalStorageToKeyValuesList(rowToInternalStorage(foundRow, request), request))
               .build();
         } catch (Exception e) {
           // If conversion of a *found* row fails, it indicates an internal data issue.
@@ -226,14 +284,42 @@ public class Converter {
         // Key was not found in Bigtable. Create a response indicating this.
         // For KEY_VALUE format, an empty FeatureNameValuePairList signifies that no features
         // were found for the requested key.
-        response = FetchFeatureValuesResponse.newBuilder()
-            .setKeyValues(FeatureNameValuePairList.getDefaultInstance())
-            .build();
-        logger.log(Level.FINE, String.format("Entity id '%s' not found in Bigtable during batch fetch.", dataKey));
+        response = notFoundResponse();
+        if (logger.isLoggable(Level.FINE)) {
+          logger.log(Level.FINE, String.format("Entity id '%s' not found in Bigtable during batch fetch.", dataKey));
+        }
       }
       responses.add(response);
     }
 
     return responses;
   }
+
+  /**
+   * Same as {@link #rowsToResponses}, for the cells decoded by a {@link FeatureViewCellAdapter}.
+   * Each cell is matched to its key by its string key.
+   */
+  static List<FetchFeatureValuesResponse> featureViewCellsToResponses(
+      List<FeatureViewCell> cells, InternalFetchRequest request) {
+    if (request.dataKeys == null || request.dataKeys.isEmpty()) {
+      return new ArrayList<>();
+    }
+    Map<String, FeatureViewCell> keyToCellMap = new HashMap<>();
+    for (FeatureViewCell cell : cells) {
+      keyToCellMap.put(cell.getStringKey(), cell);
+    }
+    List<FetchFeatureValuesResponse> responses = new ArrayList<>(request.dataKeys.size());
+    for (String dataKey : request.dataKeys) {
+      FeatureViewCell cell = keyToCellMap.get(dataKey);
+      if (cell == null) {
+        responses.add(notFoundResponse());
+        continue;
+      }
+      responses.add(
+          FetchFeatureValuesResponse.newBuilder()
+              .setKeyValues(internalStorageToKeyValuesList(cell.getInternalStorage(), request))
+              .build());
+    }
+    return responses;
+  }
 }
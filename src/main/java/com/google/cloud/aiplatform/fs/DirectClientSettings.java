@@ -25,6 +25,7 @@ import com.google.cloud.bigtable.data.v2.BigtableDataSettings;
 import com.google.cloud.bigtable.data.v2.models.Query;
 import com.google.cloud.bigtable.data.v2.models.Row;
 import com.google.cloud.bigtable.data.v2.stub.EnhancedBigtableStubSettings;
+import java.time.Duration;
 
 // Settings class for FeatureOnlineStoreDirectClient. This class can be used by customers to
 // configure Bigtable connections.
@@ -34,12 +35,26 @@ public class DirectClientSettings {
   private RetrySettings retrySettings;
   private Code[] retryables;
   private  CredentialsProvider credentialsProvider;
+  private Duration coalescingWindow;
+  private int maxCoalescedBatchSize;
+  private boolean requestCollapsingEnabled;
+  private FeatureValueCache featureValueCache;
+  private OffHeapCellStore offHeapCellStore;
+  private NegativeResultCache negativeResultCache;
+  private boolean connectionSharingEnabled;
 
   public DirectClientSettings(Builder builder) {
     this.channelPoolSettings = builder.channelPoolSettings;
     this.retrySettings = builder.retrySettings;
     this.retryables = builder.retryables;
     this.credentialsProvider = builder.credentialsProvider;
+    this.coalescingWindow = builder.coalescingWindow;
+    this.maxCoalescedBatchSize = builder.maxCoalescedBatchSize;
+    this.requestCollapsingEnabled = builder.requestCollapsingEnabled;
+    this.featureValueCache = builder.featureValueCache;
+    this.offHeapCellStore = builder.offHeapCellStore;
+    this.negativeResultCache = builder.negativeResultCache;
+    this.connectionSharingEnabled = builder.connectionSharingEnabled;
   }
 
   // Build a BigtableDataSettings.Builder by applying all the provided configs.
@@ -81,11 +96,48 @@ public class DirectClientSettings {
         this.credentialsProvider = newCredentialsProvider;
     }
 
+  // Returns the window in which concurrent single fetches are coalesced, or null if coalescing is
+  // disabled.
+  public Duration getCoalescingWindow() {
+    return this.coalescingWindow;
+  }
+
+  public int getMaxCoalescedBatchSize() {
+    return this.maxCoalescedBatchSize;
+  }
+
+  public boolean isRequestCollapsingEnabled() {
+    return this.requestCollapsingEnabled;
+  }
+
+  public FeatureValueCache getFeatureValueCache() {
+    return this.featureValueCache;
+  }
+
+  public OffHeapCellStore getOffHeapCellStore() {
+    return this.offHeapCellStore;
+  }
+
+  public NegativeResultCache getNegativeResultCache() {
+    return this.negativeResultCache;
+  }
+
+  public boolean isConnectionSharingEnabled() {
+    return this.connectionSharingEnabled;
+  }
+
   public static class Builder {
    private ChannelPoolSettings channelPoolSettings;
     private RetrySettings retrySettings;
     private Code[] retryables;
       private CredentialsProvider credentialsProvider;
+    private Duration coalescingWindow;
+    private int maxCoalescedBatchSize = 100;
+    private boolean requestCollapsingEnabled;
+    private FeatureValueCache featureValueCache;
+    private OffHeapCellStore offHeapCellStore;
+    private NegativeResultCache negativeResultCache;
+    private boolean connectionSharingEnabled;
 
     public Builder setChannelPoolSettings(ChannelPoolSettings channelPoolSettings) {
       this.channelPoolSettings = channelPoolSettings;
@@ -107,6 +159,64 @@ public class DirectClientSettings {
         return this;
     }
 
+    // Enables coalescing of concurrent single fetches. Fetches of the same FeatureView that arrive
+    // within the window are sent to Bigtable as one batch read, which adds up to the window to
+    // their latency. The window must be positive, or null to disable coalescing.
+    public Builder setCoalescingWindow(Duration coalescingWindow) {
+      if (coalescingWindow != null
+          && (coalescingWindow.isNegative() || coalescingWindow.isZero())) {
+        throw new IllegalArgumentException(
+            "Coalescing window must be positive: " + coalescingWindow);
+      }
+      this.coalescingWindow = coalescingWindow;
+      return this;
+    }
+
+    // Maximum number of keys in a coalesced batch. A full batch is sent before its window is over.
+    public Builder setMaxCoalescedBatchSize(int maxCoalescedBatchSize) {
+      if (maxCoalescedBatchSize < 1) {
+        throw new IllegalArgumentException(
+            "Max coalesced batch size must be at least 1: " + maxCoalescedBatchSize);
+      }
+      this.maxCoalescedBatchSize = maxCoalescedBatchSize;
+      return this;
+    }
+
+    // Enables collapsing of concurrent fetches of the same entity. Identical single fetches which
+    // are in flight at the same time share one Bigtable read and its response.
+    public Builder setRequestCollapsingEnabled(boolean requestCollapsingEnabled) {
+      this.requestCollapsingEnabled = requestCollapsingEnabled;
+      return this;
+    }
+
+    // Serves fetches from an in-process cache of feature values. The same cache can be set on the
+    // settings of several clients to share it across FeatureViews.
+    public Builder setFeatureValueCache(FeatureValueCache featureValueCache) {
+      this.featureValueCache = featureValueCache;
+      return this;
+    }
+
+    // Keeps the serialized cells read from Bigtable off the Java heap. It is looked up after the
+    // FeatureValueCache, if any, and can be much larger since its entries add no GC pressure.
+    public Builder setOffHeapCellStore(OffHeapCellStore offHeapCellStore) {
+      this.offHeapCellStore = offHeapCellStore;
+      return this;
+    }
+
+    // Answers fetches of keys which were recently not found without reading Bigtable again.
+    public Builder setNegativeResultCache(NegativeResultCache negativeResultCache) {
+      this.negativeResultCache = negativeResultCache;
+      return this;
+    }
+
+    // Shares one Bigtable connection, with its channel pool, token refresh and scheduler, across
+    // the clients created with these settings whose FeatureViews are served by the same Bigtable
+    // instance and app profile. The connection is closed with the last of these clients.
+    public Builder setConnectionSharingEnabled(boolean connectionSharingEnabled) {
+      this.connectionSharingEnabled = connectionSharingEnabled;
+      return this;
+    }
+
     public DirectClientSettings build() {
       return new DirectClientSettings(this);
     }
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+/**
+ * Receives the feature values of a columnar batch fetch, see {@link
+ * PreparedFeatureView#batchFetchFeatureColumns}. A column is a feature of the {@link
+ * FeatureSchema}, and a row is the position of a key in the fetched keys.
+ *
+ * <p>Each (column, row) slot is written exactly once, with the method matching the {@link
+ * FeatureSchema.ColumnType} of the column, or with {@link #putNull} when the entity is not found or
+ * has no value for the feature. Values are passed unboxed, so implementations can fill primitive
+ * arrays or tensors directly. {@link PrimitiveColumns} is an implementation over Java arrays.
+ */
+public interface FeatureColumnSink {
+
+  /** Writes the value of a {@link FeatureSchema.ColumnType#DOUBLE} column. */
+  void putDouble(int column, int row, double value);
+
+  /** Writes the value of a {@link FeatureSchema.ColumnType#LONG} column. */
+  void putLong(int column, int row, long value);
+
+  /** Writes the value of a {@link FeatureSchema.ColumnType#BOOLEAN} column. */
+  void putBoolean(int column, int row, boolean value);
+
+  /** Marks the slot as having no value. */
+  void putNull(int column, int row);
+}
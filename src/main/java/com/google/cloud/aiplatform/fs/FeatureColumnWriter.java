@@ -0,0 +1,283 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.api.gax.grpc.GrpcStatusCode;
+import com.google.api.gax.rpc.InvalidArgumentException;
+import com.google.cloud.aiplatform.fs.FeatureViewInternalStorage.FeatureData;
+import com.google.cloud.aiplatform.v1.FeatureValue;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse.FeatureNameValuePairList.FeatureNameValuePair;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+import io.grpc.Status.Code;
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * Writes the features of a {@link FeatureSchema} into a {@link FeatureColumnSink}, one row at a
+ * time. Cells are scanned with a {@link CodedInputStream}: feature names are matched to columns
+ * with the bytes of the cell, and double, int64 and bool values are decoded straight into the sink,
+ * so no message is built for a cell. Features which are not in the schema are skipped.
+ *
+ * <p>As in {@link Converter#internalStorageToKeyValuesList}, a feature without values is null, and
+ * a feature with several values fails the fetch. A value of another type than its column also fails
+ * the fetch. Not thread safe.
+ */
+final class FeatureColumnWriter {
+
+  private static final int FEATURE_DATA_TAG =
+      FeatureProjection.tag(
+          FeatureViewInternalStorage.FEATURE_DATA_FIELD_NUMBER,
+          WireFormat.WIRETYPE_LENGTH_DELIMITED);
+  private static final int NAME_TAG =
+      FeatureProjection.tag(FeatureData.NAME_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+  private static final int VALUES_TAG =
+      FeatureProjection.tag(FeatureData.VALUES_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+  private static final int DOUBLE_VALUE_TAG =
+      FeatureProjection.tag(FeatureValue.DOUBLE_VALUE_FIELD_NUMBER, WireFormat.WIRETYPE_FIXED64);
+  private static final int INT64_VALUE_TAG =
+      FeatureProjection.tag(FeatureValue.INT64_VALUE_FIELD_NUMBER, WireFormat.WIRETYPE_VARINT);
+  private static final int BOOL_VALUE_TAG =
+      FeatureProjection.tag(FeatureValue.BOOL_VALUE_FIELD_NUMBER, WireFormat.WIRETYPE_VARINT);
+
+  private final FeatureSchema schema;
+  private final FeatureColumnSink sink;
+  private final InternalFetchRequest request;
+  // The columns written for the current row. Reused across rows.
+  private final BitSet written;
+
+  FeatureColumnWriter(FeatureSchema schema, FeatureColumnSink sink, InternalFetchRequest request) {
+    this.schema = schema;
+    this.sink = sink;
+    this.request = request;
+    this.written = new BitSet(schema.getColumnCount());
+  }
+
+  // Writes the row of an entity which is not found.
+  void writeNullRow(int row) {
+    for (int column = 0; column < schema.getColumnCount(); column++) {
+      sink.putNull(column, row);
+    }
+  }
+
+  // Writes the row from the serialized FeatureViewInternalStorage of the cell of the entity.
+  void writeCell(ByteString cellValue, int row, String dataKey) throws IOException {
+    written.clear();
+    CodedInputStream input = cellValue.newCodedInput();
+    while (true) {
+      int tag = input.readTag();
+      if (tag == 0) {
+        break;
+      }
+      if (tag != FEATURE_DATA_TAG) {
+        input.skipField(tag);
+        continue;
+      }
+      int oldLimit = input.pushLimit(input.readRawVarint32());
+      writeFeatureData(cellValue, input, row, dataKey);
+      input.popLimit(oldLimit);
+    }
+    writeMissingNulls(row);
+  }
+
+  // Writes the value of a FeatureData entry, if its feature is in the schema and not written yet.
+  private void writeFeatureData(
+      ByteString cellValue, CodedInputStream input, int row, String dataKey) throws IOException {
+    boolean hasName = false;
+    int column = -1;
+    int valueCount = 0;
+    boolean valueWritten = false;
+    // Value which is serialized before the name. Serializers write the name first, so this is
+    // only used for input from other encoders.
+    ByteString valueBeforeName = null;
+    while (!input.isAtEnd()) {
+      int tag = input.readTag();
+      if (tag == NAME_TAG) {
+        int length = input.readRawVarint32();
+        column = schema.getColumn(cellValue, input.getTotalBytesRead(), length);
+        input.skipRawBytes(length);
+        hasName = true;
+        if (column < 0 || written.get(column)) {
+          // Skips the rest of the entry.
+          input.skipRawBytes(input.getBytesUntilLimit());
+          return;
+        }
+      } else if (tag == VALUES_TAG) {
+        valueCount++;
+        if (valueCount > 1) {
+          throw Converter.multipleFeatureValues(request);
+        }
+        if (hasName) {
+          int length = input.readRawVarint32();
+          int oldLimit = input.pushLimit(length);
+          writeValue(cellValue, input, column, row, dataKey);
+          input.popLimit(oldLimit);
+          valueWritten = true;
+        } else {
+          valueBeforeName = input.readBytes();
+        }
+      } else {
+        input.skipField(tag);
+      }
+    }
+    if (!hasName) {
+      // An entry without a name has the empty name.
+      column = schema.getColumn(ByteString.EMPTY, 0, 0);
+      if (column < 0 || written.get(column)) {
+        return;
+      }
+    }
+    if (valueBeforeName != null) {
+      writeValue(valueBeforeName, valueBeforeName.newCodedInput(), column, row, dataKey);
+      valueWritten = true;
+    }
+    if (valueWritten) {
+      written.set(column);
+    }
+  }
+
+  // Decodes the serialized FeatureValue, up to the limit of input, into the column. input reads
+  // source.
+  private void writeValue(
+      ByteString source, CodedInputStream input, int column, int row, String dataKey)
+      throws IOException {
+    int valueTag = 0;
+    double doubleValue = 0;
+    long longValue = 0;
+    // Set if a field other than a double, int64 or bool value is found.
+    boolean otherField = false;
+    int start = input.getTotalBytesRead();
+    while (!input.isAtEnd()) {
+      int tag = input.readTag();
+      if (tag == DOUBLE_VALUE_TAG) {
+        doubleValue = input.readDouble();
+        valueTag = tag;
+      } else if (tag == INT64_VALUE_TAG || tag == BOOL_VALUE_TAG) {
+        longValue = input.readInt64();
+        valueTag = tag;
+      } else {
+        input.skipField(tag);
+        otherField = true;
+      }
+    }
+    if (otherField) {
+      // Values of other types, or with metadata, are decoded as messages.
+      writeValue(
+          FeatureValue.parseFrom(source.substring(start, input.getTotalBytesRead())),
+          column,
+          row,
+          dataKey);
+      return;
+    }
+    switch (schema.getColumnType(column)) {
+      case DOUBLE:
+        if (valueTag == DOUBLE_VALUE_TAG) {
+          sink.putDouble(column, row, doubleValue);
+          return;
+        }
+        if (valueTag == INT64_VALUE_TAG) {
+          sink.putDouble(column, row, longValue);
+          return;
+        }
+        break;
+      case LONG:
+        if (valueTag == INT64_VALUE_TAG) {
+          sink.putLong(column, row, longValue);
+          return;
+        }
+        break;
+      case BOOLEAN:
+        if (valueTag == BOOL_VALUE_TAG) {
+          sink.putBoolean(column, row, longValue != 0);
+          return;
+        }
+        break;
+    }
+    if (valueTag == 0) {
+      sink.putNull(column, row);
+      return;
+    }
+    throw typeMismatch(column, dataKey);
+  }
+
+  // Writes the row from a response, such as one found in the local caches.
+  void writeResponse(FetchFeatureValuesResponse response, int row, String dataKey) {
+    written.clear();
+    for (FeatureNameValuePair feature : response.getKeyValues().getFeaturesList()) {
+      int column = schema.getColumn(feature.getName());
+      if (column < 0 || written.get(column)) {
+        continue;
+      }
+      writeValue(feature.getValue(), column, row, dataKey);
+      written.set(column);
+    }
+    writeMissingNulls(row);
+  }
+
+  private void writeValue(FeatureValue value, int column, int row, String dataKey) {
+    FeatureValue.ValueCase valueCase = value.getValueCase();
+    if (valueCase == FeatureValue.ValueCase.VALUE_NOT_SET) {
+      sink.putNull(column, row);
+      return;
+    }
+    switch (schema.getColumnType(column)) {
+      case DOUBLE:
+        if (valueCase == FeatureValue.ValueCase.DOUBLE_VALUE) {
+          sink.putDouble(column, row, value.getDoubleValue());
+          return;
+        }
+        if (valueCase == FeatureValue.ValueCase.INT64_VALUE) {
+          sink.putDouble(column, row, value.getInt64Value());
+          return;
+        }
+        break;
+      case LONG:
+        if (valueCase == FeatureValue.ValueCase.INT64_VALUE) {
+          sink.putLong(column, row, value.getInt64Value());
+          return;
+        }
+        break;
+      case BOOLEAN:
+        if (valueCase == FeatureValue.ValueCase.BOOL_VALUE) {
+          sink.putBoolean(column, row, value.getBoolValue());
+          return;
+        }
+        break;
+    }
+    throw typeMismatch(column, dataKey);
+  }
+
+  // Writes nulls in the columns of the schema which the row has no value for.
+  private void writeMissingNulls(int row) {
+    for (int column = written.nextClearBit(0);
+        column < schema.getColumnCount();
+        column = written.nextClearBit(column + 1)) {
+      sink.putNull(column, row);
+    }
+  }
+
+  private InvalidArgumentException typeMismatch(int column, String dataKey) {
+    return new InvalidArgumentException(
+        new Throwable(
+            String.format(
+                "Feature '%s' of key '%s' does not hold a value of type %s.",
+                schema.getFeatureName(column), dataKey, schema.getColumnType(column))),
+        /* statusCode= */ GrpcStatusCode.of(Code.INVALID_ARGUMENT),
+        /* retryable= */ false);
+  }
+}
@@ -18,7 +18,10 @@ package com.google.cloud.aiplatform.fs;
 import com.google.api.gax.core.CredentialsProvider;
 import com.google.cloud.aiplatform.v1.FeatureOnlineStoreAdminServiceClient;
 import com.google.cloud.aiplatform.v1.FeatureOnlineStoreAdminServiceSettings;
+import com.google.common.annotations.VisibleForTesting;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -28,6 +31,11 @@ interface FeatureOnlineStoreAdminServiceClientFactory {
   static final String ENDPOINT = "aiplatform.googleapis.com:443";
 
   FeatureOnlineStoreAdminServiceClient createClient(String region) throws IOException;
+
+  // Called once the caller of createClient() is done with the client. By default it is closed.
+  default void releaseClient(String region, FeatureOnlineStoreAdminServiceClient client) {
+    client.close();
+  }
 }
 
 // Default factory class. It receives region at runtime and creates a client to access the real
@@ -61,3 +69,103 @@ class DefaultFeatureOnlineStoreAdminServiceClientFactory implements FeatureOnlin
     return FeatureOnlineStoreAdminServiceClient.create(settings);
   }
 }
+
+// Factory which keeps one long-lived client per region, created by the delegate factory on first
+// use and shared by all callers, so admin lookups do not each set up a new gRPC channel. Clients
+// are reference-counted, and are closed by shutdown() once no caller uses them anymore. The pools
+// of the metadata caches live as long as the process, so a shutdown hook, registered with the
+// first client, closes all clients when the JVM exits.
+class PooledFeatureOnlineStoreAdminServiceClientFactory
+    implements FeatureOnlineStoreAdminServiceClientFactory {
+  private final FeatureOnlineStoreAdminServiceClientFactory delegate;
+  private final Map<String, PooledClient> clients = new HashMap<>();
+  private boolean shutdown;
+  // Registered while the factory has clients and is not shut down.
+  private Thread shutdownHook;
+
+  PooledFeatureOnlineStoreAdminServiceClientFactory(
+      FeatureOnlineStoreAdminServiceClientFactory delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public synchronized FeatureOnlineStoreAdminServiceClient createClient(String region)
+      throws IOException {
+    if (shutdown) {
+      throw new IllegalStateException("The admin client factory is shut down.");
+    }
+    PooledClient pooled = clients.get(region);
+    if (pooled == null) {
+      pooled = new PooledClient(delegate.createClient(region));
+      clients.put(region, pooled);
+      if (shutdownHook == null) {
+        shutdownHook = new Thread(this::closeAll, "FeatureOnlineStoreAdminClientPool-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+      }
+    }
+    pooled.refCount++;
+    return pooled.client;
+  }
+
+  @Override
+  public synchronized void releaseClient(
+      String region, FeatureOnlineStoreAdminServiceClient client) {
+    PooledClient pooled = clients.get(region);
+    if (pooled == null || pooled.client != client) {
+      // Not a pooled client, or one which is already closed.
+      return;
+    }
+    pooled.refCount--;
+    if (shutdown && pooled.refCount == 0) {
+      clients.remove(region);
+      delegate.releaseClient(region, client);
+    }
+  }
+
+  // Closes the clients which are not in use, and the others once they are released.
+  synchronized void shutdown() {
+    shutdown = true;
+    removeShutdownHook();
+    clients.entrySet().removeIf(
+        entry -> {
+          if (entry.getValue().refCount > 0) {
+            return false;
+          }
+          delegate.releaseClient(entry.getKey(), entry.getValue().client);
+          return true;
+        });
+  }
+
+  // Closes all clients, including the ones in use. Run by the shutdown hook, when no caller can use
+  // them anymore.
+  @VisibleForTesting
+  synchronized void closeAll() {
+    shutdown = true;
+    removeShutdownHook();
+    for (Map.Entry<String, PooledClient> entry : clients.entrySet()) {
+      delegate.releaseClient(entry.getKey(), entry.getValue().client);
+    }
+    clients.clear();
+  }
+
+  private void removeShutdownHook() {
+    if (shutdownHook == null) {
+      return;
+    }
+    try {
+      Runtime.getRuntime().removeShutdownHook(shutdownHook);
+    } catch (IllegalStateException e) {
+      // The JVM is exiting, possibly from the hook itself.
+    }
+    shutdownHook = null;
+  }
+
+  private static final class PooledClient {
+    final FeatureOnlineStoreAdminServiceClient client;
+    int refCount;
+
+    PooledClient(FeatureOnlineStoreAdminServiceClient client) {
+      this.client = client;
+    }
+  }
+}
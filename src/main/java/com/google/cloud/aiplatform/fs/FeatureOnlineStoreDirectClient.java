@@ -15,6 +15,10 @@
  */
 package com.google.cloud.aiplatform.fs;
 
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.core.CredentialsProvider;
 import com.google.api.gax.grpc.GrpcStatusCode;
 import com.google.api.gax.rpc.NotFoundException;
 import com.google.api.gax.rpc.UnimplementedException;
@@ -24,9 +28,22 @@ import com.google.cloud.aiplatform.v1.FeatureViewName;
 import com.google.cloud.aiplatform.v1.FetchFeatureValuesRequest;
 import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse;
 import com.google.cloud.bigtable.data.v2.models.Row;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.protobuf.ByteString;
 import io.grpc.Status.Code;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -37,6 +54,30 @@ public class FeatureOnlineStoreDirectClient {
 
   private final BigtableClientManager bigtableClientManager;
 
+  // Whether bigtableClientManager is shared with other clients through the
+  // BigtableClientManagerRegistry, as enabled in DirectClientSettings.
+  private final boolean sharedConnection;
+  private final AtomicBoolean sharedConnectionReleased = new AtomicBoolean();
+
+  // Null unless coalescing of single fetches is enabled in DirectClientSettings.
+  private final FetchCoalescer fetchCoalescer;
+
+  // Null unless collapsing of identical in-flight fetches is enabled in DirectClientSettings.
+  private final FetchCollapser fetchCollapser;
+
+  // Null unless a FeatureValueCache, an OffHeapCellStore or a NegativeResultCache is set in
+  // DirectClientSettings.
+  private final LocalCaches localCaches;
+
+  private final String featureViewResourceName;
+  private final String featureOnlineStoreResourceName;
+  private final Optional<CredentialsProvider> credentialsProvider;
+
+  // Request without keys for the FeatureView of this client, from which its single fetches are
+  // copied rather than built from the resource name. It is rebuilt when the metadata caches return
+  // other specs, or a fetch asks for another format.
+  private volatile InternalFetchRequest fetchTemplate;
+
   // Client library generates access token, and applies the default settings to Bigtable connections.
   public static FeatureOnlineStoreDirectClient create(String featureViewResourceName)
       throws Exception {
@@ -57,6 +98,78 @@ public class FeatureOnlineStoreDirectClient {
     return new FeatureOnlineStoreDirectClient(featureViewResourceName, Optional.of(settings));
   }
 
+  /**
+   * Loads the metadata of all the FeatureViews of an online store ahead of client creation, so
+   * that clients of these FeatureViews are then created without admin RPCs.
+   *
+   * @param featureOnlineStoreResourceName The resource name of the FeatureOnlineStore.
+   * @param maxConcurrency The maximum number of FeatureViews loaded at the same time.
+   * @return The time taken by each FeatureView, the ones which failed to load, and the ones which
+   *     were skipped because the metadata cache is full.
+   */
+  public static WarmUpResult warmUp(String featureOnlineStoreResourceName, int maxConcurrency)
+      throws Exception {
+    return warmUp(featureOnlineStoreResourceName, /* settings= */ Optional.empty(), maxConcurrency);
+  }
+
+  // Same as above, with the credentials of the DirectClientSettings.
+  public static WarmUpResult warmUp(
+      String featureOnlineStoreResourceName, DirectClientSettings settings, int maxConcurrency)
+      throws Exception {
+    return warmUp(featureOnlineStoreResourceName, Optional.of(settings), maxConcurrency);
+  }
+
+  private static WarmUpResult warmUp(
+      String featureOnlineStoreResourceName,
+      Optional<DirectClientSettings> settings,
+      int maxConcurrency)
+      throws Exception {
+    Optional<CredentialsProvider> credentialsProvider =
+        settings.map(DirectClientSettings::getCredentialsProvider);
+    return new MetadataWarmUp(
+            CloudBigtableCache.getInstance(credentialsProvider),
+            FeatureViewCache.getInstance(credentialsProvider))
+        .run(featureOnlineStoreResourceName, maxConcurrency);
+  }
+
+  /**
+   * Writes the metadata loaded so far by clients of this process, or by {@link #warmUp}, to a
+   * local file. Another process can then create clients without the admin API with {@link
+   * #loadMetadataSnapshot}.
+   */
+  public static void exportMetadataSnapshot(Path file) throws IOException {
+    metadataSnapshots(/* settings= */ Optional.empty()).export(file);
+  }
+
+  // Same as above, with the credentials of the DirectClientSettings.
+  public static void exportMetadataSnapshot(Path file, DirectClientSettings settings)
+      throws IOException {
+    metadataSnapshots(Optional.of(settings)).export(file);
+  }
+
+  /**
+   * Loads the metadata of a file written by {@link #exportMetadataSnapshot}, so that clients are
+   * created without waiting for the admin API. The metadata is revalidated against the admin API
+   * in the background, and the snapshot keeps being used until that succeeds.
+   */
+  public static void loadMetadataSnapshot(Path file) throws IOException {
+    metadataSnapshots(/* settings= */ Optional.empty()).load(file);
+  }
+
+  // Same as above, with the credentials of the DirectClientSettings.
+  public static void loadMetadataSnapshot(Path file, DirectClientSettings settings)
+      throws IOException {
+    metadataSnapshots(Optional.of(settings)).load(file);
+  }
+
+  private static MetadataSnapshots metadataSnapshots(Optional<DirectClientSettings> settings) {
+    Optional<CredentialsProvider> credentialsProvider =
+        settings.map(DirectClientSettings::getCredentialsProvider);
+    return new MetadataSnapshots(
+        CloudBigtableCache.getInstance(credentialsProvider),
+        FeatureViewCache.getInstance(credentialsProvider));
+  }
+
 
   FeatureOnlineStoreDirectClient(String featureViewResourceName, Optional<DirectClientSettings> settings) throws Exception {
     FeatureViewName featureViewName = FeatureViewName.parse(featureViewResourceName);
@@ -75,10 +188,54 @@ public class FeatureOnlineStoreDirectClient {
             .setLocation(locationId)
             .setFeatureOnlineStore(onlineStoreId)
             .build().toString();
+    this.featureViewResourceName = featureViewResourceName;
+    this.featureOnlineStoreResourceName = fosName;
+    this.credentialsProvider = settings.map(DirectClientSettings::getCredentialsProvider);
     // Call GetFeatureOnlineStore and GetFeatureView APIs and save the metadata in cache.
-    CloudBigtableSpec btSpec = CloudBigtableCache.getInstance(settings.map(DirectClientSettings::getCredentialsProvider)).getCloudBigtableSpec(fosName);
-    FeatureViewSpec fvSpec = FeatureViewCache.getInstance(settings.map(DirectClientSettings::getCredentialsProvider)).getFeatureViewSpec(featureViewResourceName);
-    this.bigtableClientManager = new BigtableClientManager(btSpec, fvSpec, featureViewResourceName, locationId, settings);
+    CloudBigtableSpec btSpec = CloudBigtableCache.getInstance(this.credentialsProvider).getCloudBigtableSpec(fosName);
+    FeatureViewSpec fvSpec = FeatureViewCache.getInstance(this.credentialsProvider).getFeatureViewSpec(featureViewResourceName);
+    this.sharedConnection = settings.isPresent() && settings.get().isConnectionSharingEnabled();
+    this.bigtableClientManager =
+        this.sharedConnection
+            ? BigtableClientManagerRegistry.getInstance()
+                .acquire(btSpec, fvSpec, featureViewResourceName, locationId, settings.get())
+            : new BigtableClientManager(
+                btSpec, fvSpec, featureViewResourceName, locationId, settings);
+    if (settings.isPresent() && settings.get().getCoalescingWindow() != null) {
+      this.fetchCoalescer =
+          new FetchCoalescer(
+              this.bigtableClientManager,
+              settings.get().getCoalescingWindow(),
+              settings.get().getMaxCoalescedBatchSize());
+    } else {
+      this.fetchCoalescer = null;
+    }
+    this.fetchCollapser =
+        settings.isPresent() && settings.get().isRequestCollapsingEnabled()
+            ? new FetchCollapser()
+            : null;
+    this.localCaches = LocalCaches.fromSettings(settings, this::refreshInBackground);
+  }
+
+  // Serves the FeatureView through the given manager, with the default settings. The specs are
+  // read from the metadata caches, which are expected to hold them already.
+  @VisibleForTesting
+  FeatureOnlineStoreDirectClient(
+      String featureViewResourceName, BigtableClientManager bigtableClientManager) {
+    FeatureViewName featureViewName = FeatureViewName.parse(featureViewResourceName);
+    this.featureViewResourceName = featureViewResourceName;
+    this.featureOnlineStoreResourceName =
+        FeatureOnlineStoreName.of(
+                featureViewName.getProject(),
+                featureViewName.getLocation(),
+                featureViewName.getFeatureOnlineStore())
+            .toString();
+    this.credentialsProvider = Optional.empty();
+    this.sharedConnection = false;
+    this.bigtableClientManager = bigtableClientManager;
+    this.fetchCoalescer = null;
+    this.fetchCollapser = null;
+    this.localCaches = null;
   }
 
   public FetchFeatureValuesResponse fetchFeatureValues(FetchFeatureValuesRequest request) throws Exception {
@@ -89,15 +246,233 @@ public class FeatureOnlineStoreDirectClient {
           /* statusCode= */ GrpcStatusCode.of(Code.UNIMPLEMENTED),
           /* retryable= */ false);
     }
-    InternalFetchRequest internalRequest = new InternalFetchRequest(request);
-    Row row = this.bigtableClientManager.getClient().fetchData(internalRequest);
-    if (row == null) {
-      throw new NotFoundException(
-          new Throwable(String.format("Entity id %s is not found", internalRequest.dataKey)),
-          /* statusCode= */ GrpcStatusCode.of(Code.NOT_FOUND),
+    return fetchFeatureValues(newInternalRequest(request));
+  }
+
+  // Builds the request of a single fetch. Fetches of the FeatureView of this client still read the
+  // specs, so that they follow the refreshes of the caches, but do not parse the resource name nor
+  // build the Bigtable table and filter. The names of this client are the keys of the lookups.
+  private InternalFetchRequest newInternalRequest(FetchFeatureValuesRequest request) {
+    if (!request.getFeatureView().equals(this.featureViewResourceName)) {
+      return new InternalFetchRequest(request);
+    }
+    CloudBigtableSpec btSpec =
+        CloudBigtableCache.getInstance(this.credentialsProvider)
+            .getCloudBigtableSpec(this.featureOnlineStoreResourceName);
+    FeatureViewSpec fvSpec =
+        FeatureViewCache.getInstance(this.credentialsProvider)
+            .getFeatureViewSpec(this.featureViewResourceName);
+    InternalFetchRequest template = this.fetchTemplate;
+    if (template == null
+        || template.cloudBigtableSpec != btSpec
+        || template.featureViewSpec != fvSpec
+        || template.format != request.getDataFormat()) {
+      template =
+          InternalFetchRequest.newTemplate(
+              this.featureViewResourceName,
+              request.getDataFormat(),
+              btSpec,
+              fvSpec,
+              /* featureProjection= */ null);
+      this.fetchTemplate = template;
+    }
+    return template.newRequest(InternalFetchRequest.constructDataKey(request));
+  }
+
+  // Fetches the single key of the request, from the local caches or Bigtable.
+  FetchFeatureValuesResponse fetchFeatureValues(InternalFetchRequest internalRequest)
+      throws Exception {
+    FetchFeatureValuesResponse cached = getCached(internalRequest);
+    if (cached != null) {
+      return cached;
+    }
+    if (this.localCaches != null
+        && this.localCaches.isKnownMissing(internalRequest, internalRequest.dataKey)) {
+      throw entityNotFound(internalRequest.dataKey);
+    }
+    if (this.fetchCollapser != null) {
+      return await(
+          this.fetchCollapser.fetch(
+              internalRequest,
+              () -> ApiFutures.immediateFuture(fetchAndConvert(internalRequest))));
+    }
+    return fetchAndConvert(internalRequest);
+  }
+
+  // Reads the row of a single fetch and converts it to the response.
+  private FetchFeatureValuesResponse fetchAndConvert(InternalFetchRequest internalRequest)
+      throws Exception {
+    return toResponse(fetchRow(internalRequest), internalRequest);
+  }
+
+  // Reads the row of a single fetch, or null if it is not found.
+  private Row fetchRow(InternalFetchRequest internalRequest) throws Exception {
+    if (this.fetchCoalescer != null) {
+      return await(this.fetchCoalescer.fetch(internalRequest));
+    }
+    return this.bigtableClientManager.getClient().fetchData(internalRequest);
+  }
+
+  /**
+   * Same as {@link #fetchFeatureValues}, for proxies which forward the serialized response without
+   * reading it. The feature names and values are sliced out of the Bigtable cell and written as
+   * they are, so neither the internal storage nor the response messages are built. Fetches of the
+   * same entity are not collapsed.
+   *
+   * @param request The request to fetch feature values for a single entity.
+   * @return The response, to be written to an {@link java.io.OutputStream} or a {@link
+   *     java.nio.ByteBuffer}.
+   * @throws NotFoundException if the entity is not found.
+   */
+  public PassThroughResponse fetchSerializedFeatureValues(FetchFeatureValuesRequest request)
+      throws Exception {
+    return fetchUnconverted(request, PassThroughResponse::of, PassThroughResponse::fromCell);
+  }
+
+  /**
+   * Same as {@link #fetchFeatureValues}, for callers which read a few of the features. The value
+   * of a feature is only decoded from the Bigtable cell when it is accessed. Fetches of the same
+   * entity are not collapsed.
+   *
+   * @param request The request to fetch feature values for a single entity.
+   * @throws NotFoundException if the entity is not found.
+   */
+  public LazyFetchFeatureValuesResponse fetchLazyFeatureValues(FetchFeatureValuesRequest request)
+      throws Exception {
+    return fetchUnconverted(
+        request, LazyFetchFeatureValuesResponse::of, LazyFetchFeatureValuesResponse::fromCell);
+  }
+
+  // Reads a cell value into another type than the response, without converting it.
+  private interface CellReader<T> {
+    T read(ByteString cellValue, InternalFetchRequest request) throws IOException;
+  }
+
+  // Fetches the single key of the request, and reads the Bigtable cell with cellReader rather than
+  // converting it to the response. Responses found in the local caches are wrapped by fromCached.
+  private <T> T fetchUnconverted(
+      FetchFeatureValuesRequest request,
+      Function<FetchFeatureValuesResponse, T> fromCached,
+      CellReader<T> cellReader)
+      throws Exception {
+    if (request.getDataFormat().equals(FeatureViewDataFormat.PROTO_STRUCT)) {
+      throw new UnimplementedException(
+          new Throwable("PROTO_STRUCT is not supported yet"),
+          /* statusCode= */ GrpcStatusCode.of(Code.UNIMPLEMENTED),
           /* retryable= */ false);
     }
-    return Converter.rowToResponse(row, internalRequest);
+    InternalFetchRequest internalRequest = newInternalRequest(request);
+    FetchFeatureValuesResponse cached = getCached(internalRequest);
+    if (cached != null) {
+      return fromCached.apply(cached);
+    }
+    if (this.localCaches != null
+        && this.localCaches.isKnownMissing(internalRequest, internalRequest.dataKey)) {
+      throw entityNotFound(internalRequest.dataKey);
+    }
+    Row row = fetchRow(internalRequest);
+    if (row == null) {
+      if (this.localCaches != null) {
+        this.localCaches.putMissing(internalRequest, internalRequest.dataKey);
+      }
+      throw entityNotFound(internalRequest.dataKey);
+    }
+    T result =
+        cellReader.read(Converter.selectCell(row, internalRequest).getValue(), internalRequest);
+    if (this.localCaches != null) {
+      // No response is built, so only the off-heap store keeps the cell.
+      this.localCaches.put(internalRequest, internalRequest.dataKey, row, null);
+    }
+    return result;
+  }
+
+  /**
+   * Asynchronous version of {@link #fetchFeatureValues}. The Bigtable read does not block the
+   * calling thread, and the returned row is converted to a response on {@code executor}.
+   *
+   * @param request The request to fetch feature values for a single entity.
+   * @param executor The executor on which the Bigtable row is converted to the response.
+   * @return A future of the response. It fails with {@link NotFoundException} if the entity is not
+   *     found.
+   */
+  public ApiFuture<FetchFeatureValuesResponse> fetchFeatureValuesAsync(
+      FetchFeatureValuesRequest request, Executor executor) {
+    if (request.getDataFormat().equals(FeatureViewDataFormat.PROTO_STRUCT)) {
+      return ApiFutures.immediateFailedFuture(
+          new UnimplementedException(
+              new Throwable("PROTO_STRUCT is not supported yet"),
+              /* statusCode= */ GrpcStatusCode.of(Code.UNIMPLEMENTED),
+              /* retryable= */ false));
+    }
+    InternalFetchRequest internalRequest;
+    try {
+      internalRequest = newInternalRequest(request);
+    } catch (Exception e) {
+      return ApiFutures.immediateFailedFuture(e);
+    }
+    return fetchFeatureValuesAsync(internalRequest, executor);
+  }
+
+  // Asynchronously fetches the single key of the request, from the local caches or Bigtable.
+  ApiFuture<FetchFeatureValuesResponse> fetchFeatureValuesAsync(
+      InternalFetchRequest internalRequest, Executor executor) {
+    FetchFeatureValuesResponse cached;
+    try {
+      cached = getCached(internalRequest);
+    } catch (Exception e) {
+      return ApiFutures.immediateFailedFuture(e);
+    }
+    if (cached != null) {
+      return ApiFutures.immediateFuture(cached);
+    }
+    if (this.localCaches != null
+        && this.localCaches.isKnownMissing(internalRequest, internalRequest.dataKey)) {
+      return ApiFutures.immediateFailedFuture(entityNotFound(internalRequest.dataKey));
+    }
+    if (this.fetchCollapser != null) {
+      return this.fetchCollapser.fetch(
+          internalRequest, () -> fetchAndConvertAsync(internalRequest, executor));
+    }
+    return fetchAndConvertAsync(internalRequest, executor);
+  }
+
+  // Asynchronously reads the row of a single fetch and converts it to the response on executor.
+  private ApiFuture<FetchFeatureValuesResponse> fetchAndConvertAsync(
+      InternalFetchRequest internalRequest, Executor executor) {
+    ApiFuture<Row> rowFuture;
+    try {
+      rowFuture = fetchRowAsync(internalRequest);
+    } catch (RuntimeException e) {
+      return ApiFutures.immediateFailedFuture(e);
+    }
+    return ApiFutures.transformAsync(
+        rowFuture,
+        row -> ApiFutures.immediateFuture(toResponse(row, internalRequest)),
+        executor);
+  }
+
+  // Converts the row of a single fetch to the response, and caches it if a cache is enabled.
+  private FetchFeatureValuesResponse toResponse(Row row, InternalFetchRequest internalRequest)
+      throws Exception {
+    if (row == null) {
+      if (this.localCaches != null) {
+        this.localCaches.putMissing(internalRequest, internalRequest.dataKey);
+      }
+      throw entityNotFound(internalRequest.dataKey);
+    }
+    FetchFeatureValuesResponse response = Converter.rowToResponse(row, internalRequest);
+    if (this.localCaches != null) {
+      this.localCaches.put(internalRequest, internalRequest.dataKey, row, response);
+    }
+    return response;
+  }
+
+  private FetchFeatureValuesResponse getCached(InternalFetchRequest internalRequest)
+      throws Exception {
+    if (this.localCaches == null) {
+      return null;
+    }
+    return this.localCaches.get(internalRequest, internalRequest.dataKey);
   }
 
   public List<FetchFeatureValuesResponse> batchFetchFeatureValues(List<FetchFeatureValuesRequest> requests) throws Exception {
@@ -110,12 +485,275 @@ public class FeatureOnlineStoreDirectClient {
       }
     }
 
-    InternalFetchRequest internalRequest = new InternalFetchRequest(requests);
+    return batchFetchFeatureValues(new InternalFetchRequest(requests));
+  }
+
+  // Fetches all the keys of the batch request, from the local caches or Bigtable.
+  List<FetchFeatureValuesResponse> batchFetchFeatureValues(InternalFetchRequest internalRequest)
+      throws Exception {
+    if (this.localCaches != null) {
+      // Only the keys which are not cached are read from Bigtable.
+      LocalCaches.BatchLookup lookup = this.localCaches.lookup(internalRequest);
+      if (lookup.missingRequest() == null) {
+        return lookup.complete(ImmutableList.of());
+      }
+      return lookup.complete(
+          this.bigtableClientManager.getClient().batchFetchData(lookup.missingRequest()));
+    }
+    // Without caches, which keep the cells of the rows, rows are decoded straight into cells.
+    List<FeatureViewCell> cells =
+        this.bigtableClientManager.getClient().batchFetchFeatureViewCells(internalRequest);
+    return Converter.featureViewCellsToResponses(cells, internalRequest);
+  }
+
+  // Fetches all the keys of the batch request into the columns of sink, one row per key in the
+  // order of the keys.
+  void batchFetchFeatureColumns(
+      InternalFetchRequest internalRequest, FeatureSchema schema, FeatureColumnSink sink)
+      throws Exception {
+    FeatureColumnWriter writer = new FeatureColumnWriter(schema, sink, internalRequest);
+    if (this.localCaches != null) {
+      // The caches keep responses, which are copied into the columns.
+      List<FetchFeatureValuesResponse> responses = batchFetchFeatureValues(internalRequest);
+      for (int i = 0; i < responses.size(); i++) {
+        writer.writeResponse(responses.get(i), i, internalRequest.dataKeys.get(i));
+      }
+      return;
+    }
     List<Row> rows = this.bigtableClientManager.getClient().batchFetchData(internalRequest);
-    return Converter.rowsToResponses(rows, internalRequest);
+    Map<String, Row> rowsByKey = new HashMap<>();
+    for (Row row : rows) {
+      rowsByKey.put(row.getKey().toStringUtf8(), row);
+    }
+    for (int i = 0; i < internalRequest.dataKeys.size(); i++) {
+      String dataKey = internalRequest.dataKeys.get(i);
+      Row row = rowsByKey.get(dataKey);
+      if (row == null) {
+        writer.writeNullRow(i);
+      } else {
+        writer.writeCell(Converter.selectCell(row, internalRequest).getValue(), i, dataKey);
+      }
+    }
+  }
+
+  /**
+   * Asynchronous version of {@link #batchFetchFeatureValues}. Rows are streamed from Bigtable
+   * without blocking the calling thread, and converted to responses on {@code executor}.
+   *
+   * @param requests The requests to fetch feature values for. All requests must target the same
+   *     FeatureView.
+   * @param executor The executor on which the Bigtable rows are converted to responses.
+   * @return A future of the responses, ordered to match {@code requests}.
+   */
+  public ApiFuture<List<FetchFeatureValuesResponse>> batchFetchFeatureValuesAsync(
+      List<FetchFeatureValuesRequest> requests, Executor executor) {
+    for (FetchFeatureValuesRequest request : requests) {
+      if (request.getDataFormat().equals(FeatureViewDataFormat.PROTO_STRUCT)) {
+        return ApiFutures.immediateFailedFuture(
+            new UnimplementedException(
+                new Throwable("PROTO_STRUCT is not supported yet for batch fetch"),
+                /* statusCode= */ GrpcStatusCode.of(Code.UNIMPLEMENTED),
+                /* retryable= */ false));
+      }
+    }
+    InternalFetchRequest internalRequest;
+    try {
+      internalRequest = new InternalFetchRequest(requests);
+    } catch (Exception e) {
+      return ApiFutures.immediateFailedFuture(e);
+    }
+    return batchFetchFeatureValuesAsync(internalRequest, executor);
+  }
+
+  // Asynchronously fetches all the keys of the batch request, from the local caches or Bigtable.
+  ApiFuture<List<FetchFeatureValuesResponse>> batchFetchFeatureValuesAsync(
+      InternalFetchRequest internalRequest, Executor executor) {
+    if (this.localCaches == null) {
+      // Without caches, which keep the cells of the rows, rows are decoded straight into cells.
+      ApiFuture<List<FeatureViewCell>> cellsFuture;
+      try {
+        cellsFuture =
+            this.bigtableClientManager.getClient().batchFetchFeatureViewCellsAsync(internalRequest);
+      } catch (Exception e) {
+        return ApiFutures.immediateFailedFuture(e);
+      }
+      return ApiFutures.transformAsync(
+          cellsFuture,
+          cells ->
+              ApiFutures.immediateFuture(
+                  Converter.featureViewCellsToResponses(cells, internalRequest)),
+          executor);
+    }
+    LocalCaches.BatchLookup lookup;
+    ApiFuture<List<Row>> rowsFuture;
+    try {
+      // Only the keys which are not cached are read from Bigtable.
+      lookup = this.localCaches.lookup(internalRequest);
+      if (lookup.missingRequest() == null) {
+        return ApiFutures.immediateFuture(lookup.complete(ImmutableList.of()));
+      }
+      rowsFuture =
+          this.bigtableClientManager.getClient().batchFetchDataAsync(lookup.missingRequest());
+    } catch (Exception e) {
+      return ApiFutures.immediateFailedFuture(e);
+    }
+    return ApiFutures.transformAsync(
+        rowsFuture, rows -> ApiFutures.immediateFuture(lookup.complete(rows)), executor);
+  }
+
+  /**
+   * Resolves the metadata of the FeatureView of this client once, and returns a handle whose
+   * fetches skip the parsing of the resource name, the metadata lookups and the building of the
+   * Bigtable filter which {@link #fetchFeatureValues} does on every request. Responses are in the
+   * KEY_VALUE format.
+   *
+   * <p>The handle keeps the metadata resolved here. Call this again to pick up changes of the
+   * metadata, such as a new Bigtable table.
+   */
+  public PreparedFeatureView prepareFeatureView() {
+    return prepareFeatureView((FeatureProjection) null);
+  }
+
+  /**
+   * Same as {@link #prepareFeatureView()}, but the fetches of the handle only return the given
+   * features. The other features of a cell are skipped without being decoded, which makes fetches
+   * of a few features of a wide FeatureView cheaper.
+   *
+   * @param featureNames The names of the features to return. Must not be empty.
+   */
+  public PreparedFeatureView prepareFeatureView(Collection<String> featureNames) {
+    return prepareFeatureView(FeatureProjection.of(featureNames));
+  }
+
+  private PreparedFeatureView prepareFeatureView(FeatureProjection featureProjection) {
+    CloudBigtableSpec btSpec =
+        CloudBigtableCache.getInstance(this.credentialsProvider)
+            .getCloudBigtableSpec(this.featureOnlineStoreResourceName);
+    FeatureViewSpec fvSpec =
+        FeatureViewCache.getInstance(this.credentialsProvider)
+            .getFeatureViewSpec(this.featureViewResourceName);
+    return new PreparedFeatureView(
+        this, this.featureViewResourceName, btSpec, fvSpec, featureProjection);
+  }
+
+  // Revalidates the stale cached entities of the request without blocking the fetch which found
+  // them. Only the entities with a newer cell in Bigtable are read again.
+  private void refreshInBackground(InternalFetchRequest refreshRequest) {
+    BigtableClient client = this.bigtableClientManager.getClient();
+    ApiFuture<List<Row>> revalidation;
+    try {
+      revalidation =
+          client.revalidateAsync(
+              refreshRequest, this.localCaches.oldestCellTimestampMicros(refreshRequest));
+    } catch (RuntimeException e) {
+      logger.log(Level.WARNING, "Failed to refresh cached feature values", e);
+      this.localCaches.failRefresh(refreshRequest);
+      return;
+    }
+    ApiFutures.addCallback(
+        revalidation,
+        new ApiFutureCallback<List<Row>>() {
+          @Override
+          public void onSuccess(List<Row> revalidatedRows) {
+            InternalFetchRequest changedRequest =
+                localCaches.completeRevalidation(refreshRequest, revalidatedRows);
+            if (changedRequest != null) {
+              rereadInBackground(client, changedRequest);
+            }
+          }
+
+          @Override
+          public void onFailure(Throwable t) {
+            logger.log(Level.WARNING, "Failed to refresh cached feature values", t);
+            localCaches.failRefresh(refreshRequest);
+          }
+        },
+        MoreExecutors.directExecutor());
+  }
+
+  // Reads the full rows of the changed cached entities, and updates the caches with them.
+  private void rereadInBackground(BigtableClient client, InternalFetchRequest changedRequest) {
+    ApiFuture<List<Row>> rowsFuture;
+    try {
+      rowsFuture = client.batchFetchDataAsync(changedRequest);
+    } catch (RuntimeException e) {
+      logger.log(Level.WARNING, "Failed to refresh cached feature values", e);
+      this.localCaches.failRefresh(changedRequest);
+      return;
+    }
+    ApiFutures.addCallback(
+        rowsFuture,
+        new ApiFutureCallback<List<Row>>() {
+          @Override
+          public void onSuccess(List<Row> rows) {
+            localCaches.completeRefresh(changedRequest, rows);
+          }
+
+          @Override
+          public void onFailure(Throwable t) {
+            logger.log(Level.WARNING, "Failed to refresh cached feature values", t);
+            localCaches.failRefresh(changedRequest);
+          }
+        },
+        // The rows are only converted, which is cheap enough for the Bigtable callback thread.
+        MoreExecutors.directExecutor());
+  }
+
+  // Reads the row of a single fetch, through the coalescer when it is enabled.
+  private ApiFuture<Row> fetchRowAsync(InternalFetchRequest internalRequest) {
+    if (this.fetchCoalescer != null) {
+      return this.fetchCoalescer.fetch(internalRequest);
+    }
+    return this.bigtableClientManager.getClient().fetchDataAsync(internalRequest);
+  }
+
+  // Waits for the future and rethrows the underlying cause when it fails.
+  private static <T> T await(ApiFuture<T> future) throws Exception {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception) {
+        throw (Exception) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+
+  private static NotFoundException entityNotFound(String dataKey) {
+    return new NotFoundException(
+        new Throwable(String.format("Entity id %s is not found", dataKey)),
+        /* statusCode= */ GrpcStatusCode.of(Code.NOT_FOUND),
+        /* retryable= */ false);
+  }
+
+  /**
+   * Returns the health of the refreshes of the access token of the Bigtable connection, and the
+   * time of the last successful one. Fetches fail once the health is {@link
+   * TokenRefreshStatus.Health#EXPIRED}.
+   */
+  public TokenRefreshStatus getTokenRefreshStatus() {
+    return this.bigtableClientManager.getTokenRefreshStatus();
+  }
+
+  @VisibleForTesting
+  BigtableClientManager getBigtableClientManager() {
+    return this.bigtableClientManager;
   }
 
   public void close() {
-    this.bigtableClientManager.shutdown();
+    if (this.fetchCoalescer != null) {
+      this.fetchCoalescer.close();
+    }
+    if (!this.sharedConnection) {
+      this.bigtableClientManager.shutdown();
+    } else if (this.sharedConnectionReleased.compareAndSet(false, true)) {
+      // The connection is closed with the last client which uses it.
+      BigtableClientManagerRegistry.getInstance()
+          .release(this.bigtableClientManager, this.featureViewResourceName);
+    }
   }
 }
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.cloud.aiplatform.fs.FeatureViewInternalStorage.FeatureData;
+import com.google.cloud.aiplatform.v1.FeatureValue;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse.FeatureNameValuePairList;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse.FeatureNameValuePairList.FeatureNameValuePair;
+import com.google.common.collect.ImmutableSet;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The features of a FeatureView which a fetch returns, out of all the features of its cells.
+ *
+ * <p>{@link #parse} decodes a serialized {@link FeatureViewInternalStorage} with a {@link
+ * CodedInputStream}, and skips the {@link FeatureData} entries of other features without building
+ * them. Names are compared with the serialized bytes, so the cost of a cell scales with the number
+ * of requested features rather than with the width of the FeatureView.
+ */
+final class FeatureProjection {
+
+  private static final int FEATURE_DATA_TAG =
+      tag(
+          FeatureViewInternalStorage.FEATURE_DATA_FIELD_NUMBER,
+          WireFormat.WIRETYPE_LENGTH_DELIMITED);
+  private static final int NAME_TAG =
+      tag(FeatureData.NAME_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+  private static final int VALUES_TAG =
+      tag(FeatureData.VALUES_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+
+  private final ImmutableSet<String> featureNames;
+  private final String[] names;
+  // UTF-8 bytes of the feature names, in the order of names.
+  private final byte[][] nameBytes;
+
+  private FeatureProjection(ImmutableSet<String> featureNames) {
+    this.featureNames = featureNames;
+    this.names = featureNames.toArray(new String[0]);
+    this.nameBytes = new byte[names.length][];
+    for (int i = 0; i < names.length; i++) {
+      nameBytes[i] = names[i].getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  // The tag of a field as CodedInputStream.readTag returns it. WireFormat.makeTag is not public.
+  static int tag(int fieldNumber, int wireType) {
+    return (fieldNumber << 3) | wireType;
+  }
+
+  static FeatureProjection of(Collection<String> featureNames) {
+    if (featureNames.isEmpty()) {
+      throw new IllegalArgumentException("A feature projection needs at least one feature.");
+    }
+    return new FeatureProjection(ImmutableSet.copyOf(featureNames));
+  }
+
+  ImmutableSet<String> featureNames() {
+    return featureNames;
+  }
+
+  /**
+   * Parses the requested features of a serialized {@link FeatureViewInternalStorage}. The other
+   * features and the feature timestamp are skipped.
+   */
+  FeatureViewInternalStorage parse(ByteString internalStorage) throws IOException {
+    FeatureViewInternalStorage.Builder storage = FeatureViewInternalStorage.newBuilder();
+    CodedInputStream input = internalStorage.newCodedInput();
+    while (true) {
+      int tag = input.readTag();
+      if (tag == 0) {
+        break;
+      }
+      if (tag != FEATURE_DATA_TAG) {
+        input.skipField(tag);
+        continue;
+      }
+      int oldLimit = input.pushLimit(input.readRawVarint32());
+      FeatureData featureData = parseFeatureData(input, internalStorage);
+      if (featureData != null) {
+        storage.addFeatureData(featureData);
+      }
+      // Skips the rest of a FeatureData entry whose name is not requested.
+      input.skipRawBytes(input.getBytesUntilLimit());
+      input.popLimit(oldLimit);
+    }
+    return storage.build();
+  }
+
+  // Returns null as soon as the name of the entry is known not to be requested.
+  private FeatureData parseFeatureData(CodedInputStream input, ByteString internalStorage)
+      throws IOException {
+    FeatureData.Builder featureData = null;
+    // Values which are serialized before the name. Serializers write the name first, so this is
+    // only used for input from other encoders.
+    List<ByteString> valuesBeforeName = null;
+    while (!input.isAtEnd()) {
+      int tag = input.readTag();
+      if (tag == NAME_TAG) {
+        int length = input.readRawVarint32();
+        int index = indexOf(internalStorage, input.getTotalBytesRead(), length);
+        if (index < 0) {
+          return null;
+        }
+        input.skipRawBytes(length);
+        featureData = newFeatureData(index, valuesBeforeName);
+      } else if (tag == VALUES_TAG && featureData != null) {
+        featureData.addValues(
+            input.readMessage(FeatureValue.parser(), ExtensionRegistryLite.getEmptyRegistry()));
+      } else if (tag == VALUES_TAG) {
+        if (valuesBeforeName == null) {
+          valuesBeforeName = new ArrayList<>(1);
+        }
+        valuesBeforeName.add(input.readBytes());
+      } else {
+        input.skipField(tag);
+      }
+    }
+    if (featureData == null) {
+      // An entry without a name has the empty name.
+      int index = indexOf(ByteString.EMPTY, 0, 0);
+      if (index < 0) {
+        return null;
+      }
+      featureData = newFeatureData(index, valuesBeforeName);
+    }
+    return featureData.build();
+  }
+
+  private FeatureData.Builder newFeatureData(int index, List<ByteString> valuesBeforeName)
+      throws IOException {
+    FeatureData.Builder featureData = FeatureData.newBuilder().setName(names[index]);
+    if (valuesBeforeName != null) {
+      for (ByteString value : valuesBeforeName) {
+        featureData.addValues(FeatureValue.parseFrom(value));
+      }
+    }
+    return featureData;
+  }
+
+  // Returns the index of the requested name equal to the bytes at [offset, offset + length) of
+  // bytes, or -1 if none is. Names are indexed in the order of the collection they were given in.
+  int indexOf(ByteString bytes, int offset, int length) {
+    for (int i = 0; i < nameBytes.length; i++) {
+      byte[] candidate = nameBytes[i];
+      if (candidate.length != length) {
+        continue;
+      }
+      int j = 0;
+      while (j < length && candidate[j] == bytes.byteAt(offset + j)) {
+        j++;
+      }
+      if (j == length) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Keeps only the requested features of a response, such as one cached for all the features. */
+  FetchFeatureValuesResponse project(FetchFeatureValuesResponse response) {
+    FeatureNameValuePairList.Builder keyValues = FeatureNameValuePairList.newBuilder();
+    for (FeatureNameValuePair feature : response.getKeyValues().getFeaturesList()) {
+      if (featureNames.contains(feature.getName())) {
+        keyValues.addFeatures(feature);
+      }
+    }
+    return response.toBuilder().setKeyValues(keyValues).build();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof FeatureProjection
+        && featureNames.equals(((FeatureProjection) o).featureNames);
+  }
+
+  @Override
+  public int hashCode() {
+    return featureNames.hashCode();
+  }
+}
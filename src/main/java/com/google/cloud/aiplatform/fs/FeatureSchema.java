@@ -0,0 +1,118 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The features written by a columnar batch fetch, see {@link
+ * PreparedFeatureView#batchFetchFeatureColumns}. Each feature is one column of a primitive type,
+ * in the order the features are added to the builder.
+ */
+public final class FeatureSchema {
+
+  /** The primitive type of a column. */
+  public enum ColumnType {
+    /** Holds double values. int64 values are widened to double. */
+    DOUBLE,
+    /** Holds int64 values. */
+    LONG,
+    /** Holds bool values. */
+    BOOLEAN
+  }
+
+  private final ImmutableList<String> featureNames;
+  private final ImmutableList<ColumnType> columnTypes;
+  // Matches the feature names of cells to columns, without decoding them.
+  private final FeatureProjection projection;
+
+  private FeatureSchema(Builder builder) {
+    this.featureNames = ImmutableList.copyOf(builder.featureNames);
+    this.columnTypes = ImmutableList.copyOf(builder.columnTypes);
+    this.projection = FeatureProjection.of(featureNames);
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /** Returns the number of columns. */
+  public int getColumnCount() {
+    return featureNames.size();
+  }
+
+  /** Returns the name of the feature of the column. */
+  public String getFeatureName(int column) {
+    return featureNames.get(column);
+  }
+
+  /** Returns the type of the column. */
+  public ColumnType getColumnType(int column) {
+    return columnTypes.get(column);
+  }
+
+  /** Returns the column of the feature, or -1 if the feature is not in the schema. */
+  public int getColumn(String featureName) {
+    return featureNames.indexOf(featureName);
+  }
+
+  // Returns the column of the feature whose UTF-8 name is at [offset, offset + length) of bytes,
+  // or -1 if the feature is not in the schema.
+  int getColumn(ByteString bytes, int offset, int length) {
+    return projection.indexOf(bytes, offset, length);
+  }
+
+  /** Builder for {@link FeatureSchema}. */
+  public static final class Builder {
+    private final List<String> featureNames = new ArrayList<>();
+    private final List<ColumnType> columnTypes = new ArrayList<>();
+
+    private Builder() {}
+
+    /** Adds a column of the feature, with the given type. */
+    public Builder addFeature(String featureName, ColumnType columnType) {
+      if (featureNames.contains(featureName)) {
+        throw new IllegalArgumentException(
+            String.format("Feature '%s' is already in the schema.", featureName));
+      }
+      featureNames.add(featureName);
+      columnTypes.add(columnType);
+      return this;
+    }
+
+    public Builder addDoubleFeature(String featureName) {
+      return addFeature(featureName, ColumnType.DOUBLE);
+    }
+
+    public Builder addLongFeature(String featureName) {
+      return addFeature(featureName, ColumnType.LONG);
+    }
+
+    public Builder addBooleanFeature(String featureName) {
+      return addFeature(featureName, ColumnType.BOOLEAN);
+    }
+
+    public FeatureSchema build() {
+      if (featureNames.isEmpty()) {
+        throw new IllegalArgumentException("A feature schema needs at least one feature.");
+      }
+      return new FeatureSchema(this);
+    }
+  }
+}
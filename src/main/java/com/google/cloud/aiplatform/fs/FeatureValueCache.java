@@ -0,0 +1,325 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-process cache of feature values, keyed by FeatureView resource name and entity key. It sits in
+ * front of Bigtable, and can be shared by clients of different FeatureViews through {@link
+ * DirectClientSettings.Builder#setFeatureValueCache}.
+ *
+ * <p>The cache is bounded by the approximate size of the cached responses in bytes. Entries expire
+ * after the TTL of their FeatureView. To keep one-off keys, such as a scan over many entities, from
+ * evicting the hot set, a key is only admitted once it has been missed twice within the recent
+ * history of the admission filter.
+ *
+ * <p>If a FeatureView also has a refresh time, shorter than its TTL, entries older than it are
+ * still served, and one of the fetches which hit them reads the entity again in the background.
+ * Hot entities are then refreshed before they expire, and fetches only wait for Bigtable once an
+ * entry is past its TTL.
+ */
+public final class FeatureValueCache {
+
+  // Approximate per-entry overhead of the key, entry and cache bookkeeping, in bytes.
+  private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+  // Only get() looks entries up through the cache, so that stats() counts the fetches. Internal
+  // lookups go through asMap(), which records no hit or miss.
+  private final Cache<EntityKey, Entry> cache;
+  // Keys which were missed once recently, but are not admitted to the cache yet. Null if every key
+  // is admitted on its first miss.
+  private final Cache<EntityKey, Boolean> admissionFilter;
+  private final Duration defaultTtl;
+  private final Map<String, Duration> ttlByFeatureView;
+  // Null if entries of FeatureViews without a refresh time of their own are not refreshed.
+  private final Duration defaultRefreshAfter;
+  private final Map<String, Duration> refreshAfterByFeatureView;
+  private final Ticker ticker;
+
+  private FeatureValueCache(Builder builder) {
+    this.defaultTtl = builder.defaultTtl;
+    this.ttlByFeatureView = new HashMap<>(builder.ttlByFeatureView);
+    this.defaultRefreshAfter = builder.defaultRefreshAfter;
+    this.refreshAfterByFeatureView = new HashMap<>(builder.refreshAfterByFeatureView);
+    this.ticker = builder.ticker;
+
+    Duration maxTtl = defaultTtl;
+    for (Duration ttl : ttlByFeatureView.values()) {
+      if (ttl.compareTo(maxTtl) > 0) {
+        maxTtl = ttl;
+      }
+    }
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumWeight(builder.maximumWeightBytes)
+            .weigher((Weigher<EntityKey, Entry>) (key, entry) -> entry.weight)
+            // Entries are checked against the TTL of their FeatureView on read. This only lets the
+            // cache drop expired entries which are not fetched again. They are kept for one more
+            // TTL, so that the response read after an expired hit replaces the entry in place.
+            .expireAfterWrite(2 * maxTtl.toNanos(), TimeUnit.NANOSECONDS)
+            .ticker(ticker)
+            .recordStats()
+            .build();
+    if (builder.admissionFilterSize > 0) {
+      this.admissionFilter =
+          CacheBuilder.newBuilder().maximumSize(builder.admissionFilterSize).build();
+    } else {
+      this.admissionFilter = null;
+    }
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /** Returns the cached response of the entity, or null if it is not cached or has expired. */
+  FetchFeatureValuesResponse get(String featureView, String dataKey) {
+    EntityKey key = new EntityKey(featureView, dataKey);
+    Entry entry = cache.getIfPresent(key);
+    if (entry == null) {
+      return null;
+    }
+    // An expired entry is kept until the new response replaces it, so that a hot key is not sent
+    // through the admission filter again.
+    if (ticker.read() - entry.writeNanos >= ttlOf(featureView).toNanos()) {
+      return null;
+    }
+    return entry.response;
+  }
+
+  /**
+   * Returns whether the caller should refresh the cached entry of the entity, which is the case
+   * once per entry when it is past the refresh time of its FeatureView. The caller must then put
+   * the new response, or call {@link #releaseRefresh} if the refresh fails.
+   */
+  boolean claimRefresh(String featureView, String dataKey) {
+    Duration refreshAfter = refreshAfterOf(featureView);
+    if (refreshAfter == null) {
+      return false;
+    }
+    Entry entry = cache.asMap().get(new EntityKey(featureView, dataKey));
+    return entry != null
+        && ticker.read() - entry.writeNanos >= refreshAfter.toNanos()
+        && entry.refreshing.compareAndSet(false, true);
+  }
+
+  /** Lets the entity be claimed for refresh again, after a failed refresh. */
+  void releaseRefresh(String featureView, String dataKey) {
+    Entry entry = cache.asMap().get(new EntityKey(featureView, dataKey));
+    if (entry != null) {
+      entry.refreshing.set(false);
+    }
+  }
+
+  /** Removes the cached response of the entity. */
+  void invalidate(String featureView, String dataKey) {
+    cache.invalidate(new EntityKey(featureView, dataKey));
+  }
+
+  /**
+   * Caches the response of the entity if the admission filter lets it in. A response which replaces
+   * a cached one, even an expired one, is always admitted.
+   *
+   * @param cellTimestampMicros The Bigtable timestamp of the cell the response was converted from.
+   */
+  void put(
+      String featureView,
+      String dataKey,
+      FetchFeatureValuesResponse response,
+      long cellTimestampMicros) {
+    EntityKey key = new EntityKey(featureView, dataKey);
+    if (admissionFilter != null && !cache.asMap().containsKey(key)) {
+      if (admissionFilter.getIfPresent(key) == null) {
+        admissionFilter.put(key, Boolean.TRUE);
+        return;
+      }
+      admissionFilter.invalidate(key);
+    }
+    int weight = ENTRY_OVERHEAD_BYTES + 2 * (featureView.length() + dataKey.length())
+        + response.getSerializedSize();
+    cache.put(key, new Entry(response, ticker.read(), weight, cellTimestampMicros));
+  }
+
+  /**
+   * Returns the Bigtable timestamp of the cell of the cached response of the entity, or -1 if it
+   * is not cached.
+   */
+  long cellTimestampMicros(String featureView, String dataKey) {
+    Entry entry = cache.asMap().get(new EntityKey(featureView, dataKey));
+    return entry != null ? entry.cellTimestampMicros : -1;
+  }
+
+  /**
+   * Restarts the refresh time and TTL of the cached response of the entity, once Bigtable has no
+   * newer cell for it.
+   */
+  void revalidated(String featureView, String dataKey) {
+    EntityKey key = new EntityKey(featureView, dataKey);
+    Entry entry = cache.asMap().get(key);
+    if (entry != null) {
+      cache.put(
+          key, new Entry(entry.response, ticker.read(), entry.weight, entry.cellTimestampMicros));
+    }
+  }
+
+  /** Removes all the cached feature values. */
+  public void invalidateAll() {
+    cache.invalidateAll();
+    if (admissionFilter != null) {
+      admissionFilter.invalidateAll();
+    }
+  }
+
+  /** Returns the hit and miss statistics of the cache. */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  @VisibleForTesting
+  long size() {
+    return cache.size();
+  }
+
+  private Duration ttlOf(String featureView) {
+    Duration ttl = ttlByFeatureView.get(featureView);
+    return ttl != null ? ttl : defaultTtl;
+  }
+
+  private Duration refreshAfterOf(String featureView) {
+    Duration refreshAfter = refreshAfterByFeatureView.get(featureView);
+    return refreshAfter != null ? refreshAfter : defaultRefreshAfter;
+  }
+
+  public static class Builder {
+    private long maximumWeightBytes = 256L * 1024 * 1024;
+    private Duration defaultTtl = Duration.ofMinutes(1);
+    private final Map<String, Duration> ttlByFeatureView = new HashMap<>();
+    private Duration defaultRefreshAfter;
+    private final Map<String, Duration> refreshAfterByFeatureView = new HashMap<>();
+    private long admissionFilterSize = 100_000;
+    private Ticker ticker = Ticker.systemTicker();
+
+    // Upper bound of the approximate size of all the cached responses. Defaults to 256 MiB.
+    public Builder setMaximumWeightBytes(long maximumWeightBytes) {
+      this.maximumWeightBytes = maximumWeightBytes;
+      return this;
+    }
+
+    // TTL of the FeatureViews without a TTL of their own. Defaults to 1 minute.
+    public Builder setDefaultTtl(Duration defaultTtl) {
+      this.defaultTtl = defaultTtl;
+      return this;
+    }
+
+    // TTL of the cached values of one FeatureView, identified by its full resource name, as in
+    // projects/{project}/locations/{location}/featureOnlineStores/{store}/featureViews/{view}.
+    public Builder setTtl(String featureView, Duration ttl) {
+      this.ttlByFeatureView.put(featureView, ttl);
+      return this;
+    }
+
+    // Age after which the entries of the FeatureViews without a refresh time of their own are
+    // refreshed in the background. It should be shorter than the TTL. By default entries are not
+    // refreshed, and fetches wait for Bigtable once they expire.
+    public Builder setDefaultRefreshAfter(Duration defaultRefreshAfter) {
+      this.defaultRefreshAfter = defaultRefreshAfter;
+      return this;
+    }
+
+    // Refresh time of the cached values of one FeatureView, identified by its full resource name.
+    public Builder setRefreshAfter(String featureView, Duration refreshAfter) {
+      this.refreshAfterByFeatureView.put(featureView, refreshAfter);
+      return this;
+    }
+
+    // Number of recently missed keys remembered by the admission filter. 0 admits every key on its
+    // first miss.
+    public Builder setAdmissionFilterSize(long admissionFilterSize) {
+      this.admissionFilterSize = admissionFilterSize;
+      return this;
+    }
+
+    @VisibleForTesting
+    Builder setTicker(Ticker ticker) {
+      this.ticker = ticker;
+      return this;
+    }
+
+    public FeatureValueCache build() {
+      return new FeatureValueCache(this);
+    }
+  }
+
+  private static final class EntityKey {
+    private final String featureView;
+    private final String dataKey;
+
+    EntityKey(String featureView, String dataKey) {
+      this.featureView = featureView;
+      this.dataKey = dataKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof EntityKey)) {
+        return false;
+      }
+      EntityKey other = (EntityKey) o;
+      return featureView.equals(other.featureView) && dataKey.equals(other.dataKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(featureView, dataKey);
+    }
+  }
+
+  private static final class Entry {
+    final FetchFeatureValuesResponse response;
+    final long writeNanos;
+    final int weight;
+    final long cellTimestampMicros;
+    // Set while a caller refreshes the entry.
+    final AtomicBoolean refreshing = new AtomicBoolean();
+
+    Entry(
+        FetchFeatureValuesResponse response,
+        long writeNanos,
+        int weight,
+        long cellTimestampMicros) {
+      this.response = response;
+      this.writeNanos = writeNanos;
+      this.weight = weight;
+      this.cellTimestampMicros = cellTimestampMicros;
+    }
+  }
+}
@@ -21,18 +21,30 @@ import com.google.api.gax.rpc.InvalidArgumentException;
 import com.google.api.gax.rpc.NotFoundException;
 import com.google.api.gax.rpc.PermissionDeniedException;
 import com.google.cloud.aiplatform.v1.FeatureOnlineStoreAdminServiceClient;
+import com.google.cloud.aiplatform.v1.FeatureOnlineStoreName;
 import com.google.cloud.aiplatform.v1.FeatureView;
 import com.google.cloud.aiplatform.v1.FeatureViewName;
 import com.google.cloud.aiplatform.v1.GetFeatureViewRequest;
 import com.google.cloud.aiplatform.fs.FeatureViewInternal;
 import com.google.protobuf.ExtensionRegistryLite;
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.common.base.Ticker;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.grpc.Status;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -44,48 +56,107 @@ public final class FeatureViewCache {
   // Singleton cache, shared across all threads in Java.
   private static volatile FeatureViewCache FEATURE_VIEW_CACHE;
 
+  // Specs are reloaded in the background once they are older than this. Fetches read the reloaded
+  // specs, and the BigtableClientManager reconnects when their instance or app profile changed.
+  static final Duration DEFAULT_REFRESH_AFTER_WRITE = Duration.ofMinutes(5);
+
+  // Most specs kept at once. A spec only holds a few fields, so this only bounds processes which
+  // read a very large number of FeatureViews. MetadataWarmUp loads at most this many FeatureViews,
+  // as the later loads would evict the earlier ones.
+  static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
   private final LoadingCache<String, FeatureViewSpec> cache;
 
+  private final int maximumSize;
+
   private final FeatureOnlineStoreAdminServiceClientFactory clientFactory;
 
 
   private FeatureViewCache() {
-    this(new DefaultFeatureOnlineStoreAdminServiceClientFactory());
+    this(
+        new PooledFeatureOnlineStoreAdminServiceClientFactory(
+            new DefaultFeatureOnlineStoreAdminServiceClientFactory()));
   }
 
     // Default constructor to uses the real admin service client.
     private FeatureViewCache(CredentialsProvider credentialsProvider) {
-        this(new DefaultFeatureOnlineStoreAdminServiceClientFactory(credentialsProvider));
+        this(
+            new PooledFeatureOnlineStoreAdminServiceClientFactory(
+                new DefaultFeatureOnlineStoreAdminServiceClientFactory(credentialsProvider)));
     }
 
   FeatureViewCache(FeatureOnlineStoreAdminServiceClientFactory clientFactory) {
+    this(clientFactory, DEFAULT_MAXIMUM_SIZE);
+  }
+
+  FeatureViewCache(FeatureOnlineStoreAdminServiceClientFactory clientFactory, int maximumSize) {
+    this(
+        clientFactory,
+        maximumSize,
+        DEFAULT_REFRESH_AFTER_WRITE,
+        newRefreshExecutor(),
+        Ticker.systemTicker());
+  }
+
+  FeatureViewCache(
+      FeatureOnlineStoreAdminServiceClientFactory clientFactory,
+      Duration refreshAfterWrite,
+      Executor refreshExecutor,
+      Ticker ticker) {
+    this(clientFactory, DEFAULT_MAXIMUM_SIZE, refreshAfterWrite, refreshExecutor, ticker);
+  }
+
+  // Specs older than refreshAfterWrite are reloaded on refreshExecutor, while the old spec is still
+  // returned. If the reload fails, the old spec is kept until the next refresh.
+  FeatureViewCache(
+      FeatureOnlineStoreAdminServiceClientFactory clientFactory,
+      int maximumSize,
+      Duration refreshAfterWrite,
+      Executor refreshExecutor,
+      Ticker ticker) {
     this.clientFactory = clientFactory;
-    cache = CacheBuilder.newBuilder()
-        .maximumSize(100) // Limit cache size
-        .build(new CacheLoader<String, FeatureViewSpec>() {
-
-          @Override
-          public FeatureViewSpec load(String fvName) throws Exception {
-            FeatureViewName name = FeatureViewName.parse(fvName);
-            FeatureOnlineStoreAdminServiceClient adminClient =
-                clientFactory.createClient(name.getLocation());
-            GetFeatureViewRequest fvRequest =
-                GetFeatureViewRequest.newBuilder().setName(fvName).build();
-            FeatureView fv = adminClient.getFeatureView(fvRequest);
-            adminClient.close();
-            if (fv.hasBigtableMetadata()) {
-                return new FeatureViewSpec(fv);
-            }
-            // Failover check in case of field number mismatch.
-            FeatureViewInternal  internalFv = FeatureViewInternal.parseFrom(fv.toByteArray(), ExtensionRegistryLite.newInstance());
-            if (!internalFv.hasBigtableMetadata()) {
-              throw new InvalidArgumentException(
-                  new Throwable("Direct access to Bigtable is not enabled"),
-                  /* statusCode= */ GrpcStatusCode.of(Status.Code.INVALID_ARGUMENT),
-                  /* retryable= */false);
-            }
+    this.maximumSize = maximumSize;
+    CacheLoader<String, FeatureViewSpec> loader = new CacheLoader<String, FeatureViewSpec>() {
+      @Override
+      public FeatureViewSpec load(String fvName) throws Exception {
+        FeatureViewName name = FeatureViewName.parse(fvName);
+        FeatureOnlineStoreAdminServiceClient adminClient =
+            clientFactory.createClient(name.getLocation());
+        GetFeatureViewRequest fvRequest =
+            GetFeatureViewRequest.newBuilder().setName(fvName).build();
+        FeatureView fv;
+        try {
+          fv = adminClient.getFeatureView(fvRequest);
+        } finally {
+          clientFactory.releaseClient(name.getLocation(), adminClient);
+        }
+        if (fv.hasBigtableMetadata()) {
             return new FeatureViewSpec(fv);
-          }});
+        }
+        // Failover check in case of field number mismatch.
+        FeatureViewInternal  internalFv = FeatureViewInternal.parseFrom(fv.toByteArray(), ExtensionRegistryLite.newInstance());
+        if (!internalFv.hasBigtableMetadata()) {
+          throw new InvalidArgumentException(
+              new Throwable("Direct access to Bigtable is not enabled"),
+              /* statusCode= */ GrpcStatusCode.of(Status.Code.INVALID_ARGUMENT),
+              /* retryable= */false);
+        }
+        return new FeatureViewSpec(fv);
+      }
+    };
+    cache = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .refreshAfterWrite(refreshAfterWrite.toNanos(), TimeUnit.NANOSECONDS)
+        .ticker(ticker)
+        .build(CacheLoader.asyncReloading(loader, refreshExecutor));
+  }
+
+  private static Executor newRefreshExecutor() {
+    return Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("FeatureViewCache-refresh-%d")
+            .build());
   }
 
   public FeatureViewSpec getFeatureViewSpec(String key) {
@@ -108,6 +179,22 @@ public final class FeatureViewCache {
     }
   }
 
+  // Lists the resource names of all the FeatureViews of the online store.
+  List<String> listFeatureViewNames(String fosName) throws IOException {
+    FeatureOnlineStoreName name = FeatureOnlineStoreName.parse(fosName);
+    FeatureOnlineStoreAdminServiceClient adminClient =
+        clientFactory.createClient(name.getLocation());
+    try {
+      List<String> names = new ArrayList<>();
+      for (FeatureView fv : adminClient.listFeatureViews(fosName).iterateAll()) {
+        names.add(fv.getName());
+      }
+      return names;
+    } finally {
+      clientFactory.releaseClient(name.getLocation(), adminClient);
+    }
+  }
+
     public static FeatureViewCache getInstance(Optional<CredentialsProvider> credentialsProvider) {
         if(FEATURE_VIEW_CACHE == null){
             synchronized (CloudBigtableCache.class) {
@@ -125,6 +212,22 @@ public final class FeatureViewCache {
   public void clear() {
     cache.invalidateAll();
   }
+
+  int maximumSize() {
+    return maximumSize;
+  }
+
+  // Returns a copy of the cached specs, keyed by FeatureView resource name.
+  Map<String, FeatureViewSpec> snapshot() {
+    return new HashMap<>(cache.asMap());
+  }
+
+  // Caches a spec read from a snapshot, and reloads it in the background. Until the reload
+  // succeeds, the snapshot spec is served.
+  void bootstrap(String fvName, FeatureViewSpec spec) {
+    cache.put(fvName, spec);
+    cache.refresh(fvName);
+  }
 }
 
 class FeatureViewSpec {
@@ -134,6 +237,13 @@ class FeatureViewSpec {
 
   Boolean timestampsEnabled;
 
+  FeatureViewSpec(
+      Boolean continuousSyncEnabled, String readAppProfileId, Boolean timestampsEnabled) {
+    this.continuousSyncEnabled = continuousSyncEnabled;
+    this.readAppProfileId = readAppProfileId;
+    this.timestampsEnabled = timestampsEnabled;
+  }
+
   FeatureViewSpec(FeatureView fv) {
       this.timestampsEnabled = false;
       this.continuousSyncEnabled = fv.getSyncConfig().getContinuous();
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.api.gax.grpc.GrpcStatusCode;
+import com.google.api.gax.rpc.InternalException;
+import com.google.api.gax.rpc.UnimplementedException;
+import com.google.cloud.bigtable.data.v2.models.RowAdapter;
+import com.google.protobuf.ByteString;
+import io.grpc.Status.Code;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Builds a {@link FeatureViewCell} directly from the cells streamed by Bigtable, instead of a
+ * {@link com.google.cloud.bigtable.data.v2.models.Row}. Out of the batch sync ("default") and
+ * direct write ("dw") cells of the FeatureView, only the value of the newer one is kept and parsed,
+ * as {@link Converter#selectCell} does for rows, with the feature projection of the request if it
+ * has one. The row key is set as the string key of the cell.
+ */
+final class FeatureViewCellAdapter implements RowAdapter<FeatureViewCell> {
+
+  private static final ByteString DEFAULT_QUALIFIER = ByteString.copyFromUtf8("default");
+  private static final ByteString DIRECT_WRITE_QUALIFIER = ByteString.copyFromUtf8("dw");
+
+  private final String featureViewId;
+  // Parses the selected cell with the feature projection of the request, if it has one.
+  private final InternalFetchRequest request;
+
+  private FeatureViewCellAdapter(InternalFetchRequest request) {
+    this.featureViewId = request.featureViewId;
+    this.request = request;
+  }
+
+  // Returns the adapter for the FeatureView of the request.
+  static FeatureViewCellAdapter forRequest(InternalFetchRequest request) {
+    if (request.featureViewSpec.continuousSyncEnabled) {
+      throw new UnimplementedException(
+          new Throwable("Fetching features written by continuous sync is not supported"),
+          /* statusCode= */ GrpcStatusCode.of(Code.UNIMPLEMENTED),
+          /* retryable= */ false);
+    }
+    return new FeatureViewCellAdapter(request);
+  }
+
+  @Override
+  public RowBuilder<FeatureViewCell> createRowBuilder() {
+    return new FeatureViewCellBuilder();
+  }
+
+  // Scan marker rows only carry a key, and have no internal storage.
+  @Override
+  public boolean isScanMarkerRow(FeatureViewCell cell) {
+    return !cell.hasInternalStorage();
+  }
+
+  @Override
+  public ByteString getKey(FeatureViewCell cell) {
+    return ByteString.copyFromUtf8(cell.getStringKey());
+  }
+
+  private final class FeatureViewCellBuilder implements RowBuilder<FeatureViewCell> {
+    private ByteString key;
+    private boolean hasDefaultCell;
+    private boolean hasDirectWriteCell;
+    // Set once a cell of another family or column, or a duplicate column, is streamed.
+    private boolean unexpected;
+    // The newest cell so far. Its value is null until a cell is selected.
+    private ByteString selectedValue;
+    private long selectedTimestamp;
+    // Whether the values of the current cell are kept, because it is newer than the selected one.
+    private boolean keepCurrent;
+    private ByteString currentValue;
+    private long currentTimestamp;
+
+    @Override
+    public void startRow(ByteString key) {
+      this.key = key;
+    }
+
+    @Override
+    public void startCell(
+        String family, ByteString qualifier, long timestamp, List<String> labels, long size) {
+      keepCurrent = false;
+      if (!family.equals(featureViewId)) {
+        unexpected = true;
+        return;
+      }
+      boolean isDefault = qualifier.equals(DEFAULT_QUALIFIER);
+      if (isDefault) {
+        unexpected |= hasDefaultCell;
+        hasDefaultCell = true;
+      } else if (qualifier.equals(DIRECT_WRITE_QUALIFIER)) {
+        unexpected |= hasDirectWriteCell;
+        hasDirectWriteCell = true;
+      } else {
+        unexpected = true;
+        return;
+      }
+      // On equal timestamps, the batch sync cell wins.
+      keepCurrent =
+          selectedValue == null
+              || timestamp > selectedTimestamp
+              || (timestamp == selectedTimestamp && isDefault);
+      currentValue = ByteString.EMPTY;
+      currentTimestamp = timestamp;
+    }
+
+    @Override
+    public void cellValue(ByteString value) {
+      // Values larger than a chunk are streamed in several parts.
+      if (keepCurrent) {
+        currentValue = currentValue.concat(value);
+      }
+    }
+
+    @Override
+    public void finishCell() {
+      if (keepCurrent) {
+        selectedValue = currentValue;
+        selectedTimestamp = currentTimestamp;
+      }
+      keepCurrent = false;
+      currentValue = null;
+    }
+
+    @Override
+    public FeatureViewCell finishRow() {
+      try {
+        if (unexpected || selectedValue == null) {
+          throw new InternalException(
+              new Throwable(
+                  String.format(
+                      "Unexpected data is returned from bigtable for key '%s'.",
+                      key.toStringUtf8())),
+              /* statusCode= */ GrpcStatusCode.of(Code.INTERNAL),
+              /* retryable= */ false);
+        }
+        return FeatureViewCell.newBuilder()
+            .setInternalStorage(Converter.parseInternalStorage(selectedValue, request))
+            .setTimestampMs(selectedTimestamp / 1000)
+            .setStringKey(key.toStringUtf8())
+            .build();
+      } catch (IOException e) {
+        throw new InternalException(
+            new Throwable(
+                String.format("Failed to parse the cell of key '%s'", key.toStringUtf8()), e),
+            /* statusCode= */ GrpcStatusCode.of(Code.INTERNAL),
+            /* retryable= */ false);
+      } finally {
+        reset();
+      }
+    }
+
+    @Override
+    public void reset() {
+      key = null;
+      hasDefaultCell = false;
+      hasDirectWriteCell = false;
+      unexpected = false;
+      selectedValue = null;
+      selectedTimestamp = 0;
+      keepCurrent = false;
+      currentValue = null;
+      currentTimestamp = 0;
+    }
+
+    @Override
+    public FeatureViewCell createScanMarkerRow(ByteString key) {
+      return FeatureViewCell.newBuilder().setStringKey(key.toStringUtf8()).build();
+    }
+  }
+}
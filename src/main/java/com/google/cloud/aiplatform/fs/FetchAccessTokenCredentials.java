@@ -0,0 +1,54 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import java.io.IOException;
+
+/**
+ * Credentials of the Bigtable connections, backed by GenerateFetchAccessToken. A new token is
+ * generated on {@link #refresh()}, or when the current one is about to expire, and replaces the
+ * current one atomically. The gRPC channels which use the credentials stay open, and only the
+ * metadata of the next calls changes.
+ */
+final class FetchAccessTokenCredentials extends GoogleCredentials {
+
+  private static final long serialVersionUID = 1L;
+
+  // Generates a fetch access token for the FeatureView.
+  interface TokenGenerator {
+    AccessToken generate() throws Exception;
+  }
+
+  private final transient TokenGenerator tokenGenerator;
+
+  FetchAccessTokenCredentials(AccessToken initialToken, TokenGenerator tokenGenerator) {
+    super(initialToken);
+    this.tokenGenerator = tokenGenerator;
+  }
+
+  @Override
+  public AccessToken refreshAccessToken() throws IOException {
+    try {
+      return tokenGenerator.generate();
+    } catch (IOException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException("Generating fetch access token failed", e);
+    }
+  }
+}
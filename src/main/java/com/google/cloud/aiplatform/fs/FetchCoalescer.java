@@ -0,0 +1,189 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
+import com.google.cloud.bigtable.data.v2.models.Row;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Gathers concurrent single-key fetches for a FeatureView and sends them to Bigtable as one batch
+ * read. A batch is sent as soon as it holds {@code maxBatchSize} keys, or once {@code window} has
+ * passed since its first key was added, whichever comes first.
+ */
+class FetchCoalescer {
+
+  private static final Logger logger = Logger.getLogger(FetchCoalescer.class.getName());
+
+  private final BigtableClientManager bigtableClientManager;
+  private final Duration window;
+  private final int maxBatchSize;
+  // A daemon thread, so that a client which is not closed does not keep the JVM alive.
+  private final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("FetchCoalescer-timer-%d")
+              .build());
+
+  // Batches that are still collecting keys, by featureViewId. Guarded by this.
+  private final Map<String, PendingBatch> pendingBatches = new HashMap<>();
+
+  FetchCoalescer(BigtableClientManager bigtableClientManager, Duration window, int maxBatchSize) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("maxBatchSize must be at least 1.");
+    }
+    this.bigtableClientManager = bigtableClientManager;
+    this.window = window;
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  /**
+   * Adds the single-key request to the pending batch of its FeatureView. The returned future
+   * resolves to {@code null} when the row is not found in Bigtable.
+   */
+  ApiFuture<Row> fetch(InternalFetchRequest request) {
+    PendingBatch fullBatch = null;
+    SettableApiFuture<Row> result;
+    synchronized (this) {
+      PendingBatch batch = pendingBatches.get(request.featureViewId);
+      if (batch == null) {
+        PendingBatch newBatch = new PendingBatch(request);
+        newBatch.timer =
+            scheduler.schedule(
+                () -> flush(request.featureViewId, newBatch),
+                window.toNanos(),
+                TimeUnit.NANOSECONDS);
+        pendingBatches.put(request.featureViewId, newBatch);
+        batch = newBatch;
+      }
+      result = batch.add(request.dataKey);
+      if (batch.size() >= maxBatchSize) {
+        pendingBatches.remove(request.featureViewId);
+        batch.timer.cancel(false);
+        fullBatch = batch;
+      }
+    }
+    if (fullBatch != null) {
+      send(fullBatch);
+    }
+    return result;
+  }
+
+  // Sends the batch when its window is over, unless it was already sent for being full.
+  private void flush(String featureViewId, PendingBatch batch) {
+    synchronized (this) {
+      if (pendingBatches.get(featureViewId) != batch) {
+        return;
+      }
+      pendingBatches.remove(featureViewId);
+    }
+    send(batch);
+  }
+
+  private void send(PendingBatch batch) {
+    InternalFetchRequest batchRequest =
+        batch.template.withDataKeys(new ArrayList<>(batch.waiters.keySet()));
+    logger.log(Level.FINE, "Sending coalesced batch of {0} keys", batch.size());
+
+    ApiFuture<List<Row>> rowsFuture;
+    try {
+      rowsFuture = bigtableClientManager.getClient().batchFetchDataAsync(batchRequest);
+    } catch (RuntimeException e) {
+      batch.fail(e);
+      return;
+    }
+    ApiFutures.addCallback(
+        rowsFuture,
+        new ApiFutureCallback<List<Row>>() {
+          @Override
+          public void onSuccess(List<Row> rows) {
+            for (Row row : rows) {
+              SettableApiFuture<Row> waiter = batch.waiters.get(row.getKey().toStringUtf8());
+              if (waiter != null) {
+                waiter.set(row);
+              }
+            }
+            // Keys which are not returned by Bigtable are not found.
+            for (SettableApiFuture<Row> waiter : batch.waiters.values()) {
+              waiter.set(null);
+            }
+          }
+
+          @Override
+          public void onFailure(Throwable t) {
+            batch.fail(t);
+          }
+        },
+        MoreExecutors.directExecutor());
+  }
+
+  /** Sends all the pending batches right away, and stops the window timer. */
+  void close() {
+    List<PendingBatch> remaining;
+    synchronized (this) {
+      remaining = new ArrayList<>(pendingBatches.values());
+      pendingBatches.clear();
+    }
+    for (PendingBatch batch : remaining) {
+      batch.timer.cancel(false);
+      send(batch);
+    }
+    scheduler.shutdown();
+  }
+
+  private static class PendingBatch {
+    // The first request of the batch. The batch read reuses its FeatureView and specs.
+    final InternalFetchRequest template;
+    // One future per unique key, so that repeated keys in a batch share one result.
+    final Map<String, SettableApiFuture<Row>> waiters = new LinkedHashMap<>();
+    ScheduledFuture<?> timer;
+
+    PendingBatch(InternalFetchRequest template) {
+      this.template = template;
+    }
+
+    SettableApiFuture<Row> add(String dataKey) {
+      return waiters.computeIfAbsent(dataKey, key -> SettableApiFuture.create());
+    }
+
+    int size() {
+      return waiters.size();
+    }
+
+    void fail(Throwable t) {
+      for (SettableApiFuture<Row> waiter : waiters.values()) {
+        waiter.setException(t);
+      }
+    }
+  }
+}
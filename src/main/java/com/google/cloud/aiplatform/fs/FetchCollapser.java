@@ -0,0 +1,116 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collapses concurrent fetches of the same entity into one in-flight read. The first caller for a
+ * (featureViewId, dataKey, feature projection) runs the fetch, and callers which arrive while it is
+ * in flight get the same response. Nothing is kept once the fetch completes, so results are never
+ * stale.
+ */
+class FetchCollapser {
+
+  private final ConcurrentHashMap<EntityKey, SettableApiFuture<FetchFeatureValuesResponse>>
+      inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the in-flight fetch of the request's entity, or starts a new one with {@code fetcher}.
+   * The fetcher may block and return a completed future.
+   */
+  ApiFuture<FetchFeatureValuesResponse> fetch(
+      InternalFetchRequest request, Callable<ApiFuture<FetchFeatureValuesResponse>> fetcher) {
+    EntityKey key =
+        new EntityKey(request.featureViewId, request.dataKey, request.featureProjection);
+    SettableApiFuture<FetchFeatureValuesResponse> result = SettableApiFuture.create();
+    SettableApiFuture<FetchFeatureValuesResponse> existing = inFlight.putIfAbsent(key, result);
+    if (existing != null) {
+      return existing;
+    }
+
+    ApiFuture<FetchFeatureValuesResponse> fetch;
+    try {
+      fetch = fetcher.call();
+    } catch (Exception e) {
+      fetch = ApiFutures.immediateFailedFuture(e);
+    }
+    ApiFutures.addCallback(
+        fetch,
+        new ApiFutureCallback<FetchFeatureValuesResponse>() {
+          // Remove the entry before completing, so that callers which arrive afterwards start a
+          // new fetch instead of getting this result.
+          @Override
+          public void onSuccess(FetchFeatureValuesResponse response) {
+            inFlight.remove(key, result);
+            result.set(response);
+          }
+
+          @Override
+          public void onFailure(Throwable t) {
+            inFlight.remove(key, result);
+            result.setException(t);
+          }
+        },
+        MoreExecutors.directExecutor());
+    return result;
+  }
+
+  // Number of entities which are being fetched. Used in tests.
+  int inFlightCount() {
+    return inFlight.size();
+  }
+
+  private static final class EntityKey {
+    private final String featureViewId;
+    private final String dataKey;
+    // Fetches of different features of the entity are not collapsed. Null for all the features.
+    private final FeatureProjection featureProjection;
+
+    EntityKey(String featureViewId, String dataKey, FeatureProjection featureProjection) {
+      this.featureViewId = featureViewId;
+      this.dataKey = dataKey;
+      this.featureProjection = featureProjection;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof EntityKey)) {
+        return false;
+      }
+      EntityKey other = (EntityKey) o;
+      return featureViewId.equals(other.featureViewId)
+          && dataKey.equals(other.dataKey)
+          && Objects.equals(featureProjection, other.featureProjection);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(featureViewId, dataKey, featureProjection);
+    }
+  }
+}
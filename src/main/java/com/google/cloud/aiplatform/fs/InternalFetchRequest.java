@@ -20,9 +20,10 @@ import com.google.cloud.aiplatform.v1.FeatureViewDataKey;
 import com.google.cloud.aiplatform.v1.FeatureViewDataKey.CompositeKey;
 import com.google.cloud.aiplatform.v1.FeatureViewName;
 import com.google.cloud.aiplatform.v1.FetchFeatureValuesRequest;
+import com.google.cloud.bigtable.data.v2.models.Filters.Filter;
+import com.google.cloud.bigtable.data.v2.models.TableId;
 import com.google.common.collect.ImmutableList;
 import com.google.protobuf.Timestamp;
-import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -38,13 +39,17 @@ public class InternalFetchRequest {
   String location;
   String onlineStoreId;
   String featureViewId;
+  // Full resource name of the FeatureView, which identifies it across projects and online stores.
+  // The local caches are keyed on it, since they can be shared by clients of several FeatureViews.
+  String featureViewResourceName;
 
   // Enum field, either KEY_VALUE or PROTO_STRUCT.
   FeatureViewDataFormat format;
 
-  // Time at which the request is received. This is used to compute
-  // server-side latency for Cloud monitoring.
-  Timestamp arrivalTime;
+  // Time at which the request is received, in milliseconds since the epoch. This is used to
+  // compute server-side latency for Cloud monitoring. It is kept as a long so that fetches do not
+  // allocate a Timestamp, see arrivalTime().
+  long arrivalTimeMillis;
 
   // Entity id built from by single id or composite ids. Used for single fetch.
   // Will be null if dataKeys is used.
@@ -56,6 +61,14 @@ public class InternalFetchRequest {
   CloudBigtableSpec cloudBigtableSpec;
   FeatureViewSpec featureViewSpec;
 
+  // Bigtable table and filter built once by a PreparedFeatureView. Null for other requests, whose
+  // table and filter are built from the specs on every read.
+  TableId tableId;
+  Filter filter;
+
+  // The features to return. Null if all the features of the FeatureView are returned.
+  FeatureProjection featureProjection;
+
   /**
    * Constructor for a single FetchFeatureValuesRequest.
    */
@@ -66,13 +79,10 @@ public class InternalFetchRequest {
     this.location = featureViewName.getLocation();
     this.onlineStoreId = featureViewName.getFeatureOnlineStore();
     this.featureViewId = featureViewName.getFeatureView();
+    this.featureViewResourceName = request.getFeatureView();
 
     this.format = request.getDataFormat();
-    Instant now = Instant.now();
-    this.arrivalTime = Timestamp.newBuilder()
-        .setSeconds(now.getEpochSecond())
-        .setNanos(now.getNano())
-        .build();
+    this.arrivalTimeMillis = System.currentTimeMillis();
     this.dataKey = constructDataKey(request);
     this.dataKeys = ImmutableList.of(); // Empty for single fetch
 
@@ -103,9 +113,10 @@ public class InternalFetchRequest {
     this.location = featureViewName.getLocation();
     this.onlineStoreId = featureViewName.getFeatureOnlineStore();
     this.featureViewId = featureViewName.getFeatureView();
+    this.featureViewResourceName = firstRequest.getFeatureView();
     // Assuming all requests have the same data format.
     this.format = firstRequest.getDataFormat();
-    this.arrivalTime = now();
+    this.arrivalTimeMillis = System.currentTimeMillis();
     this.dataKey = null; // Null for batch fetch
     // Construct data keys for each request in the batch.
     this.dataKeys = requests.stream()
@@ -123,11 +134,11 @@ public class InternalFetchRequest {
     validateBatchRequests(requests, firstRequest);
   }
 
-  private static Timestamp now() {
-    Instant now = Instant.now();
+  // Time at which the request is received.
+  Timestamp arrivalTime() {
     return Timestamp.newBuilder()
-        .setSeconds(now.getEpochSecond())
-        .setNanos(now.getNano())
+        .setSeconds(Math.floorDiv(arrivalTimeMillis, 1000L))
+        .setNanos((int) Math.floorMod(arrivalTimeMillis, 1000L) * 1_000_000)
         .build();
   }
 
@@ -150,20 +161,30 @@ public class InternalFetchRequest {
     if (!request.hasDataKey()) {
       throw new IllegalArgumentException(String.format("No data key provided in request: %s", request));
     }
-    FeatureViewDataKey dataKey = request.getDataKey();
+    return constructDataKey(request.getDataKey(), "request", request);
+  }
+
+  // Builds the entity id of a data key passed without a request, as to a PreparedFeatureView.
+  static String constructDataKey(FeatureViewDataKey dataKey) {
+    return constructDataKey(dataKey, "data key", dataKey);
+  }
+
+  // The source and its name are only used in error messages.
+  private static String constructDataKey(
+      FeatureViewDataKey dataKey, String sourceName, Object source) {
     if (!dataKey.hasCompositeKey() && !dataKey.hasKey()) {
-      throw new IllegalArgumentException(String.format("No key or composite key provided in request: %s", request));
+      throw new IllegalArgumentException(String.format("No key or composite key provided in %s: %s", sourceName, source));
     }
     if (dataKey.hasKey()) {
       if (dataKey.getKey().isEmpty()) {
-        throw new IllegalArgumentException(String.format("Key is empty in request: %s", request));
+        throw new IllegalArgumentException(String.format("Key is empty in %s: %s", sourceName, source));
       }
       return dataKey.getKey();
     }
     // Build composite key ID.
     CompositeKey compositeKey = dataKey.getCompositeKey();
     if (compositeKey.getPartsList().isEmpty()) {
-      throw new IllegalArgumentException(String.format("Composite key must have at least one part: %s", request));
+      throw new IllegalArgumentException(String.format("Composite key must have at least one part: %s", source));
     }
     return String.join(":", dataKey.getCompositeKey().getPartsList());
   }
@@ -174,8 +195,12 @@ public class InternalFetchRequest {
     this.location = builder.location;
     this.onlineStoreId = builder.onlineStoreId;
     this.featureViewId = builder.featureViewId;
+    this.featureViewResourceName =
+        String.format(
+            "projects/%s/locations/%s/featureOnlineStores/%s/featureViews/%s",
+            projectId, location, onlineStoreId, featureViewId);
     this.format = builder.format;
-    this.arrivalTime = builder.arrivalTime;
+    this.arrivalTimeMillis = builder.arrivalTimeMillis;
 
     // Ensure only one of dataKey or dataKeys is set.
     boolean hasSingleKey = builder.dataKey != null;
@@ -191,6 +216,92 @@ public class InternalFetchRequest {
 
     this.cloudBigtableSpec = builder.cloudBigtableSpec;
     this.featureViewSpec = builder.featureViewSpec;
+    this.tableId = builder.tableId;
+    this.filter = builder.filter;
+    this.featureProjection = builder.featureProjection;
+  }
+
+  // Copies the request for other keys, without going through a Builder.
+  private InternalFetchRequest(
+      InternalFetchRequest request,
+      String dataKey,
+      ImmutableList<String> dataKeys,
+      long arrivalTimeMillis) {
+    this.projectNumber = request.projectNumber;
+    this.projectId = request.projectId;
+    this.location = request.location;
+    this.onlineStoreId = request.onlineStoreId;
+    this.featureViewId = request.featureViewId;
+    this.featureViewResourceName = request.featureViewResourceName;
+    this.format = request.format;
+    this.arrivalTimeMillis = arrivalTimeMillis;
+    this.dataKey = dataKey;
+    this.dataKeys = dataKeys;
+    this.cloudBigtableSpec = request.cloudBigtableSpec;
+    this.featureViewSpec = request.featureViewSpec;
+    this.tableId = request.tableId;
+    this.filter = request.filter;
+    this.featureProjection = request.featureProjection;
+  }
+
+  /**
+   * Returns a single request for {@code dataKey}, received now, which targets the same FeatureView
+   * with the same format and specs as this request.
+   */
+  InternalFetchRequest newRequest(String dataKey) {
+    return new InternalFetchRequest(this, dataKey, ImmutableList.of(), System.currentTimeMillis());
+  }
+
+  // Same as above, for a batch of keys.
+  InternalFetchRequest newRequest(List<String> dataKeys) {
+    return new InternalFetchRequest(
+        this, null, ImmutableList.copyOf(dataKeys), System.currentTimeMillis());
+  }
+
+  /**
+   * Returns a batch request for {@code dataKeys} which targets the same FeatureView, with the same
+   * format and specs as this request.
+   */
+  InternalFetchRequest withDataKeys(List<String> dataKeys) {
+    return new InternalFetchRequest(this, null, ImmutableList.copyOf(dataKeys), arrivalTimeMillis);
+  }
+
+  /** Returns a copy of this request which returns all the features of the FeatureView. */
+  InternalFetchRequest withoutFeatureProjection() {
+    if (featureProjection == null) {
+      return this;
+    }
+    InternalFetchRequest request =
+        new InternalFetchRequest(this, dataKey, dataKeys, arrivalTimeMillis);
+    request.featureProjection = null;
+    return request;
+  }
+
+  /**
+   * Returns a request without keys for the FeatureView, whose Bigtable table and filter are built
+   * once from the specs. Requests for keys are copied from it with {@link #newRequest(String)}.
+   */
+  static InternalFetchRequest newTemplate(
+      String featureViewResourceName,
+      FeatureViewDataFormat format,
+      CloudBigtableSpec cloudBigtableSpec,
+      FeatureViewSpec featureViewSpec,
+      FeatureProjection featureProjection) {
+    FeatureViewName featureViewName = FeatureViewName.parse(featureViewResourceName);
+    Builder builder =
+        builder()
+            .projectId(featureViewName.getProject())
+            .location(featureViewName.getLocation())
+            .onlineStoreId(featureViewName.getFeatureOnlineStore())
+            .featureViewId(featureViewName.getFeatureView())
+            .format(format)
+            .cloudBigtableSpec(cloudBigtableSpec)
+            .featureViewSpec(featureViewSpec)
+            .featureProjection(featureProjection);
+    return builder
+        .preparedRead(
+            TableId.of(cloudBigtableSpec.tableId), BigtableClient.buildFilter(builder.build()))
+        .build();
   }
 
   public static Builder builder(){
@@ -204,7 +315,7 @@ public class InternalFetchRequest {
     String onlineStoreId;
     String featureViewId;
     FeatureViewDataFormat format;
-    Timestamp arrivalTime;
+    long arrivalTimeMillis;
 
     // Supports setting either a single key or multiple keys.
     String dataKey;
@@ -212,6 +323,9 @@ public class InternalFetchRequest {
 
     CloudBigtableSpec cloudBigtableSpec;
     FeatureViewSpec featureViewSpec;
+    TableId tableId;
+    Filter filter;
+    FeatureProjection featureProjection;
 
     public Builder projectNumber(long projectNumber) {
       this.projectNumber = projectNumber;
@@ -244,7 +358,8 @@ public class InternalFetchRequest {
     }
 
     public Builder arrivalTime(Timestamp arrivalTime) {
-      this.arrivalTime = arrivalTime;
+      this.arrivalTimeMillis =
+          arrivalTime.getSeconds() * 1000L + arrivalTime.getNanos() / 1_000_000;
       return this;
     }
 
@@ -297,6 +412,19 @@ public class InternalFetchRequest {
       return this;
     }
 
+    // Sets the table and filter which Bigtable reads use instead of building them from the specs.
+    Builder preparedRead(TableId tableId, Filter filter) {
+      this.tableId = tableId;
+      this.filter = filter;
+      return this;
+    }
+
+    // Sets the features to return. Null returns all the features of the FeatureView.
+    Builder featureProjection(FeatureProjection featureProjection) {
+      this.featureProjection = featureProjection;
+      return this;
+    }
+
     public InternalFetchRequest build() {
       return new InternalFetchRequest(this);
     }
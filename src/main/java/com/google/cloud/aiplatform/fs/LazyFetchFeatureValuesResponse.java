@@ -0,0 +1,159 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.api.gax.grpc.GrpcStatusCode;
+import com.google.api.gax.rpc.InternalException;
+import com.google.cloud.aiplatform.v1.FeatureValue;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse.FeatureNameValuePairList;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse.FeatureNameValuePairList.FeatureNameValuePair;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.grpc.Status.Code;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A {@link FetchFeatureValuesResponse} in the KEY_VALUE format, which decodes the value of a
+ * feature only when it is accessed. Returned by {@link
+ * FeatureOnlineStoreDirectClient#fetchLazyFeatureValues}.
+ *
+ * <p>The response keeps the bytes of the Bigtable cell and the offsets of the features in it,
+ * built in one pass without decoding the features. Callers which read a few features of a wide
+ * FeatureView only pay for decoding those. {@link #toResponse} builds the standard response when it
+ * is needed. The features are in the same order as in the standard response.
+ *
+ * <p>The response is thread safe.
+ */
+public final class LazyFetchFeatureValuesResponse {
+
+  // The offsets of the features in the cell. Null if this wraps a response built elsewhere.
+  private final CellFeatureIndex index;
+  // The values decoded so far, by index. Null if this wraps a response built elsewhere.
+  private final AtomicReferenceArray<FeatureValue> values;
+  // The standard response, once built.
+  private volatile FetchFeatureValuesResponse response;
+
+  private LazyFetchFeatureValuesResponse(CellFeatureIndex index) {
+    this.index = index;
+    this.values = new AtomicReferenceArray<>(index.size());
+  }
+
+  private LazyFetchFeatureValuesResponse(FetchFeatureValuesResponse response) {
+    this.index = null;
+    this.values = null;
+    this.response = response;
+  }
+
+  // Wraps a response which is already built, such as one found in the local caches.
+  static LazyFetchFeatureValuesResponse of(FetchFeatureValuesResponse response) {
+    return new LazyFetchFeatureValuesResponse(response);
+  }
+
+  // Indexes the features of the serialized FeatureViewInternalStorage of a cell.
+  static LazyFetchFeatureValuesResponse fromCell(
+      ByteString cellValue, InternalFetchRequest request) throws IOException {
+    return new LazyFetchFeatureValuesResponse(CellFeatureIndex.build(cellValue, request));
+  }
+
+  /** Returns the number of features in the response. */
+  public int getFeatureCount() {
+    if (index == null) {
+      return response.getKeyValues().getFeaturesCount();
+    }
+    return index.size();
+  }
+
+  /** Returns the name of the feature at {@code index}. */
+  public String getFeatureName(int index) {
+    if (this.index == null) {
+      return response.getKeyValues().getFeatures(index).getName();
+    }
+    return this.index.name(index).toStringUtf8();
+  }
+
+  /** Returns the value of the feature at {@code index}, decoding it on the first access. */
+  public FeatureValue getFeatureValue(int index) {
+    if (this.index == null) {
+      return response.getKeyValues().getFeatures(index).getValue();
+    }
+    FeatureValue value = values.get(index);
+    if (value == null) {
+      // Concurrent first accesses may both decode the value, to equal results.
+      value = parseValue(index);
+      values.set(index, value);
+    }
+    return value;
+  }
+
+  /**
+   * Returns the value of the feature named {@code featureName}, decoding it on the first access,
+   * or null if the response has no such feature. Other features are not decoded.
+   */
+  public FeatureValue getFeatureValue(String featureName) {
+    int index = indexOf(featureName);
+    return index < 0 ? null : getFeatureValue(index);
+  }
+
+  /** Returns whether the response has a feature named {@code featureName}. */
+  public boolean containsFeature(String featureName) {
+    return indexOf(featureName) >= 0;
+  }
+
+  /** Builds the standard response, with all the features. The response is built once. */
+  public FetchFeatureValuesResponse toResponse() {
+    FetchFeatureValuesResponse built = response;
+    if (built == null) {
+      FeatureNameValuePairList.Builder keyValues = FeatureNameValuePairList.newBuilder();
+      for (int i = 0; i < index.size(); i++) {
+        keyValues.addFeatures(
+            FeatureNameValuePair.newBuilder()
+                .setNameBytes(index.name(i))
+                .setValue(getFeatureValue(i)));
+      }
+      built = FetchFeatureValuesResponse.newBuilder().setKeyValues(keyValues).build();
+      response = built;
+    }
+    return built;
+  }
+
+  private int indexOf(String featureName) {
+    if (index == null) {
+      for (int i = 0; i < response.getKeyValues().getFeaturesCount(); i++) {
+        if (response.getKeyValues().getFeatures(i).getName().equals(featureName)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    return index.indexOf(featureName.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private FeatureValue parseValue(int index) {
+    try {
+      return FeatureValue.parseFrom(this.index.value(index));
+    } catch (InvalidProtocolBufferException e) {
+      throw new InternalException(
+          new Throwable(
+              String.format("Failed to parse the value of feature '%s'", getFeatureName(index)),
+              e),
+          /* statusCode= */ GrpcStatusCode.of(Code.INTERNAL),
+          /* retryable= */ false);
+    }
+  }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.cloud.aiplatform.fs.OffHeapCellStore.StoredCell;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse;
+import com.google.cloud.bigtable.data.v2.models.Row;
+import com.google.cloud.bigtable.data.v2.models.RowCell;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The caches which are looked up before Bigtable, in order: the {@link FeatureValueCache} of
+ * converted responses, then the {@link OffHeapCellStore} of serialized cells. The {@link
+ * NegativeResultCache} answers for the keys which were recently not found. Any of them may be
+ * absent.
+ */
+class LocalCaches {
+
+  /** Reads the keys of a request again in the background, see {@link #completeRefresh}. */
+  interface Refresher {
+    void refresh(InternalFetchRequest request);
+  }
+
+  private final FeatureValueCache featureValueCache;
+  private final OffHeapCellStore offHeapCellStore;
+  private final NegativeResultCache negativeResultCache;
+  // Null if stale entries are not refreshed.
+  private final Refresher refresher;
+
+  LocalCaches(
+      FeatureValueCache featureValueCache,
+      OffHeapCellStore offHeapCellStore,
+      NegativeResultCache negativeResultCache,
+      Refresher refresher) {
+    this.featureValueCache = featureValueCache;
+    this.offHeapCellStore = offHeapCellStore;
+    this.negativeResultCache = negativeResultCache;
+    this.refresher = refresher;
+  }
+
+  // Returns null if no cache is set in the settings.
+  static LocalCaches fromSettings(Optional<DirectClientSettings> settings, Refresher refresher) {
+    FeatureValueCache featureValueCache =
+        settings.map(DirectClientSettings::getFeatureValueCache).orElse(null);
+    OffHeapCellStore offHeapCellStore =
+        settings.map(DirectClientSettings::getOffHeapCellStore).orElse(null);
+    NegativeResultCache negativeResultCache =
+        settings.map(DirectClientSettings::getNegativeResultCache).orElse(null);
+    if (featureValueCache == null && offHeapCellStore == null && negativeResultCache == null) {
+      return null;
+    }
+    return new LocalCaches(featureValueCache, offHeapCellStore, negativeResultCache, refresher);
+  }
+
+  /**
+   * Returns the cached response of the entity, or null if no cache has it. If the cached response
+   * is due for refresh, it is still returned, and the entity is refreshed in the background.
+   */
+  FetchFeatureValuesResponse get(InternalFetchRequest request, String dataKey) throws Exception {
+    List<String> staleKeys = new ArrayList<>(1);
+    FetchFeatureValuesResponse response = get(request, dataKey, staleKeys);
+    refresh(request, staleKeys);
+    return response;
+  }
+
+  // Adds the key to staleKeys if the caller should refresh it.
+  private FetchFeatureValuesResponse get(
+      InternalFetchRequest request, String dataKey, List<String> staleKeys) throws Exception {
+    String featureView = request.featureViewResourceName;
+    if (featureValueCache != null) {
+      FetchFeatureValuesResponse response = featureValueCache.get(featureView, dataKey);
+      if (response != null) {
+        if (refresher != null && featureValueCache.claimRefresh(featureView, dataKey)) {
+          staleKeys.add(dataKey);
+        }
+        return request.featureProjection != null
+            ? request.featureProjection.project(response)
+            : response;
+      }
+    }
+    if (offHeapCellStore != null) {
+      StoredCell cell = offHeapCellStore.get(featureView, dataKey);
+      if (cell != null) {
+        FetchFeatureValuesResponse response =
+            Converter.cellValueToResponse(cell.value, cell.timestampMicros, request);
+        // The value cache only keeps responses with all the features.
+        if (featureValueCache != null && request.featureProjection == null) {
+          featureValueCache.put(featureView, dataKey, response, cell.timestampMicros);
+        }
+        return response;
+      }
+    }
+    return null;
+  }
+
+  /** Returns whether the entity was recently not found in Bigtable. */
+  boolean isKnownMissing(InternalFetchRequest request, String dataKey) {
+    return negativeResultCache != null
+        && negativeResultCache.isKnownMissing(request.featureViewResourceName, dataKey);
+  }
+
+  /** Records that the entity was not found in Bigtable. */
+  void putMissing(InternalFetchRequest request, String dataKey) {
+    if (negativeResultCache != null) {
+      negativeResultCache.putMissing(request.featureViewResourceName, dataKey);
+    }
+  }
+
+  /**
+   * Caches the row read from Bigtable for the entity, and the response converted from it. The
+   * response is null if the row was not converted, in which case the value cache is not written.
+   */
+  void put(
+      InternalFetchRequest request, String dataKey, Row row, FetchFeatureValuesResponse response) {
+    String featureView = request.featureViewResourceName;
+    if (negativeResultCache != null) {
+      negativeResultCache.invalidate(featureView, dataKey);
+    }
+    RowCell cell = Converter.selectCell(row, request);
+    // The value cache only keeps responses with all the features.
+    if (featureValueCache != null && response != null && request.featureProjection == null) {
+      featureValueCache.put(featureView, dataKey, response, cell.getTimestamp());
+    }
+    if (offHeapCellStore != null) {
+      offHeapCellStore.put(featureView, dataKey, cell.getValue(), cell.getTimestamp());
+    }
+  }
+
+  private void refresh(InternalFetchRequest request, List<String> staleKeys) {
+    if (!staleKeys.isEmpty()) {
+      // The cached responses have all the features, so they are refreshed with all of them.
+      refresher.refresh(request.withDataKeys(staleKeys).withoutFeatureProjection());
+    }
+  }
+
+  /**
+   * Returns the oldest Bigtable timestamp of the cached cells of the keys of a refresh, which
+   * bounds the cells a revalidation read has to return.
+   */
+  long oldestCellTimestampMicros(InternalFetchRequest refreshRequest) {
+    String featureView = refreshRequest.featureViewResourceName;
+    long oldest = Long.MAX_VALUE;
+    for (String dataKey : refreshRequest.dataKeys) {
+      // Keys evicted since the refresh started have a timestamp of -1, so all their cells are read.
+      oldest = Math.min(oldest, featureValueCache.cellTimestampMicros(featureView, dataKey));
+    }
+    return oldest;
+  }
+
+  /**
+   * Compares the cell timestamps returned by a revalidation read with the cached ones. Keys without
+   * a newer cell keep their cached response, which is then served as fresh again. Keys whose row is
+   * not returned were deleted, and are read again like changed keys, so that {@link
+   * #completeRefresh} drops them from the caches.
+   *
+   * @param revalidatedRows The rows returned by {@link BigtableClient#revalidateAsync}.
+   * @return The request to read the keys which have a newer cell or were deleted, or null if there
+   *     are none.
+   */
+  InternalFetchRequest completeRevalidation(
+      InternalFetchRequest refreshRequest, List<Row> revalidatedRows) {
+    Map<String, Long> newestTimestamps = new HashMap<>();
+    for (Row row : revalidatedRows) {
+      long newest = -1;
+      for (RowCell cell : row.getCells()) {
+        newest = Math.max(newest, cell.getTimestamp());
+      }
+      newestTimestamps.put(row.getKey().toStringUtf8(), newest);
+    }
+    String featureView = refreshRequest.featureViewResourceName;
+    List<String> changedKeys = new ArrayList<>();
+    for (String dataKey : refreshRequest.dataKeys) {
+      Long newest = newestTimestamps.get(dataKey);
+      long cached = featureValueCache.cellTimestampMicros(featureView, dataKey);
+      if (cached < 0 || newest == null || newest > cached) {
+        changedKeys.add(dataKey);
+      } else {
+        featureValueCache.revalidated(featureView, dataKey);
+      }
+    }
+    return changedKeys.isEmpty() ? null : refreshRequest.withDataKeys(changedKeys);
+  }
+
+  /**
+   * Updates the caches with the rows read by a {@link Refresher}. Keys without a row are no longer
+   * served from the caches.
+   */
+  void completeRefresh(InternalFetchRequest refreshRequest, List<Row> rows) {
+    Map<String, Row> rowsByKey = new HashMap<>();
+    for (Row row : rows) {
+      rowsByKey.put(row.getKey().toStringUtf8(), row);
+    }
+    for (String dataKey : refreshRequest.dataKeys) {
+      Row row = rowsByKey.get(dataKey);
+      try {
+        if (row != null) {
+          put(refreshRequest, dataKey, row, Converter.rowToResponse(row, refreshRequest));
+        } else {
+          // The row was deleted. Both tiers drop it, or the next fetch would refill the value
+          // cache from the stale off-heap cell.
+          featureValueCache.invalidate(refreshRequest.featureViewResourceName, dataKey);
+          if (offHeapCellStore != null) {
+            offHeapCellStore.invalidate(refreshRequest.featureViewResourceName, dataKey);
+          }
+          putMissing(refreshRequest, dataKey);
+        }
+      } catch (Exception e) {
+        featureValueCache.releaseRefresh(refreshRequest.featureViewResourceName, dataKey);
+      }
+    }
+  }
+
+  /** Lets the keys of a failed refresh be refreshed by a later fetch. */
+  void failRefresh(InternalFetchRequest refreshRequest) {
+    for (String dataKey : refreshRequest.dataKeys) {
+      featureValueCache.releaseRefresh(refreshRequest.featureViewResourceName, dataKey);
+    }
+  }
+
+  /** Looks up all the keys of a batch request, see {@link BatchLookup}. */
+  BatchLookup lookup(InternalFetchRequest request) throws Exception {
+    return new BatchLookup(request);
+  }
+
+  /**
+   * Splits a batch request into the responses found in the caches and a request for only the
+   * missing keys. Once the missing rows are read from Bigtable, {@link #complete} converts and
+   * caches them, and merges all the responses in the order of the original keys.
+   */
+  final class BatchLookup {
+    private final InternalFetchRequest request;
+    private final FetchFeatureValuesResponse[] responses;
+    // Null if all the keys are found in the caches.
+    private final InternalFetchRequest missingRequest;
+
+    private BatchLookup(InternalFetchRequest request) throws Exception {
+      this.request = request;
+      this.responses = new FetchFeatureValuesResponse[request.dataKeys.size()];
+      Set<String> missingKeys = new LinkedHashSet<>();
+      List<String> staleKeys = new ArrayList<>();
+      for (int i = 0; i < responses.length; i++) {
+        String dataKey = request.dataKeys.get(i);
+        responses[i] =
+            isKnownMissing(request, dataKey)
+                ? Converter.notFoundResponse()
+                : get(request, dataKey, staleKeys);
+        if (responses[i] == null) {
+          missingKeys.add(dataKey);
+        }
+      }
+      refresh(request, staleKeys);
+      this.missingRequest =
+          missingKeys.isEmpty() ? null : request.withDataKeys(new ArrayList<>(missingKeys));
+    }
+
+    /** The request to read the missing keys from Bigtable, or null if there are none. */
+    InternalFetchRequest missingRequest() {
+      return missingRequest;
+    }
+
+    /** Merges the cached responses with the rows read for {@link #missingRequest()}. */
+    List<FetchFeatureValuesResponse> complete(List<Row> missingRows) throws Exception {
+      if (missingRequest == null) {
+        return Arrays.asList(responses);
+      }
+      List<FetchFeatureValuesResponse> fetched =
+          Converter.rowsToResponses(missingRows, missingRequest);
+      Map<String, Row> rowsByKey = new HashMap<>();
+      for (Row row : missingRows) {
+        rowsByKey.put(row.getKey().toStringUtf8(), row);
+      }
+      Map<String, FetchFeatureValuesResponse> fetchedByKey = new HashMap<>();
+      for (int i = 0; i < fetched.size(); i++) {
+        String dataKey = missingRequest.dataKeys.get(i);
+        fetchedByKey.put(dataKey, fetched.get(i));
+        Row row = rowsByKey.get(dataKey);
+        if (row != null) {
+          put(request, dataKey, row, fetched.get(i));
+        } else {
+          putMissing(request, dataKey);
+        }
+      }
+      for (int i = 0; i < responses.length; i++) {
+        if (responses[i] == null) {
+          responses[i] = fetchedByKey.get(request.dataKeys.get(i));
+        }
+      }
+      return Arrays.asList(responses);
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.cloud.aiplatform.fs.MetadataSnapshot.CloudBigtableSpecEntry;
+import com.google.cloud.aiplatform.fs.MetadataSnapshot.FeatureViewSpecEntry;
+import com.google.protobuf.Timestamp;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Exports the specs of {@link CloudBigtableCache} and {@link FeatureViewCache} to a local file, and
+ * bootstraps the caches from it, so that a process can create clients without the admin API.
+ */
+class MetadataSnapshots {
+  private static final Logger logger = Logger.getLogger(MetadataSnapshots.class.getName());
+
+  private final CloudBigtableCache cloudBigtableCache;
+  private final FeatureViewCache featureViewCache;
+
+  MetadataSnapshots(CloudBigtableCache cloudBigtableCache, FeatureViewCache featureViewCache) {
+    this.cloudBigtableCache = cloudBigtableCache;
+    this.featureViewCache = featureViewCache;
+  }
+
+  // Writes all the cached specs to the file. The file is replaced atomically, so a process which
+  // reads it concurrently sees either the old or the new snapshot.
+  void export(Path file) throws IOException {
+    Instant now = Instant.now();
+    MetadataSnapshot.Builder snapshot =
+        MetadataSnapshot.newBuilder()
+            .setExportTime(
+                Timestamp.newBuilder()
+                    .setSeconds(now.getEpochSecond())
+                    .setNanos(now.getNano())
+                    .build());
+    for (Map.Entry<String, CloudBigtableSpec> entry : cloudBigtableCache.snapshot().entrySet()) {
+      CloudBigtableSpec spec = entry.getValue();
+      snapshot.addCloudBigtableSpecs(
+          CloudBigtableSpecEntry.newBuilder()
+              .setFeatureOnlineStore(entry.getKey())
+              .setTenantProjectId(nullToEmpty(spec.tenantProjectId))
+              .setInstanceId(nullToEmpty(spec.instanceId))
+              .setTableId(nullToEmpty(spec.tableId))
+              .build());
+    }
+    for (Map.Entry<String, FeatureViewSpec> entry : featureViewCache.snapshot().entrySet()) {
+      FeatureViewSpec spec = entry.getValue();
+      snapshot.addFeatureViewSpecs(
+          FeatureViewSpecEntry.newBuilder()
+              .setFeatureView(entry.getKey())
+              .setContinuousSyncEnabled(Boolean.TRUE.equals(spec.continuousSyncEnabled))
+              .setReadAppProfileId(nullToEmpty(spec.readAppProfileId))
+              .setTimestampsEnabled(Boolean.TRUE.equals(spec.timestampsEnabled))
+              .build());
+    }
+
+    Path parent = file.toAbsolutePath().getParent();
+    Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+    try {
+      try (OutputStream out = Files.newOutputStream(tmp)) {
+        snapshot.build().writeTo(out);
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  // Caches all the specs of the file. Each of them is reloaded from the admin API in the
+  // background, and the snapshot spec is served until the reload succeeds.
+  MetadataSnapshot load(Path file) throws IOException {
+    MetadataSnapshot snapshot;
+    try (InputStream in = Files.newInputStream(file)) {
+      snapshot = MetadataSnapshot.parseFrom(in);
+    }
+    for (CloudBigtableSpecEntry entry : snapshot.getCloudBigtableSpecsList()) {
+      cloudBigtableCache.bootstrap(
+          entry.getFeatureOnlineStore(),
+          new CloudBigtableSpec(
+              entry.getTenantProjectId(), entry.getInstanceId(), entry.getTableId()));
+    }
+    for (FeatureViewSpecEntry entry : snapshot.getFeatureViewSpecsList()) {
+      featureViewCache.bootstrap(
+          entry.getFeatureView(),
+          new FeatureViewSpec(
+              entry.getContinuousSyncEnabled(),
+              entry.getReadAppProfileId(),
+              entry.getTimestampsEnabled()));
+    }
+    logger.log(
+        Level.INFO,
+        String.format(
+            "Loaded metadata snapshot exported at %ss: %d online stores, %d FeatureViews",
+            snapshot.getExportTime().getSeconds(),
+            snapshot.getCloudBigtableSpecsCount(),
+            snapshot.getFeatureViewSpecsCount()));
+    return snapshot;
+  }
+
+  private static String nullToEmpty(String value) {
+    return value == null ? "" : value;
+  }
+}
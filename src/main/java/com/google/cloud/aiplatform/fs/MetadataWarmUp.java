@@ -0,0 +1,111 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads the metadata of all the FeatureViews of an online store into {@link CloudBigtableCache}
+ * and {@link FeatureViewCache} ahead of client creation, with a bounded number of concurrent admin
+ * RPCs.
+ */
+class MetadataWarmUp {
+  private static final Logger logger = Logger.getLogger(MetadataWarmUp.class.getName());
+
+  private final CloudBigtableCache cloudBigtableCache;
+  private final FeatureViewCache featureViewCache;
+
+  MetadataWarmUp(CloudBigtableCache cloudBigtableCache, FeatureViewCache featureViewCache) {
+    this.cloudBigtableCache = cloudBigtableCache;
+    this.featureViewCache = featureViewCache;
+  }
+
+  WarmUpResult run(String fosName, int maxConcurrency) throws Exception {
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException("maxConcurrency must be positive.");
+    }
+    Stopwatch total = Stopwatch.createStarted();
+    // Failures to load the online store or list its views fail the whole warm-up, since no client
+    // of the store can be created without them.
+    cloudBigtableCache.getCloudBigtableSpec(fosName);
+    List<String> listed = featureViewCache.listFeatureViewNames(fosName);
+    // Loading more FeatureViews than the cache holds would evict the first ones loaded.
+    List<String> fvNames =
+        listed.subList(0, Math.min(listed.size(), featureViewCache.maximumSize()));
+    List<String> skipped = new ArrayList<>(listed.subList(fvNames.size(), listed.size()));
+    if (!skipped.isEmpty()) {
+      logger.log(
+          Level.WARNING,
+          String.format(
+              "%s has %d FeatureViews, but the metadata cache holds %d. %d are not warmed up.",
+              fosName, listed.size(), featureViewCache.maximumSize(), skipped.size()));
+    }
+
+    Map<String, Duration> loadTimes = new ConcurrentHashMap<>();
+    Map<String, Exception> failures = new ConcurrentHashMap<>();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            Math.min(maxConcurrency, Math.max(1, fvNames.size())),
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("warm-up-%d").build());
+    try {
+      List<Future<?>> loads = new ArrayList<>(fvNames.size());
+      for (String fvName : fvNames) {
+        loads.add(
+            executor.submit(
+                () -> {
+                  Stopwatch stopwatch = Stopwatch.createStarted();
+                  try {
+                    featureViewCache.getFeatureViewSpec(fvName);
+                  } catch (RuntimeException e) {
+                    logger.log(
+                        Level.WARNING, String.format("Failed to warm up %s: %s", fvName, e));
+                    failures.put(fvName, e);
+                  }
+                  loadTimes.put(fvName, stopwatch.elapsed());
+                }));
+      }
+      for (Future<?> load : loads) {
+        try {
+          load.get();
+        } catch (ExecutionException e) {
+          // Not reached, each load records its own failure.
+          throw new IllegalStateException(e.getCause());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    Duration totalTime = total.elapsed();
+    logger.log(
+        Level.INFO,
+        String.format(
+            "Warmed up %d FeatureViews of %s in %d ms, %d failed",
+            fvNames.size(), fosName, totalTime.toMillis(), failures.size()));
+    return new WarmUpResult(totalTime, loadTimes, failures, skipped);
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of the entity keys which were recently not found in Bigtable, by FeatureView resource name,
+ * so that repeated fetches of the same missing keys are answered without a Bigtable read. Single
+ * fetches of a known-missing key fail with NotFoundException, and batch fetches get an empty
+ * FeatureNameValuePairList for it.
+ *
+ * <p>The TTL should be short, as it bounds how long a newly written entity may still be reported
+ * as missing. The hit count of {@link #stats()} is the number of fetches answered by the cache.
+ */
+public final class NegativeResultCache {
+
+  private final Cache<EntityKey, Boolean> cache;
+
+  private NegativeResultCache(Builder builder) {
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumSize(builder.maximumSize)
+            .expireAfterWrite(builder.ttl.toNanos(), TimeUnit.NANOSECONDS)
+            .ticker(builder.ticker)
+            .recordStats()
+            .build();
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /** Returns whether the entity was recently not found. */
+  boolean isKnownMissing(String featureView, String dataKey) {
+    return cache.getIfPresent(new EntityKey(featureView, dataKey)) != null;
+  }
+
+  /** Records that the entity was not found in Bigtable. */
+  void putMissing(String featureView, String dataKey) {
+    cache.put(new EntityKey(featureView, dataKey), Boolean.TRUE);
+  }
+
+  /** Forgets that the entity was not found, once it has been read from Bigtable. */
+  void invalidate(String featureView, String dataKey) {
+    cache.invalidate(new EntityKey(featureView, dataKey));
+  }
+
+  /** Removes all the known-missing keys. */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /**
+   * Returns the statistics of the cache. Hits are fetches answered as not found without a Bigtable
+   * read.
+   */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  @VisibleForTesting
+  long size() {
+    return cache.size();
+  }
+
+  public static class Builder {
+    private long maximumSize = 100_000;
+    private Duration ttl = Duration.ofSeconds(10);
+    private Ticker ticker = Ticker.systemTicker();
+
+    // Maximum number of known-missing keys. Defaults to 100,000.
+    public Builder setMaximumSize(long maximumSize) {
+      this.maximumSize = maximumSize;
+      return this;
+    }
+
+    // How long a key is reported as missing without reading Bigtable again. Defaults to 10
+    // seconds.
+    public Builder setTtl(Duration ttl) {
+      this.ttl = ttl;
+      return this;
+    }
+
+    @VisibleForTesting
+    Builder setTicker(Ticker ticker) {
+      this.ticker = ticker;
+      return this;
+    }
+
+    public NegativeResultCache build() {
+      return new NegativeResultCache(this);
+    }
+  }
+
+  private static final class EntityKey {
+    private final String featureView;
+    private final String dataKey;
+
+    EntityKey(String featureView, String dataKey) {
+      this.featureView = featureView;
+      this.dataKey = dataKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof EntityKey)) {
+        return false;
+      }
+      EntityKey other = (EntityKey) o;
+      return featureView.equals(other.featureView) && dataKey.equals(other.dataKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(featureView, dataKey);
+    }
+  }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.common.hash.Hashing;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Off-heap store of the serialized FeatureViewInternalStorage cells read from Bigtable, keyed by
+ * FeatureView resource name and entity key. Cells are kept in direct ByteBuffer slabs, so a store
+ * of tens of GB adds no objects for the garbage collector to trace. The cells are parsed again on
+ * every hit.
+ *
+ * <p>The store is split into segments by key hash, each with its own lock. A segment appends
+ * entries to its current slab and indexes them with an open-addressing hash table of primitive
+ * arrays. When all its slabs are full, the oldest slab is reused, which evicts all its entries at
+ * once.
+ */
+public final class OffHeapCellStore {
+
+  // Entry header: key length, value length, cell timestamp in micros, write time in millis.
+  private static final int HEADER_BYTES = 4 + 4 + 8 + 8;
+
+  // Reserved hash values of the index.
+  private static final long EMPTY = 0;
+  private static final long DELETED = -1;
+
+  private final Segment[] segments;
+  private final long ttlMillis;
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictedSlabCount = new AtomicLong();
+
+  private OffHeapCellStore(Builder builder) {
+    if (builder.segmentCount < 1 || builder.slabSizeBytes < HEADER_BYTES) {
+      throw new IllegalArgumentException("Invalid segment count or slab size.");
+    }
+    long segmentCapacity = builder.capacityBytes / builder.segmentCount;
+    // Each segment needs at least two slabs, one to write to and one to evict.
+    int slabsPerSegment = (int) Math.max(2, segmentCapacity / builder.slabSizeBytes);
+    this.segments = new Segment[builder.segmentCount];
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = new Segment(slabsPerSegment, builder.slabSizeBytes);
+    }
+    this.ttlMillis = builder.ttl == null ? Long.MAX_VALUE : builder.ttl.toMillis();
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /** Returns the stored cell of the entity, or null if it is not stored or has expired. */
+  StoredCell get(String featureView, String dataKey) {
+    byte[] key = encodeKey(featureView, dataKey);
+    long hash = hash(key);
+    StoredCell cell = segmentOf(hash).get(key, hash, System.currentTimeMillis() - ttlMillis);
+    (cell == null ? missCount : hitCount).incrementAndGet();
+    return cell;
+  }
+
+  /**
+   * Stores the value of the cell. Values which do not fit in a slab are not stored.
+   *
+   * @param value The serialized FeatureViewInternalStorage of the cell.
+   * @param timestampMicros The Bigtable timestamp of the cell.
+   */
+  void put(String featureView, String dataKey, ByteString value, long timestampMicros) {
+    byte[] key = encodeKey(featureView, dataKey);
+    long hash = hash(key);
+    segmentOf(hash).put(key, hash, value, timestampMicros, System.currentTimeMillis());
+  }
+
+  /** Removes the stored cell of the entity, for example once its row is deleted. */
+  void invalidate(String featureView, String dataKey) {
+    byte[] key = encodeKey(featureView, dataKey);
+    long hash = hash(key);
+    segmentOf(hash).invalidate(key, hash);
+  }
+
+  public long hitCount() {
+    return hitCount.get();
+  }
+
+  public long missCount() {
+    return missCount.get();
+  }
+
+  /** Number of slabs which have been reused, each of which evicted all the entries in it. */
+  public long evictedSlabCount() {
+    return evictedSlabCount.get();
+  }
+
+  private Segment segmentOf(long hash) {
+    return segments[(int) ((hash >>> 48) % segments.length)];
+  }
+
+  // FeatureView resource names have a fixed number of '/'-separated segments, so the encoding is
+  // unambiguous.
+  private static byte[] encodeKey(String featureView, String dataKey) {
+    return (featureView + "/" + dataKey).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static long hash(byte[] key) {
+    long hash = Hashing.murmur3_128().hashBytes(key).asLong();
+    return hash == EMPTY || hash == DELETED ? 1 : hash;
+  }
+
+  /** The value and timestamp of a stored cell. */
+  static final class StoredCell {
+    final ByteString value;
+    final long timestampMicros;
+
+    StoredCell(ByteString value, long timestampMicros) {
+      this.value = value;
+      this.timestampMicros = timestampMicros;
+    }
+  }
+
+  private final class Segment {
+    private final ByteBuffer[] slabs;
+    // Incremented every time a slab is reused. Index entries of older generations are stale.
+    private final int[] slabGenerations;
+    private int currentSlab;
+    private int writeOffset;
+    // Number of slabs written to so far. Once all are, moving to the next slab evicts it.
+    private int writtenSlabs = 1;
+
+    // Open-addressing index with linear probing. A slot holds the key hash, the location of the
+    // entry as (slab << 32 | offset), and the generation of the slab when the entry was written.
+    private long[] hashes;
+    private long[] locations;
+    private int[] generations;
+    // Slots which are not EMPTY, including DELETED and stale ones.
+    private int usedSlots;
+
+    Segment(int slabCount, int slabSizeBytes) {
+      this.slabs = new ByteBuffer[slabCount];
+      for (int i = 0; i < slabCount; i++) {
+        slabs[i] = ByteBuffer.allocateDirect(slabSizeBytes);
+      }
+      this.slabGenerations = new int[slabCount];
+      allocateIndex(1024);
+    }
+
+    synchronized StoredCell get(byte[] key, long hash, long minWriteMillis) {
+      int slot = find(key, hash);
+      if (slot < 0) {
+        return null;
+      }
+      ByteBuffer slab = slabs[(int) (locations[slot] >>> 32)];
+      int offset = (int) locations[slot];
+      if (slab.getLong(offset + 16) < minWriteMillis) {
+        hashes[slot] = DELETED;
+        return null;
+      }
+      int valueLength = slab.getInt(offset + 4);
+      byte[] value = new byte[valueLength];
+      ByteBuffer view = slab.duplicate();
+      view.position(offset + HEADER_BYTES + key.length);
+      view.get(value);
+      return new StoredCell(UnsafeByteOperations.unsafeWrap(value), slab.getLong(offset + 8));
+    }
+
+    // The bytes of the entry stay in its slab until the slab is reused.
+    synchronized void invalidate(byte[] key, long hash) {
+      int slot = find(key, hash);
+      if (slot >= 0) {
+        hashes[slot] = DELETED;
+      }
+    }
+
+    synchronized void put(
+        byte[] key, long hash, ByteString value, long timestampMicros, long writeMillis) {
+      int existing = find(key, hash);
+      if (existing >= 0) {
+        hashes[existing] = DELETED;
+      }
+      int entryBytes = HEADER_BYTES + key.length + value.size();
+      ByteBuffer slab = slabs[currentSlab];
+      if (entryBytes > slab.capacity()) {
+        return;
+      }
+      if (writeOffset + entryBytes > slab.capacity()) {
+        // Reuse the oldest slab. Its entries become stale as its generation changes.
+        currentSlab = (currentSlab + 1) % slabs.length;
+        slabGenerations[currentSlab]++;
+        writeOffset = 0;
+        if (writtenSlabs < slabs.length) {
+          writtenSlabs++;
+        } else {
+          evictedSlabCount.incrementAndGet();
+        }
+        slab = slabs[currentSlab];
+      }
+      int offset = writeOffset;
+      slab.putInt(offset, key.length);
+      slab.putInt(offset + 4, value.size());
+      slab.putLong(offset + 8, timestampMicros);
+      slab.putLong(offset + 16, writeMillis);
+      ByteBuffer view = slab.duplicate();
+      view.position(offset + HEADER_BYTES);
+      view.put(key);
+      value.copyTo(view);
+      writeOffset += entryBytes;
+
+      if ((usedSlots + 1) * 2 > hashes.length) {
+        rebuildIndex();
+      }
+      insert(hash, ((long) currentSlab << 32) | offset, slabGenerations[currentSlab]);
+    }
+
+    // Returns the slot of the live entry of the key, or -1.
+    private int find(byte[] key, long hash) {
+      int mask = hashes.length - 1;
+      for (int slot = (int) hash & mask; hashes[slot] != EMPTY; slot = (slot + 1) & mask) {
+        if (hashes[slot] == hash
+            && generations[slot] == slabGenerations[(int) (locations[slot] >>> 32)]
+            && keyEquals(locations[slot], key)) {
+          return slot;
+        }
+      }
+      return -1;
+    }
+
+    private boolean keyEquals(long location, byte[] key) {
+      ByteBuffer slab = slabs[(int) (location >>> 32)];
+      int offset = (int) location;
+      if (slab.getInt(offset) != key.length) {
+        return false;
+      }
+      int keyOffset = offset + HEADER_BYTES;
+      for (int i = 0; i < key.length; i++) {
+        if (slab.get(keyOffset + i) != key[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void insert(long hash, long location, int generation) {
+      int mask = hashes.length - 1;
+      int slot = (int) hash & mask;
+      while (hashes[slot] != EMPTY && hashes[slot] != DELETED) {
+        slot = (slot + 1) & mask;
+      }
+      if (hashes[slot] == EMPTY) {
+        usedSlots++;
+      }
+      hashes[slot] = hash;
+      locations[slot] = location;
+      generations[slot] = generation;
+    }
+
+    // Drops deleted and stale slots, and grows the index if most of the remaining slots are live.
+    private void rebuildIndex() {
+      long[] oldHashes = hashes;
+      long[] oldLocations = locations;
+      int[] oldGenerations = generations;
+      int liveSlots = 0;
+      for (int i = 0; i < oldHashes.length; i++) {
+        if (isLive(oldHashes[i], oldLocations[i], oldGenerations[i])) {
+          liveSlots++;
+        }
+      }
+      allocateIndex(liveSlots * 4 > oldHashes.length ? oldHashes.length * 2 : oldHashes.length);
+      for (int i = 0; i < oldHashes.length; i++) {
+        if (isLive(oldHashes[i], oldLocations[i], oldGenerations[i])) {
+          insert(oldHashes[i], oldLocations[i], oldGenerations[i]);
+        }
+      }
+    }
+
+    private boolean isLive(long hash, long location, int generation) {
+      return hash != EMPTY
+          && hash != DELETED
+          && generation == slabGenerations[(int) (location >>> 32)];
+    }
+
+    private void allocateIndex(int size) {
+      hashes = new long[size];
+      locations = new long[size];
+      generations = new int[size];
+      usedSlots = 0;
+    }
+  }
+
+  public static class Builder {
+    private long capacityBytes = 1024L * 1024 * 1024;
+    private int slabSizeBytes = 16 * 1024 * 1024;
+    private int segmentCount = 16;
+    private Duration ttl;
+
+    // Total size of the off-heap slabs. Defaults to 1 GiB.
+    public Builder setCapacityBytes(long capacityBytes) {
+      this.capacityBytes = capacityBytes;
+      return this;
+    }
+
+    // Size of each slab, which is also the unit of eviction. Defaults to 16 MiB.
+    public Builder setSlabSizeBytes(int slabSizeBytes) {
+      this.slabSizeBytes = slabSizeBytes;
+      return this;
+    }
+
+    // Number of independently locked segments. Defaults to 16.
+    public Builder setSegmentCount(int segmentCount) {
+      this.segmentCount = segmentCount;
+      return this;
+    }
+
+    // Maximum age of a stored cell. By default cells are kept until they are evicted.
+    public Builder setTtl(Duration ttl) {
+      this.ttl = ttl;
+      return this;
+    }
+
+    public OffHeapCellStore build() {
+      return new OffHeapCellStore(this);
+    }
+  }
+}
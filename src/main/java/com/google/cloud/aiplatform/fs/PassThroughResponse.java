@@ -0,0 +1,162 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse.FeatureNameValuePairList;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse.FeatureNameValuePairList.FeatureNameValuePair;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A serialized {@link FetchFeatureValuesResponse} in the KEY_VALUE format, for proxies which
+ * forward responses to their callers without reading them. Returned by {@link
+ * FeatureOnlineStoreDirectClient#fetchSerializedFeatureValues}.
+ *
+ * <p>When read from Bigtable, the names and values of the features are sliced out of the cell as
+ * they are, without copying them, and framed as the fields of the response when it is written. The
+ * {@link FeatureViewInternalStorage} and the response messages are never built. Parsing the
+ * written bytes gives the same response as {@link
+ * FeatureOnlineStoreDirectClient#fetchFeatureValues}.
+ */
+public final class PassThroughResponse {
+
+  // The serialized response, when it was not sliced from a cell. Null otherwise.
+  private final ByteString serialized;
+  // Names and serialized FeatureValues of the features in the cell. Null if serialized is set.
+  private final CellFeatureIndex index;
+  // Serialized size of each FeatureNameValuePair, and of the FeatureNameValuePairList.
+  private final int[] pairSizes;
+  private final int listSize;
+  private final int serializedSize;
+
+  private PassThroughResponse(ByteString serialized) {
+    this.serialized = serialized;
+    this.index = null;
+    this.pairSizes = null;
+    this.listSize = 0;
+    this.serializedSize = serialized.size();
+  }
+
+  private PassThroughResponse(CellFeatureIndex index) {
+    this.serialized = null;
+    this.index = index;
+    this.pairSizes = new int[index.size()];
+    int listSize = 0;
+    for (int i = 0; i < pairSizes.length; i++) {
+      int pairSize =
+          CodedOutputStream.computeBytesSize(
+              FeatureNameValuePair.VALUE_FIELD_NUMBER, index.value(i));
+      // As in the proto3 serialization of the response, an empty name is not written.
+      ByteString name = index.name(i);
+      if (!name.isEmpty()) {
+        pairSize +=
+            CodedOutputStream.computeBytesSize(FeatureNameValuePair.NAME_FIELD_NUMBER, name);
+      }
+      pairSizes[i] = pairSize;
+      listSize +=
+          CodedOutputStream.computeTagSize(FeatureNameValuePairList.FEATURES_FIELD_NUMBER)
+              + CodedOutputStream.computeUInt32SizeNoTag(pairSize)
+              + pairSize;
+    }
+    this.listSize = listSize;
+    this.serializedSize =
+        CodedOutputStream.computeTagSize(FetchFeatureValuesResponse.KEY_VALUES_FIELD_NUMBER)
+            + CodedOutputStream.computeUInt32SizeNoTag(listSize)
+            + listSize;
+  }
+
+  // Wraps a response which is already built, such as one found in the local caches.
+  static PassThroughResponse of(FetchFeatureValuesResponse response) {
+    return new PassThroughResponse(response.toByteString());
+  }
+
+  // Slices the features out of the serialized FeatureViewInternalStorage of a cell.
+  static PassThroughResponse fromCell(ByteString cellValue, InternalFetchRequest request)
+      throws IOException {
+    return new PassThroughResponse(CellFeatureIndex.build(cellValue, request));
+  }
+
+  /** Returns the number of bytes that the write methods write. */
+  public int getSerializedSize() {
+    return serializedSize;
+  }
+
+  /** Writes the serialized response to {@code output}. */
+  public void writeTo(OutputStream output) throws IOException {
+    CodedOutputStream codedOutput =
+        CodedOutputStream.newInstance(
+            output, Math.min(serializedSize, CodedOutputStream.DEFAULT_BUFFER_SIZE));
+    writeTo(codedOutput);
+    codedOutput.flush();
+  }
+
+  /**
+   * Writes the serialized response at the position of {@code buffer}, and moves the position past
+   * it.
+   *
+   * @throws BufferOverflowException if fewer than {@link #getSerializedSize} bytes remain in the
+   *     buffer. Nothing is written then.
+   */
+  public void writeTo(ByteBuffer buffer) throws IOException {
+    if (buffer.remaining() < serializedSize) {
+      throw new BufferOverflowException();
+    }
+    CodedOutputStream codedOutput = CodedOutputStream.newInstance(buffer);
+    writeTo(codedOutput);
+    codedOutput.flush();
+  }
+
+  /** Returns the serialized response. */
+  public ByteString toByteString() {
+    if (serialized != null) {
+      return serialized;
+    }
+    ByteString.Output output = ByteString.newOutput(serializedSize);
+    try {
+      writeTo(output);
+    } catch (IOException e) {
+      // ByteString.Output does not throw.
+      throw new IllegalStateException(e);
+    }
+    return output.toByteString();
+  }
+
+  private void writeTo(CodedOutputStream output) throws IOException {
+    if (serialized != null) {
+      output.writeRawBytes(serialized);
+      return;
+    }
+    output.writeTag(
+        FetchFeatureValuesResponse.KEY_VALUES_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    output.writeUInt32NoTag(listSize);
+    for (int i = 0; i < pairSizes.length; i++) {
+      output.writeTag(
+          FeatureNameValuePairList.FEATURES_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+      output.writeUInt32NoTag(pairSizes[i]);
+      ByteString name = index.name(i);
+      if (!name.isEmpty()) {
+        output.writeBytes(FeatureNameValuePair.NAME_FIELD_NUMBER, name);
+      }
+      output.writeBytes(FeatureNameValuePair.VALUE_FIELD_NUMBER, index.value(i));
+    }
+  }
+}
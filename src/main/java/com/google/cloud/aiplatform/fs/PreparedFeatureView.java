@@ -0,0 +1,143 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.aiplatform.v1.FeatureViewDataFormat;
+import com.google.cloud.aiplatform.v1.FeatureViewDataKey;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * A handle to fetch feature values of one FeatureView, obtained from {@link
+ * FeatureOnlineStoreDirectClient#prepareFeatureView}. The resource name is parsed, the metadata is
+ * resolved and the Bigtable table and filter are built once, so a fetch only builds the entity id
+ * and reads Bigtable. Fetches still go through the local caches, collapsing and coalescing of the
+ * client.
+ *
+ * <p>Responses are in the KEY_VALUE format, with only the requested features if the handle was
+ * prepared for some of the features. The handle is thread safe, and is valid until the client is
+ * closed.
+ */
+public final class PreparedFeatureView {
+
+  private final FeatureOnlineStoreDirectClient client;
+
+  private final String featureViewResourceName;
+
+  // Request without keys, from which the request of every fetch is copied.
+  private final InternalFetchRequest template;
+
+  PreparedFeatureView(
+      FeatureOnlineStoreDirectClient client,
+      String featureViewResourceName,
+      CloudBigtableSpec cloudBigtableSpec,
+      FeatureViewSpec featureViewSpec,
+      FeatureProjection featureProjection) {
+    this.client = client;
+    this.featureViewResourceName = featureViewResourceName;
+    this.template =
+        InternalFetchRequest.newTemplate(
+            featureViewResourceName,
+            FeatureViewDataFormat.KEY_VALUE,
+            cloudBigtableSpec,
+            featureViewSpec,
+            featureProjection);
+  }
+
+  /** Returns the resource name of the FeatureView. */
+  public String getFeatureView() {
+    return featureViewResourceName;
+  }
+
+  /**
+   * Fetches the feature values of a single entity.
+   *
+   * @param dataKey The entity id, or the parts of a composite id joined with ":".
+   * @throws com.google.api.gax.rpc.NotFoundException if the entity is not found.
+   */
+  public FetchFeatureValuesResponse fetchFeatureValues(String dataKey) throws Exception {
+    return client.fetchFeatureValues(template.newRequest(dataKey));
+  }
+
+  // Same as above, with the key of a FetchFeatureValuesRequest.
+  public FetchFeatureValuesResponse fetchFeatureValues(FeatureViewDataKey dataKey)
+      throws Exception {
+    return fetchFeatureValues(InternalFetchRequest.constructDataKey(dataKey));
+  }
+
+  /**
+   * Asynchronous version of {@link #fetchFeatureValues(String)}. The Bigtable row is converted to
+   * the response on {@code executor}.
+   */
+  public ApiFuture<FetchFeatureValuesResponse> fetchFeatureValuesAsync(
+      String dataKey, Executor executor) {
+    return client.fetchFeatureValuesAsync(template.newRequest(dataKey), executor);
+  }
+
+  // Same as above, with the key of a FetchFeatureValuesRequest.
+  public ApiFuture<FetchFeatureValuesResponse> fetchFeatureValuesAsync(
+      FeatureViewDataKey dataKey, Executor executor) {
+    String key;
+    try {
+      key = InternalFetchRequest.constructDataKey(dataKey);
+    } catch (IllegalArgumentException e) {
+      return ApiFutures.immediateFailedFuture(e);
+    }
+    return fetchFeatureValuesAsync(key, executor);
+  }
+
+  /**
+   * Fetches the feature values of several entities with one Bigtable read.
+   *
+   * @param dataKeys The entity ids.
+   * @return The responses, ordered to match {@code dataKeys}.
+   */
+  public List<FetchFeatureValuesResponse> batchFetchFeatureValues(List<String> dataKeys)
+      throws Exception {
+    return client.batchFetchFeatureValues(template.newRequest(dataKeys));
+  }
+
+  /**
+   * Fetches the features of {@code schema} of several entities with one Bigtable read, and writes
+   * them into the columns of {@code sink} rather than building responses. The feature values are
+   * decoded from the Bigtable cells straight into the sink, without boxing them. Row {@code i} of
+   * the columns is the entity of {@code dataKeys.get(i)}; the columns of an entity which is not
+   * found are null.
+   *
+   * @param dataKeys The entity ids.
+   * @param schema The features to fetch, and the type of their columns.
+   * @param sink Receives the values, such as a {@link PrimitiveColumns} of {@code
+   *     dataKeys.size()} rows.
+   * @throws com.google.api.gax.rpc.InvalidArgumentException if a feature value does not have the
+   *     type of its column.
+   */
+  public void batchFetchFeatureColumns(
+      List<String> dataKeys, FeatureSchema schema, FeatureColumnSink sink) throws Exception {
+    client.batchFetchFeatureColumns(template.newRequest(dataKeys), schema, sink);
+  }
+
+  /**
+   * Asynchronous version of {@link #batchFetchFeatureValues}. The Bigtable rows are converted to
+   * responses on {@code executor}.
+   */
+  public ApiFuture<List<FetchFeatureValuesResponse>> batchFetchFeatureValuesAsync(
+      List<String> dataKeys, Executor executor) {
+    return client.batchFetchFeatureValuesAsync(template.newRequest(dataKeys), executor);
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.cloud.aiplatform.fs.FeatureSchema.ColumnType;
+import java.util.BitSet;
+
+/**
+ * A {@link FeatureColumnSink} which keeps each column in a primitive array ({@code double[]},
+ * {@code long[]} or {@code boolean[]} by the {@link ColumnType} of the column), with one slot per
+ * fetched key, and the null slots of each column in a {@link BitSet}. The value of a null slot is
+ * left as 0 or false.
+ *
+ * <p>The arrays are allocated once, and can be reused for another batch of the same size after
+ * {@link #clearNulls}.
+ */
+public final class PrimitiveColumns implements FeatureColumnSink {
+
+  private final FeatureSchema schema;
+  private final int rowCount;
+  // One double[], long[] or boolean[] per column.
+  private final Object[] columns;
+  private final BitSet[] nulls;
+
+  public PrimitiveColumns(FeatureSchema schema, int rowCount) {
+    this.schema = schema;
+    this.rowCount = rowCount;
+    this.columns = new Object[schema.getColumnCount()];
+    this.nulls = new BitSet[schema.getColumnCount()];
+    for (int column = 0; column < columns.length; column++) {
+      switch (schema.getColumnType(column)) {
+        case DOUBLE:
+          columns[column] = new double[rowCount];
+          break;
+        case LONG:
+          columns[column] = new long[rowCount];
+          break;
+        case BOOLEAN:
+          columns[column] = new boolean[rowCount];
+          break;
+      }
+      nulls[column] = new BitSet(rowCount);
+    }
+  }
+
+  public FeatureSchema getSchema() {
+    return schema;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /** Returns the values of a {@link ColumnType#DOUBLE} column. */
+  public double[] getDoubleColumn(int column) {
+    checkType(column, ColumnType.DOUBLE);
+    return (double[]) columns[column];
+  }
+
+  /** Returns the values of a {@link ColumnType#LONG} column. */
+  public long[] getLongColumn(int column) {
+    checkType(column, ColumnType.LONG);
+    return (long[]) columns[column];
+  }
+
+  /** Returns the values of a {@link ColumnType#BOOLEAN} column. */
+  public boolean[] getBooleanColumn(int column) {
+    checkType(column, ColumnType.BOOLEAN);
+    return (boolean[]) columns[column];
+  }
+
+  /** Returns the null slots of the column. */
+  public BitSet getNulls(int column) {
+    return nulls[column];
+  }
+
+  public boolean isNull(int column, int row) {
+    return nulls[column].get(row);
+  }
+
+  /** Clears the null slots of all the columns, before the columns are reused. */
+  public void clearNulls() {
+    for (BitSet columnNulls : nulls) {
+      columnNulls.clear();
+    }
+  }
+
+  @Override
+  public void putDouble(int column, int row, double value) {
+    ((double[]) columns[column])[row] = value;
+  }
+
+  @Override
+  public void putLong(int column, int row, long value) {
+    ((long[]) columns[column])[row] = value;
+  }
+
+  @Override
+  public void putBoolean(int column, int row, boolean value) {
+    ((boolean[]) columns[column])[row] = value;
+  }
+
+  @Override
+  public void putNull(int column, int row) {
+    switch (schema.getColumnType(column)) {
+      case DOUBLE:
+        ((double[]) columns[column])[row] = 0;
+        break;
+      case LONG:
+        ((long[]) columns[column])[row] = 0;
+        break;
+      case BOOLEAN:
+        ((boolean[]) columns[column])[row] = false;
+        break;
+    }
+    nulls[column].set(row);
+  }
+
+  private void checkType(int column, ColumnType type) {
+    if (schema.getColumnType(column) != type) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Column %d is of type %s, not %s.", column, schema.getColumnType(column), type));
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import java.time.Instant;
+
+/**
+ * Health of the refreshes of the access token of the Bigtable connection, as returned by {@link
+ * FeatureOnlineStoreDirectClient#getTokenRefreshStatus}.
+ */
+public final class TokenRefreshStatus {
+
+  public enum Health {
+    // The last refresh succeeded.
+    HEALTHY,
+    // The last refreshes failed and are retried, while the current token is still valid.
+    RETRYING,
+    // The last refreshes failed and the current token has expired, so fetches fail.
+    EXPIRED
+  }
+
+  private final Health health;
+  private final Instant lastSuccessTime;
+  private final Instant tokenExpirationTime;
+  private final int consecutiveFailures;
+  private final Exception lastError;
+
+  TokenRefreshStatus(
+      Health health,
+      Instant lastSuccessTime,
+      Instant tokenExpirationTime,
+      int consecutiveFailures,
+      Exception lastError) {
+    this.health = health;
+    this.lastSuccessTime = lastSuccessTime;
+    this.tokenExpirationTime = tokenExpirationTime;
+    this.consecutiveFailures = consecutiveFailures;
+    this.lastError = lastError;
+  }
+
+  public Health getHealth() {
+    return health;
+  }
+
+  // Time at which the current token was obtained.
+  public Instant getLastSuccessTime() {
+    return lastSuccessTime;
+  }
+
+  // Expiration time of the current token, or null if the token has none.
+  public Instant getTokenExpirationTime() {
+    return tokenExpirationTime;
+  }
+
+  // Number of refreshes which failed since the last successful one.
+  public int getConsecutiveFailures() {
+    return consecutiveFailures;
+  }
+
+  // Error of the last failed refresh, or null if the last refresh succeeded.
+  public Exception getLastError() {
+    return lastError;
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.OAuth2Credentials;
+import com.google.cloud.aiplatform.fs.TokenRefreshStatus.Health;
+import com.google.common.annotations.VisibleForTesting;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Refreshes the access token of credentials ahead of its expiration time. Each refresh is moved
+ * earlier by a random jitter, so that the clients of a fleet which started together do not all
+ * refresh at the same time. A failed refresh is retried with exponential backoff, and never stops
+ * the next refreshes.
+ */
+final class TokenRefresher {
+
+  private static final Logger logger = Logger.getLogger(TokenRefresher.class.getName());
+
+  // Refreshes are due this long before the token expires, which leaves time for retries.
+  static final Duration REFRESH_MARGIN = Duration.ofMinutes(5);
+  // Interval of the refreshes of tokens without an expiration time.
+  static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofMinutes(45);
+  // Refreshes are moved earlier by up to this fraction of their delay.
+  static final double JITTER_FRACTION = 0.1;
+  static final Duration MIN_REFRESH_DELAY = Duration.ofSeconds(1);
+  static final Duration INITIAL_BACKOFF = Duration.ofSeconds(1);
+  static final Duration MAX_BACKOFF = Duration.ofMinutes(1);
+
+  private final OAuth2Credentials credentials;
+  private final ScheduledExecutorService scheduler;
+  private final Clock clock;
+  private final Random random;
+
+  // Guarded by this.
+  private ScheduledFuture<?> nextRefresh;
+  private boolean stopped;
+  private Instant lastSuccessTime;
+  private int consecutiveFailures;
+  private Exception lastError;
+
+  TokenRefresher(OAuth2Credentials credentials, ScheduledExecutorService scheduler) {
+    this(credentials, scheduler, Clock.systemUTC(), new Random());
+  }
+
+  @VisibleForTesting
+  TokenRefresher(
+      OAuth2Credentials credentials,
+      ScheduledExecutorService scheduler,
+      Clock clock,
+      Random random) {
+    this.credentials = credentials;
+    this.scheduler = scheduler;
+    this.clock = clock;
+    this.random = random;
+  }
+
+  // Schedules the first refresh from the expiration time of the current token, which counts as
+  // obtained now.
+  synchronized void start() {
+    lastSuccessTime = clock.instant();
+    scheduleNext(refreshDelay());
+  }
+
+  synchronized void stop() {
+    stopped = true;
+    if (nextRefresh != null) {
+      nextRefresh.cancel(/* mayInterruptIfRunning= */ false);
+    }
+  }
+
+  // Gets a new token now, and schedules the next refresh or retry.
+  void refresh() {
+    try {
+      credentials.refresh();
+    } catch (Exception e) {
+      synchronized (this) {
+        consecutiveFailures++;
+        lastError = e;
+        Duration backoff = backoffDelay(consecutiveFailures);
+        logger.log(
+            Level.WARNING,
+            String.format(
+                "Refreshing access token failed %d times, retrying in %s: %s",
+                consecutiveFailures, backoff, e));
+        scheduleNext(backoff);
+      }
+      return;
+    }
+    synchronized (this) {
+      consecutiveFailures = 0;
+      lastError = null;
+      lastSuccessTime = clock.instant();
+      scheduleNext(refreshDelay());
+    }
+  }
+
+  synchronized TokenRefreshStatus getStatus() {
+    Instant expirationTime = tokenExpirationTime();
+    Health health;
+    if (consecutiveFailures == 0) {
+      health = Health.HEALTHY;
+    } else if (expirationTime != null && !clock.instant().isBefore(expirationTime)) {
+      health = Health.EXPIRED;
+    } else {
+      health = Health.RETRYING;
+    }
+    return new TokenRefreshStatus(
+        health, lastSuccessTime, expirationTime, consecutiveFailures, lastError);
+  }
+
+  // Delay until the current token is due for a refresh, less a random jitter.
+  @VisibleForTesting
+  Duration refreshDelay() {
+    Instant expirationTime = tokenExpirationTime();
+    long delayMillis =
+        expirationTime == null
+            ? DEFAULT_REFRESH_INTERVAL.toMillis()
+            : expirationTime.toEpochMilli() - clock.millis() - REFRESH_MARGIN.toMillis();
+    delayMillis -= (long) (random.nextDouble() * JITTER_FRACTION * Math.max(delayMillis, 0));
+    return Duration.ofMillis(Math.max(delayMillis, MIN_REFRESH_DELAY.toMillis()));
+  }
+
+  // Delay before the retry which follows the given number of failures. The backoff doubles with
+  // each failure, and a random half of it is dropped to spread the retries of a fleet.
+  @VisibleForTesting
+  Duration backoffDelay(int failures) {
+    long backoffMillis = INITIAL_BACKOFF.toMillis() << Math.min(failures - 1, 20);
+    backoffMillis = Math.min(backoffMillis, MAX_BACKOFF.toMillis());
+    return Duration.ofMillis(backoffMillis / 2 + (long) (random.nextDouble() * backoffMillis / 2));
+  }
+
+  private Instant tokenExpirationTime() {
+    AccessToken token = credentials.getAccessToken();
+    if (token == null || token.getExpirationTime() == null) {
+      return null;
+    }
+    return token.getExpirationTime().toInstant();
+  }
+
+  // Replaces the scheduled refresh, if any. Guarded by this.
+  private void scheduleNext(Duration delay) {
+    if (stopped) {
+      return;
+    }
+    if (nextRefresh != null) {
+      nextRefresh.cancel(/* mayInterruptIfRunning= */ false);
+    }
+    try {
+      nextRefresh = scheduler.schedule(this::refresh, delay.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // The scheduler is shut down along with the connection.
+      nextRefresh = null;
+    }
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/** Result of {@link FeatureOnlineStoreDirectClient#warmUp}, with the time taken by each view. */
+public final class WarmUpResult {
+  private final Duration totalTime;
+  private final Map<String, Duration> loadTimes;
+  private final Map<String, Exception> failures;
+  private final List<String> skipped;
+
+  WarmUpResult(
+      Duration totalTime,
+      Map<String, Duration> loadTimes,
+      Map<String, Exception> failures,
+      List<String> skipped) {
+    this.totalTime = totalTime;
+    this.loadTimes = Collections.unmodifiableMap(loadTimes);
+    this.failures = Collections.unmodifiableMap(failures);
+    this.skipped = Collections.unmodifiableList(skipped);
+  }
+
+  // Wall time of the whole warm-up, including listing the FeatureViews.
+  public Duration getTotalTime() {
+    return totalTime;
+  }
+
+  // Time taken to load the spec of each FeatureView, keyed by its resource name. Includes the
+  // FeatureViews which failed to load.
+  public Map<String, Duration> getLoadTimes() {
+    return loadTimes;
+  }
+
+  // Error of each FeatureView which failed to load, keyed by its resource name. Clients of these
+  // FeatureViews load their spec again when they are created.
+  public Map<String, Exception> getFailures() {
+    return failures;
+  }
+
+  // FeatureViews of the online store which were not loaded, because the metadata cache holds at
+  // most 1000 FeatureViews and loading more would evict the first ones. Clients of these
+  // FeatureViews load their spec when they are created.
+  public List<String> getSkipped() {
+    return skipped;
+  }
+
+  // Whether every FeatureView of the online store was loaded.
+  public boolean isSuccessful() {
+    return failures.isEmpty() && skipped.isEmpty();
+  }
+}
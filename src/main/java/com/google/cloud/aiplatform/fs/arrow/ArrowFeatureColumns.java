@@ -0,0 +1,151 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs.arrow;
+
+import com.google.cloud.aiplatform.fs.FeatureColumnSink;
+import com.google.cloud.aiplatform.fs.FeatureSchema;
+import com.google.cloud.aiplatform.fs.PreparedFeatureView;
+import com.google.common.annotations.VisibleForTesting;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BaseFixedWidthVector;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+/**
+ * Batch fetch output as an Arrow {@link VectorSchemaRoot}, with one nullable vector per feature of
+ * a {@link FeatureSchema}: a {@link Float8Vector} for DOUBLE columns, a {@link BigIntVector} for
+ * LONG columns and a {@link BitVector} for BOOLEAN columns. Row {@code i} is the entity of the
+ * {@code i}-th fetched key.
+ *
+ * <p>Values are decoded from the Bigtable cells straight into the off-heap buffers of the vectors,
+ * without building responses. The vectors and their buffers are reused by every {@link #fetch},
+ * and only grow when a batch has more keys than any before it. The root can be handed to other
+ * runtimes without copies, for example through the Arrow C data interface.
+ *
+ * <p>Not thread safe. Close the columns to release the buffers to the allocator.
+ */
+public final class ArrowFeatureColumns implements FeatureColumnSink, AutoCloseable {
+
+  private final FeatureSchema schema;
+  private final VectorSchemaRoot root;
+  private final BaseFixedWidthVector[] vectors;
+
+  /**
+   * Creates the vectors of {@code schema}. Their buffers are allocated from {@code allocator} on
+   * the first fetch.
+   */
+  public ArrowFeatureColumns(FeatureSchema schema, BufferAllocator allocator) {
+    this.schema = schema;
+    this.root = VectorSchemaRoot.create(toArrowSchema(schema), allocator);
+    this.vectors = new BaseFixedWidthVector[schema.getColumnCount()];
+    for (int column = 0; column < vectors.length; column++) {
+      vectors[column] = (BaseFixedWidthVector) root.getVector(column);
+    }
+  }
+
+  /** Returns the Arrow schema of the features of {@code schema}, one nullable field each. */
+  public static Schema toArrowSchema(FeatureSchema schema) {
+    List<Field> fields = new ArrayList<>(schema.getColumnCount());
+    for (int column = 0; column < schema.getColumnCount(); column++) {
+      fields.add(Field.nullable(schema.getFeatureName(column), toArrowType(schema, column)));
+    }
+    return new Schema(fields);
+  }
+
+  private static ArrowType toArrowType(FeatureSchema schema, int column) {
+    switch (schema.getColumnType(column)) {
+      case DOUBLE:
+        return new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+      case LONG:
+        return new ArrowType.Int(64, /* isSigned= */ true);
+      case BOOLEAN:
+        return ArrowType.Bool.INSTANCE;
+      default:
+        throw new IllegalArgumentException(
+            "Unsupported column type: " + schema.getColumnType(column));
+    }
+  }
+
+  public FeatureSchema getSchema() {
+    return schema;
+  }
+
+  /** Returns the root of the vectors, which holds the rows of the last fetch. */
+  public VectorSchemaRoot getVectorSchemaRoot() {
+    return root;
+  }
+
+  /**
+   * Fetches the features of the schema for {@code dataKeys} with {@link
+   * PreparedFeatureView#batchFetchFeatureColumns}, replacing the rows of the previous fetch.
+   *
+   * @return The root of the vectors, with one row per key in the order of {@code dataKeys}.
+   */
+  public VectorSchemaRoot fetch(PreparedFeatureView featureView, List<String> dataKeys)
+      throws Exception {
+    prepare(dataKeys.size());
+    featureView.batchFetchFeatureColumns(dataKeys, schema, this);
+    root.setRowCount(dataKeys.size());
+    return root;
+  }
+
+  // Clears the vectors for a batch of rowCount rows, reusing their buffers if they are large
+  // enough.
+  @VisibleForTesting
+  void prepare(int rowCount) {
+    root.setRowCount(0);
+    for (BaseFixedWidthVector vector : vectors) {
+      if (vector.getValueCapacity() < rowCount) {
+        vector.allocateNew(rowCount);
+      } else {
+        vector.reset();
+      }
+    }
+  }
+
+  @Override
+  public void putDouble(int column, int row, double value) {
+    ((Float8Vector) vectors[column]).set(row, value);
+  }
+
+  @Override
+  public void putLong(int column, int row, long value) {
+    ((BigIntVector) vectors[column]).set(row, value);
+  }
+
+  @Override
+  public void putBoolean(int column, int row, boolean value) {
+    ((BitVector) vectors[column]).set(row, value ? 1 : 0);
+  }
+
+  @Override
+  public void putNull(int column, int row) {
+    vectors[column].setNull(row);
+  }
+
+  @Override
+  public void close() {
+    root.close();
+  }
+}
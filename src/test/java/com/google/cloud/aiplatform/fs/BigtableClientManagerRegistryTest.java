@@ -0,0 +1,285 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.api.gax.grpc.GrpcStatusCode;
+import com.google.api.gax.rpc.PermissionDeniedException;
+import com.google.cloud.aiplatform.fs.BigtableClientManagerRegistry.Key;
+import io.grpc.Status.Code;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class BigtableClientManagerRegistryTest {
+
+  private static final DirectClientSettings SETTINGS =
+      new DirectClientSettings.Builder().setConnectionSharingEnabled(true).build();
+  private static final Key KEY = new Key("tenant-project", "instance-id", "profile", SETTINGS);
+  private static final String FV =
+      "projects/p/locations/us-central1/featureOnlineStores/s/featureViews/a";
+  private static final String OTHER_FV =
+      "projects/p/locations/us-central1/featureOnlineStores/s/featureViews/b";
+
+  private BigtableClientManagerRegistry registry;
+  private AtomicInteger createCount;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    registry = new BigtableClientManagerRegistry();
+    createCount = new AtomicInteger();
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private Supplier<BigtableClientManager> factory() {
+    return () -> {
+      createCount.incrementAndGet();
+      return manager();
+    };
+  }
+
+  // A manager which still connects to the target of its key.
+  private static BigtableClientManager manager() {
+    BigtableClientManager manager = mock(BigtableClientManager.class);
+    when(manager.hasTarget(any(), any(), any())).thenReturn(true);
+    return manager;
+  }
+
+  @Test
+  public void acquire_sameKey_sharesManager() {
+    BigtableClientManager manager = registry.acquire(KEY, FV, factory());
+    BigtableClientManager other =
+        registry.acquire(
+            new Key("tenant-project", "instance-id", "profile", SETTINGS), OTHER_FV, factory());
+
+    assertThat(other).isSameInstanceAs(manager);
+    assertThat(createCount.get()).isEqualTo(1);
+    // The joining client is checked for access to its own FeatureView.
+    verify(manager).addFeatureView(OTHER_FV);
+  }
+
+  @Test
+  public void acquire_otherAppProfileOrSettings_createsManager() {
+    BigtableClientManager manager = registry.acquire(KEY, FV, factory());
+    BigtableClientManager otherProfile =
+        registry.acquire(
+            new Key("tenant-project", "instance-id", "other-profile", SETTINGS), FV, factory());
+    BigtableClientManager otherSettings =
+        registry.acquire(
+            new Key(
+                "tenant-project",
+                "instance-id",
+                "profile",
+                new DirectClientSettings.Builder().setConnectionSharingEnabled(true).build()),
+            FV,
+            factory());
+
+    assertThat(otherProfile).isNotSameInstanceAs(manager);
+    assertThat(otherSettings).isNotSameInstanceAs(manager);
+    assertThat(createCount.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void acquire_joiningClientDenied_throwsAndKeepsManager() {
+    BigtableClientManager manager = registry.acquire(KEY, FV, factory());
+    PermissionDeniedException denied =
+        new PermissionDeniedException(
+            new Throwable("denied"), GrpcStatusCode.of(Code.PERMISSION_DENIED), false);
+    doThrow(denied).when(manager).addFeatureView(OTHER_FV);
+
+    try {
+      registry.acquire(KEY, OTHER_FV, factory());
+      Assert.fail("Exception should be thrown but did not");
+    } catch (PermissionDeniedException e) {
+      // pass
+    }
+
+    verify(manager, never()).shutdown();
+    // The denied client does not count, so the first one still closes the connection.
+    registry.release(manager, FV);
+    verify(manager, times(1)).shutdown();
+  }
+
+  @Test
+  public void acquire_managerRetargeted_createsManager() {
+    BigtableClientManager manager = registry.acquire(KEY, FV, factory());
+    // The specs of the connection changed to another app profile.
+    when(manager.hasTarget(any(), any(), any())).thenReturn(false);
+
+    BigtableClientManager other = registry.acquire(KEY, OTHER_FV, factory());
+
+    assertThat(other).isNotSameInstanceAs(manager);
+    registry.release(manager, FV);
+    verify(manager, times(1)).shutdown();
+    verify(other, never()).shutdown();
+  }
+
+  @Test
+  public void release_shutsDownWithLastClient() {
+    BigtableClientManager manager = registry.acquire(KEY, FV, factory());
+    registry.acquire(KEY, OTHER_FV, factory());
+
+    registry.release(manager, FV);
+    verify(manager, never()).shutdown();
+    // Tokens are no longer generated for the FeatureView of the released client.
+    verify(manager).removeFeatureView(FV);
+    registry.release(manager, OTHER_FV);
+    verify(manager, times(1)).shutdown();
+
+    // Released managers are not shut down twice, and the next client creates a new one.
+    registry.release(manager, OTHER_FV);
+    verify(manager, times(1)).shutdown();
+    assertThat(registry.acquire(KEY, FV, factory())).isNotSameInstanceAs(manager);
+  }
+
+  @Test
+  public void acquire_creationFails_nothingRegistered() {
+    try {
+      registry.acquire(
+          KEY,
+          FV,
+          () -> {
+            throw new IllegalStateException("token");
+          });
+      Assert.fail("Exception should be thrown but did not");
+    } catch (IllegalStateException e) {
+      // pass
+    }
+
+    registry.acquire(KEY, FV, factory());
+    assertThat(createCount.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void acquire_whileManagerIsCreated_doesNotBlockOtherKeys() throws Exception {
+    CountDownLatch creating = new CountDownLatch(1);
+    CountDownLatch finishCreation = new CountDownLatch(1);
+    BigtableClientManager manager = manager();
+    Future<BigtableClientManager> first =
+        executor.submit(
+            () ->
+                registry.acquire(
+                    KEY,
+                    FV,
+                    () -> {
+                      creating.countDown();
+                      try {
+                        finishCreation.await();
+                      } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                      }
+                      return manager;
+                    }));
+    assertThat(creating.await(5, TimeUnit.SECONDS)).isTrue();
+
+    // Another connection is created while the first one is.
+    Future<BigtableClientManager> otherKey =
+        executor.submit(
+            () ->
+                registry.acquire(
+                    new Key("tenant-project", "instance-id", "other-profile", SETTINGS),
+                    FV,
+                    factory()));
+    assertThat(otherKey.get(5, TimeUnit.SECONDS)).isNotNull();
+    // A client of the same connection waits for its manager instead of creating one.
+    Future<BigtableClientManager> sameKey =
+        executor.submit(() -> registry.acquire(KEY, OTHER_FV, factory()));
+    awaitClientCount(KEY, 2);
+    assertThat(sameKey.isDone()).isFalse();
+
+    finishCreation.countDown();
+    assertThat(first.get(5, TimeUnit.SECONDS)).isSameInstanceAs(manager);
+    assertThat(sameKey.get(5, TimeUnit.SECONDS)).isSameInstanceAs(manager);
+    assertThat(createCount.get()).isEqualTo(1);
+    verify(manager).addFeatureView(OTHER_FV);
+  }
+
+  @Test
+  public void acquire_creatorFails_waitingClientCreatesManager() throws Exception {
+    CountDownLatch creating = new CountDownLatch(1);
+    CountDownLatch failCreation = new CountDownLatch(1);
+    Future<BigtableClientManager> first =
+        executor.submit(
+            () ->
+                registry.acquire(
+                    KEY,
+                    FV,
+                    () -> {
+                      creating.countDown();
+                      try {
+                        failCreation.await();
+                      } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                      }
+                      // Such as no access to the FeatureView of the first client.
+                      throw new IllegalStateException("token");
+                    }));
+    assertThat(creating.await(5, TimeUnit.SECONDS)).isTrue();
+    Future<BigtableClientManager> waiting =
+        executor.submit(() -> registry.acquire(KEY, OTHER_FV, factory()));
+    awaitClientCount(KEY, 2);
+
+    failCreation.countDown();
+
+    try {
+      first.get(5, TimeUnit.SECONDS);
+      Assert.fail("Exception should be thrown but did not");
+    } catch (ExecutionException e) {
+      assertThat(e).hasCauseThat().isInstanceOf(IllegalStateException.class);
+    }
+    // The waiting client creates the manager with its own FeatureView.
+    assertThat(waiting.get(5, TimeUnit.SECONDS)).isNotNull();
+    assertThat(createCount.get()).isEqualTo(1);
+  }
+
+  // Waits until the given number of clients joined the connection, which the clients that wait for
+  // its manager to be created do before they wait.
+  private void awaitClientCount(Key key, int count) throws InterruptedException {
+    long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (registry.clientCount(key) < count) {
+      if (System.nanoTime() - deadlineNanos > 0) {
+        Assert.fail(String.format("%d clients did not join in time.", count));
+      }
+      Thread.sleep(1);
+    }
+  }
+}
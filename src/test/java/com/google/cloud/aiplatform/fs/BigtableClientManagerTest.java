@@ -18,9 +18,20 @@ package com.google.cloud.aiplatform.fs;
 import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.ArgumentCaptor.forClass;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.powermock.api.mockito.PowerMockito.mock;
 import static org.powermock.api.mockito.PowerMockito.when;
 
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
 import com.google.api.gax.core.CredentialsProvider;
 import com.google.api.gax.core.FixedCredentialsProvider;
 import com.google.api.gax.rpc.NotFoundException;
@@ -34,14 +45,20 @@ import com.google.cloud.aiplatform.v1.FeatureOnlineStore.Bigtable.BigtableMetada
 import com.google.cloud.aiplatform.v1.FeatureOnlineStoreServiceClient;
 import com.google.cloud.aiplatform.v1.FeatureOnlineStoreServiceSettings;
 import com.google.cloud.aiplatform.v1.FeatureView;
+import com.google.cloud.aiplatform.v1.GenerateFetchAccessTokenRequest;
 import com.google.cloud.aiplatform.v1.GenerateFetchAccessTokenResponse;
 import com.google.cloud.bigtable.data.v2.BigtableDataClient;
 import com.google.cloud.bigtable.data.v2.BigtableDataSettings;
+import com.google.cloud.bigtable.data.v2.models.Filters.Filter;
+import com.google.cloud.bigtable.data.v2.models.Row;
+import com.google.cloud.bigtable.data.v2.models.TableId;
 import com.google.auth.Credentials;
 import com.google.auth.oauth2.AccessToken;
 import com.google.auth.oauth2.GoogleCredentials;
 import java.util.Date;
 import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -74,6 +91,11 @@ public class BigtableClientManagerTest {
           "projects/%s/locations/%s/featureOnlineStores/%s/featureViews/%s",
           PROJECT_NUMBER, LOCATION, FOS_ID, FV_ID);
 
+  private static final String OTHER_FV_NAME =
+      String.format(
+          "projects/%s/locations/%s/featureOnlineStores/%s/featureViews/%s",
+          PROJECT_NUMBER, LOCATION, FOS_ID, "other_feature_view");
+
   private static final AutoScaling VALID_AUTO_SCALING =
       AutoScaling.newBuilder()
           .setCpuUtilizationTarget(50)
@@ -173,6 +195,360 @@ public class BigtableClientManagerTest {
       }
   }
 
+  @Test
+  public void refreshAccessToken_keepsConnection() throws Exception {
+    ArgumentCaptor<BigtableDataSettings> clientSetting = forClass(BigtableDataSettings.class);
+    CloudBigtableSpec bigtableSpec = new CloudBigtableSpec(BIGTABLE_FEATURE_ONLINE_STORE);
+    FeatureViewSpec featureViewSpec = new FeatureViewSpec(DEFAULT_BIGTABLE_FEATURE_VIEW);
+    when(BigtableDataClient.create(clientSetting.capture())).thenReturn(mockBigtableClient);
+    when(mockOnlineStoreServiceClient.generateFetchAccessToken(any()))
+        .thenReturn(
+            ACCESS_TOKEN_RESPONSE,
+            GenerateFetchAccessTokenResponse.newBuilder().setAccessToken("HIJKLMN").build());
+    BigtableClientManager manager =
+        new BigtableClientManager(
+            bigtableSpec, featureViewSpec, FV_NAME, LOCATION, Optional.empty());
+    BigtableClient client = manager.getClient();
+    GoogleCredentials credentials =
+        (GoogleCredentials)
+            clientSetting.getValue().getStubSettings().getCredentialsProvider().getCredentials();
+    assertThat(credentials.getAccessToken().getTokenValue()).isEqualTo(ACCESS_TOKEN);
+
+    manager.refreshAccessToken();
+
+    // The token of the client is replaced, and the client is kept.
+    assertThat(credentials.getAccessToken().getTokenValue()).isEqualTo("HIJKLMN");
+    assertThat(manager.getClient()).isSameInstanceAs(client);
+    verify(mockBigtableClient, never()).close();
+  }
+
+  @Test
+  public void refreshAccessToken_reusesTokenClient() throws Exception {
+    CloudBigtableSpec bigtableSpec = new CloudBigtableSpec(BIGTABLE_FEATURE_ONLINE_STORE);
+    FeatureViewSpec featureViewSpec = new FeatureViewSpec(DEFAULT_BIGTABLE_FEATURE_VIEW);
+    when(BigtableDataClient.create(any(BigtableDataSettings.class))).thenReturn(mockBigtableClient);
+    when(mockOnlineStoreServiceClient.generateFetchAccessToken(any()))
+        .thenReturn(ACCESS_TOKEN_RESPONSE);
+    BigtableClientManager manager =
+        new BigtableClientManager(
+            bigtableSpec, featureViewSpec, FV_NAME, LOCATION, Optional.empty());
+
+    manager.refreshAccessToken();
+    manager.refreshAccessToken();
+
+    verify(mockOnlineStoreServiceClient, times(3)).generateFetchAccessToken(any());
+    PowerMockito.verifyStatic(FeatureOnlineStoreServiceClient.class, times(1));
+    FeatureOnlineStoreServiceClient.create(any(FeatureOnlineStoreServiceSettings.class));
+    verify(mockOnlineStoreServiceClient, never()).close();
+
+    manager.shutdown();
+    verify(mockOnlineStoreServiceClient).close();
+  }
+
+  @Test
+  public void generateAccessToken_afterShutdown_doesNotRecreateTokenClient() throws Exception {
+    CloudBigtableSpec bigtableSpec = new CloudBigtableSpec(BIGTABLE_FEATURE_ONLINE_STORE);
+    FeatureViewSpec featureViewSpec = new FeatureViewSpec(DEFAULT_BIGTABLE_FEATURE_VIEW);
+    when(BigtableDataClient.create(any(BigtableDataSettings.class))).thenReturn(mockBigtableClient);
+    when(mockOnlineStoreServiceClient.generateFetchAccessToken(any()))
+        .thenReturn(ACCESS_TOKEN_RESPONSE);
+    BigtableClientManager manager =
+        new BigtableClientManager(
+            bigtableSpec, featureViewSpec, FV_NAME, LOCATION, Optional.empty());
+    manager.shutdown();
+
+    try {
+      manager.generateAccessToken();
+      Assert.fail("Exception should be thrown but did not");
+    } catch (IllegalStateException e) {
+      // pass
+    }
+    PowerMockito.verifyStatic(FeatureOnlineStoreServiceClient.class, times(1));
+    FeatureOnlineStoreServiceClient.create(any(FeatureOnlineStoreServiceSettings.class));
+    verify(mockOnlineStoreServiceClient, times(1)).generateFetchAccessToken(any());
+  }
+
+  @Test
+  public void addFeatureView_denied_throwsAndKeepsTokenFeatureView() throws Exception {
+    CloudBigtableSpec bigtableSpec = new CloudBigtableSpec(BIGTABLE_FEATURE_ONLINE_STORE);
+    FeatureViewSpec featureViewSpec = new FeatureViewSpec(DEFAULT_BIGTABLE_FEATURE_VIEW);
+    when(BigtableDataClient.create(any(BigtableDataSettings.class))).thenReturn(mockBigtableClient);
+    when(mockOnlineStoreServiceClient.generateFetchAccessToken(any()))
+        .thenReturn(ACCESS_TOKEN_RESPONSE);
+    when(mockOnlineStoreServiceClient.generateFetchAccessToken(forFeatureView(OTHER_FV_NAME)))
+        .thenThrow(
+            new PermissionDeniedException(
+                new Throwable("permission Denied"), getStatusCode(Code.PERMISSION_DENIED), false));
+    BigtableClientManager manager =
+        new BigtableClientManager(
+            bigtableSpec, featureViewSpec, FV_NAME, LOCATION, Optional.empty());
+
+    try {
+      manager.addFeatureView(OTHER_FV_NAME);
+      Assert.fail("Exception should be thrown but did not");
+    } catch (PermissionDeniedException e) {
+      // pass
+    }
+
+    // The denied FeatureView is not used for tokens, even once the first one is released.
+    manager.removeFeatureView(FV_NAME);
+    assertThat(manager.getTokenFeatureView()).isEqualTo(FV_NAME);
+    manager.shutdown();
+  }
+
+  @Test
+  public void removeFeatureView_ofTokens_generatesTokensForRemainingFeatureView()
+      throws Exception {
+    CloudBigtableSpec bigtableSpec = new CloudBigtableSpec(BIGTABLE_FEATURE_ONLINE_STORE);
+    FeatureViewSpec featureViewSpec = new FeatureViewSpec(DEFAULT_BIGTABLE_FEATURE_VIEW);
+    when(BigtableDataClient.create(any(BigtableDataSettings.class))).thenReturn(mockBigtableClient);
+    when(mockOnlineStoreServiceClient.generateFetchAccessToken(any()))
+        .thenReturn(ACCESS_TOKEN_RESPONSE);
+    BigtableClientManager manager =
+        new BigtableClientManager(
+            bigtableSpec, featureViewSpec, FV_NAME, LOCATION, Optional.empty());
+    manager.addFeatureView(OTHER_FV_NAME);
+    // A second client of the first FeatureView.
+    manager.addFeatureView(FV_NAME);
+
+    manager.removeFeatureView(FV_NAME);
+    assertThat(manager.getTokenFeatureView()).isEqualTo(FV_NAME);
+    manager.removeFeatureView(FV_NAME);
+    assertThat(manager.getTokenFeatureView()).isEqualTo(OTHER_FV_NAME);
+
+    manager.generateAccessToken();
+    verify(mockOnlineStoreServiceClient, times(2))
+        .generateFetchAccessToken(forFeatureView(OTHER_FV_NAME));
+    manager.shutdown();
+  }
+
+  @Test
+  public void generateAccessToken_tokenFeatureViewDeleted_usesOtherFeatureView() throws Exception {
+    CloudBigtableSpec bigtableSpec = new CloudBigtableSpec(BIGTABLE_FEATURE_ONLINE_STORE);
+    FeatureViewSpec featureViewSpec = new FeatureViewSpec(DEFAULT_BIGTABLE_FEATURE_VIEW);
+    when(BigtableDataClient.create(any(BigtableDataSettings.class))).thenReturn(mockBigtableClient);
+    when(mockOnlineStoreServiceClient.generateFetchAccessToken(any()))
+        .thenReturn(ACCESS_TOKEN_RESPONSE);
+    BigtableClientManager manager =
+        new BigtableClientManager(
+            bigtableSpec, featureViewSpec, FV_NAME, LOCATION, Optional.empty());
+    manager.addFeatureView(OTHER_FV_NAME);
+    when(mockOnlineStoreServiceClient.generateFetchAccessToken(forFeatureView(FV_NAME)))
+        .thenThrow(
+            new NotFoundException(
+                new Throwable("Feature View not found"), getStatusCode(Code.NOT_FOUND), false));
+
+    assertThat(manager.generateAccessToken().getTokenValue()).isEqualTo(ACCESS_TOKEN);
+
+    assertThat(manager.getTokenFeatureView()).isEqualTo(OTHER_FV_NAME);
+    manager.shutdown();
+  }
+
+  private static GenerateFetchAccessTokenRequest forFeatureView(String featureView) {
+    return argThat(request -> request != null && featureView.equals(request.getFeatureView()));
+  }
+
+  @Test
+  public void createConnection_drainsOldClientBeforeClosingIt() throws Exception {
+    CloudBigtableSpec bigtableSpec = new CloudBigtableSpec(BIGTABLE_FEATURE_ONLINE_STORE);
+    FeatureViewSpec featureViewSpec = new FeatureViewSpec(DEFAULT_BIGTABLE_FEATURE_VIEW);
+    BigtableDataClient newBigtableClient = mock(BigtableDataClient.class);
+    when(BigtableDataClient.create(any(BigtableDataSettings.class)))
+        .thenReturn(mockBigtableClient, newBigtableClient);
+    when(mockOnlineStoreServiceClient.generateFetchAccessToken(any()))
+        .thenReturn(ACCESS_TOKEN_RESPONSE);
+    SettableApiFuture<Row> inFlightRead = SettableApiFuture.create();
+    when(mockBigtableClient.readRowAsync(any(TableId.class), any(String.class), any(Filter.class)))
+        .thenReturn(inFlightRead);
+    when(newBigtableClient.readRowAsync(any(TableId.class), any(String.class), any(Filter.class)))
+        .thenReturn(ApiFutures.immediateFuture(null));
+    // The drain checks are run by the test rather than after their delay.
+    ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    BigtableClientManager manager =
+        new BigtableClientManager(
+            bigtableSpec,
+            featureViewSpec,
+            FV_NAME,
+            LOCATION,
+            Optional.empty(),
+            /* specSource= */ null,
+            scheduler);
+    BigtableClient oldClient = manager.getClient();
+    InternalFetchRequest request =
+        InternalFetchRequest.builder()
+            .featureViewId(FV_ID)
+            .dataKey("key")
+            .cloudBigtableSpec(bigtableSpec)
+            .featureViewSpec(featureViewSpec)
+            .build();
+    oldClient.fetchDataAsync(request);
+    clearInvocations(scheduler);
+
+    manager.createConnection();
+
+    // The new client is warmed up before it is swapped in.
+    verify(newBigtableClient, atLeastOnce())
+        .readRowAsync(any(TableId.class), any(String.class), any(Filter.class));
+    assertThat(manager.getClient()).isNotSameInstanceAs(oldClient);
+    // The old client is first checked after the grace period, and then polled while the read is in
+    // flight.
+    runScheduledDrainCheck(scheduler, /* delayMillis= */ 1000L);
+    runScheduledDrainCheck(scheduler, /* delayMillis= */ 100L);
+    verify(mockBigtableClient, never()).close();
+
+    inFlightRead.set(null);
+    runScheduledDrainCheck(scheduler, /* delayMillis= */ 100L);
+    verify(mockBigtableClient).close();
+    verifyNoMoreInteractions(scheduler);
+    manager.shutdown();
+    verify(newBigtableClient).close();
+  }
+
+  @Test
+  public void createConnection_shutDownWhileWarmingUp_closesNewClient() throws Exception {
+    CloudBigtableSpec bigtableSpec = new CloudBigtableSpec(BIGTABLE_FEATURE_ONLINE_STORE);
+    FeatureViewSpec featureViewSpec = new FeatureViewSpec(DEFAULT_BIGTABLE_FEATURE_VIEW);
+    BigtableDataClient newBigtableClient = mock(BigtableDataClient.class);
+    when(BigtableDataClient.create(any(BigtableDataSettings.class)))
+        .thenReturn(mockBigtableClient, newBigtableClient);
+    when(mockOnlineStoreServiceClient.generateFetchAccessToken(any()))
+        .thenReturn(ACCESS_TOKEN_RESPONSE);
+    SettableApiFuture<Row> warmUpRead = SettableApiFuture.create();
+    when(newBigtableClient.readRowAsync(any(TableId.class), any(String.class), any(Filter.class)))
+        .thenReturn(warmUpRead);
+    BigtableClientManager manager =
+        new BigtableClientManager(
+            bigtableSpec,
+            featureViewSpec,
+            FV_NAME,
+            LOCATION,
+            Optional.empty(),
+            /* specSource= */ null,
+            mock(ScheduledExecutorService.class));
+
+    Thread reconnect = new Thread(manager::createConnection);
+    reconnect.start();
+    // Shutting down does not wait for the warm-up, which does not hold the lock.
+    verify(newBigtableClient, timeout(5000).atLeastOnce())
+        .readRowAsync(any(TableId.class), any(String.class), any(Filter.class));
+    manager.shutdown();
+    verify(mockBigtableClient).close();
+
+    warmUpRead.set(null);
+    reconnect.join();
+    // The client created for the shut down manager is closed rather than swapped in.
+    verify(newBigtableClient).close();
+    assertThat(manager.getClient()).isNull();
+  }
+
+  // Runs the drain check which was scheduled last, after verifying its delay.
+  private static void runScheduledDrainCheck(ScheduledExecutorService scheduler, long delayMillis) {
+    ArgumentCaptor<Runnable> drainCheck = forClass(Runnable.class);
+    verify(scheduler).schedule(drainCheck.capture(), eq(delayMillis), eq(TimeUnit.MILLISECONDS));
+    clearInvocations(scheduler);
+    drainCheck.getValue().run();
+  }
+
+  @Test
+  public void checkSpecs_newReadAppProfile_reconnects() throws Exception {
+    CloudBigtableSpec bigtableSpec = new CloudBigtableSpec(BIGTABLE_FEATURE_ONLINE_STORE);
+    FeatureViewSpec featureViewSpec = new FeatureViewSpec(DEFAULT_BIGTABLE_FEATURE_VIEW);
+    FeatureViewSpec newFeatureViewSpec =
+        new FeatureViewSpec(
+            DEFAULT_BIGTABLE_FEATURE_VIEW.toBuilder()
+                .setBigtableMetadata(
+                    FeatureView.BigtableMetadata.newBuilder()
+                        .setReadAppProfile("new-read-app-profile")
+                        .build())
+                .build());
+    BigtableDataClient newBigtableClient = mock(BigtableDataClient.class);
+    when(BigtableDataClient.create(any(BigtableDataSettings.class)))
+        .thenReturn(mockBigtableClient, newBigtableClient);
+    when(mockOnlineStoreServiceClient.generateFetchAccessToken(any()))
+        .thenReturn(ACCESS_TOKEN_RESPONSE);
+    when(newBigtableClient.readRowAsync(any(TableId.class), any(String.class), any(Filter.class)))
+        .thenReturn(ApiFutures.immediateFuture(null));
+    FeatureViewSpec[] currentFeatureViewSpec = {featureViewSpec};
+    BigtableClientManager manager =
+        new BigtableClientManager(
+            bigtableSpec,
+            featureViewSpec,
+            FV_NAME,
+            LOCATION,
+            Optional.empty(),
+            specSource(bigtableSpec, currentFeatureViewSpec));
+    BigtableClient oldClient = manager.getClient();
+
+    // Unchanged specs keep the connection.
+    manager.checkSpecs();
+    assertThat(manager.getClient()).isSameInstanceAs(oldClient);
+
+    currentFeatureViewSpec[0] = newFeatureViewSpec;
+    manager.checkSpecs();
+
+    ArgumentCaptor<BigtableDataSettings> settingsCaptor = forClass(BigtableDataSettings.class);
+    PowerMockito.verifyStatic(BigtableDataClient.class, times(2));
+    BigtableDataClient.create(settingsCaptor.capture());
+    assertThat(settingsCaptor.getAllValues().get(1).getAppProfileId())
+        .isEqualTo("new-read-app-profile");
+    // The new client is warmed up before it is swapped in, and the old one is drained.
+    verify(newBigtableClient, atLeastOnce())
+        .readRowAsync(any(TableId.class), any(String.class), any(Filter.class));
+    assertThat(manager.getClient()).isNotSameInstanceAs(oldClient);
+    verify(mockBigtableClient, timeout(3000)).close();
+    manager.shutdown();
+    verify(newBigtableClient).close();
+  }
+
+  @Test
+  public void checkSpecs_afterShutdown_doesNotReconnect() throws Exception {
+    CloudBigtableSpec bigtableSpec = new CloudBigtableSpec(BIGTABLE_FEATURE_ONLINE_STORE);
+    FeatureViewSpec featureViewSpec = new FeatureViewSpec(DEFAULT_BIGTABLE_FEATURE_VIEW);
+    when(BigtableDataClient.create(any(BigtableDataSettings.class)))
+        .thenReturn(mockBigtableClient);
+    when(mockOnlineStoreServiceClient.generateFetchAccessToken(any()))
+        .thenReturn(ACCESS_TOKEN_RESPONSE);
+    FeatureViewSpec[] currentFeatureViewSpec = {featureViewSpec};
+    BigtableClientManager manager =
+        new BigtableClientManager(
+            bigtableSpec,
+            featureViewSpec,
+            FV_NAME,
+            LOCATION,
+            Optional.empty(),
+            specSource(bigtableSpec, currentFeatureViewSpec));
+    manager.shutdown();
+
+    currentFeatureViewSpec[0] =
+        new FeatureViewSpec(
+            DEFAULT_BIGTABLE_FEATURE_VIEW.toBuilder()
+                .setBigtableMetadata(
+                    FeatureView.BigtableMetadata.newBuilder()
+                        .setReadAppProfile("new-read-app-profile")
+                        .build())
+                .build());
+    manager.checkSpecs();
+
+    PowerMockito.verifyStatic(BigtableDataClient.class, times(1));
+    BigtableDataClient.create(any(BigtableDataSettings.class));
+  }
+
+  // Returns the given CloudBigtableSpec, and the FeatureViewSpec which is currently in the array.
+  private static BigtableClientManager.SpecSource specSource(
+      CloudBigtableSpec bigtableSpec, FeatureViewSpec[] featureViewSpec) {
+    return new BigtableClientManager.SpecSource() {
+      @Override
+      public CloudBigtableSpec getCloudBigtableSpec() {
+        return bigtableSpec;
+      }
+
+      @Override
+      public FeatureViewSpec getFeatureViewSpec() {
+        return featureViewSpec[0];
+      }
+    };
+  }
+
   private StatusCode getStatusCode(StatusCode.Code code){
     return new StatusCode() {
       @Override
@@ -19,9 +19,16 @@ import static com.google.cloud.bigtable.data.v2.models.Filters.FILTERS;
 import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.ArgumentCaptor.forClass;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.mock;
 import static org.powermock.api.mockito.PowerMockito.when;
 
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
+import com.google.api.gax.rpc.ResponseObserver;
 import com.google.cloud.aiplatform.v1.FeatureOnlineStore;
 import com.google.cloud.aiplatform.v1.FeatureOnlineStore.Bigtable;
 import com.google.cloud.aiplatform.v1.FeatureOnlineStore.Bigtable.AutoScaling;
@@ -30,8 +37,11 @@ import com.google.cloud.aiplatform.v1.FeatureView;
 import com.google.cloud.aiplatform.v1.FeatureView.SyncConfig;
 import com.google.cloud.aiplatform.v1.FeatureViewDataFormat;
 import com.google.cloud.bigtable.data.v2.BigtableDataClient;
+import com.google.cloud.bigtable.data.v2.internal.RequestContext;
 import com.google.cloud.bigtable.data.v2.models.Filters.Filter;
+import com.google.cloud.bigtable.data.v2.models.Query;
 import com.google.cloud.bigtable.data.v2.models.Row;
+import com.google.cloud.bigtable.data.v2.models.RowAdapter;
 import com.google.cloud.bigtable.data.v2.models.RowCell;
 import com.google.cloud.bigtable.data.v2.models.TableId;
 import com.google.common.collect.ImmutableList;
@@ -39,6 +49,8 @@ import com.google.protobuf.ByteString;
 import com.google.protobuf.Timestamp;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import java.time.Duration;
+import java.util.List;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -264,4 +276,124 @@ public final class BigtableClientTest {
       // pass
     }
   }
+
+  @Test
+  public void fetchDataAsync_inFlightUntilDone() throws Exception {
+    SettableApiFuture<Row> read = SettableApiFuture.create();
+    when(mockBigtableClient.readRowAsync(any(TableId.class), any(String.class), any(Filter.class)))
+        .thenReturn(read);
+    BigtableClient bigtableClient =
+        BigtableClient.create(String.format("s", PROJECT_NUMBER), BIGTABLE_INSTANCE_ID, "", "");
+
+    ApiFuture<Row> result = bigtableClient.fetchDataAsync(DEFAULT_REQUEST);
+    assertThat(bigtableClient.getInFlightCount()).isEqualTo(1);
+
+    read.set(SAMPLE_ROW);
+    assertThat(result.get()).isEqualTo(SAMPLE_ROW);
+    assertThat(bigtableClient.getInFlightCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void warmUp_readsNoRow() throws Exception {
+    when(mockBigtableClient.readRowAsync(any(TableId.class), any(String.class), any(Filter.class)))
+        .thenReturn(ApiFutures.immediateFuture(null));
+    BigtableClient bigtableClient =
+        BigtableClient.create(String.format("s", PROJECT_NUMBER), BIGTABLE_INSTANCE_ID, "", "");
+
+    assertThat(bigtableClient.warmUp(BIGTABLE_TABLE_ID, Duration.ofSeconds(1))).isTrue();
+    verify(mockBigtableClient, atLeastOnce())
+        .readRowAsync(any(TableId.class), any(String.class), any(Filter.class));
+    assertThat(bigtableClient.getInFlightCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void warmUp_timesOut() throws Exception {
+    when(mockBigtableClient.readRowAsync(any(TableId.class), any(String.class), any(Filter.class)))
+        .thenReturn(SettableApiFuture.create());
+    BigtableClient bigtableClient =
+        BigtableClient.create(String.format("s", PROJECT_NUMBER), BIGTABLE_INSTANCE_ID, "", "");
+
+    assertThat(bigtableClient.warmUp(BIGTABLE_TABLE_ID, Duration.ofMillis(10))).isFalse();
+  }
+
+  @Test
+  public void revalidateAsync_readsNewerTimestampsAndExistenceWithoutValues() throws Exception {
+    ArgumentCaptor<Query> queryCaptor = forClass(Query.class);
+    doAnswer(
+            invocation -> {
+              ResponseObserver<Row> observer = invocation.getArgument(1);
+              observer.onResponse(SAMPLE_ROW);
+              observer.onComplete();
+              return null;
+            })
+        .when(mockBigtableClient)
+        .readRowsAsync(queryCaptor.capture(), any());
+    BigtableClient bigtableClient =
+        BigtableClient.create(String.format("s", PROJECT_NUMBER), BIGTABLE_INSTANCE_ID, "", "");
+    InternalFetchRequest request =
+        DEFAULT_REQUEST.withDataKeys(ImmutableList.of("key1", "key2"));
+
+    List<Row> rows = bigtableClient.revalidateAsync(request, 1000L).get();
+
+    assertThat(rows).containsExactly(SAMPLE_ROW);
+    Filter expectedFilter =
+        FILTERS
+            .chain()
+            .filter(
+                FILTERS
+                    .chain()
+                    .filter(
+                        FILTERS
+                            .qualifier()
+                            .rangeWithinFamily(FV_ID)
+                            .startClosed("default")
+                            .endClosed("dw"))
+                    .filter(FILTERS.limit().cellsPerColumn(1)))
+            .filter(
+                FILTERS
+                    .interleave()
+                    .filter(FILTERS.timestamp().range().startClosed(1001L))
+                    .filter(FILTERS.limit().cellsPerRow(1)))
+            .filter(FILTERS.value().strip());
+    assertThat(
+            queryCaptor
+                .getValue()
+                .toProto(RequestContext.create(TENANT_PROJECT_ID, BIGTABLE_INSTANCE_ID, ""))
+                .getFilter())
+        .isEqualTo(expectedFilter.toProto());
+  }
+
+  @Test
+  public void batchFetchFeatureViewCellsAsync_decodesRows() throws Exception {
+    FeatureViewInternalStorage storage =
+        FeatureViewInternalStorage.newBuilder()
+            .addFeatureData(FeatureViewInternalStorage.FeatureData.newBuilder().setName("test"))
+            .build();
+    Row row =
+        Row.create(
+            ByteString.copyFromUtf8("key1"),
+            ImmutableList.of(
+                RowCell.create(
+                    FV_ID,
+                    ByteString.copyFromUtf8("default"),
+                    2000,
+                    ImmutableList.<String>of(),
+                    storage.toByteString())));
+    when(mockBigtableClient.readRowsCallable(any(RowAdapter.class)))
+        .thenAnswer(
+            invocation -> new FakeReadRowsCallable<>(invocation.getArgument(0), ImmutableList.of(row)));
+    BigtableClient bigtableClient =
+        BigtableClient.create(String.format("s", PROJECT_NUMBER), BIGTABLE_INSTANCE_ID, "", "");
+
+    List<FeatureViewCell> cells =
+        bigtableClient
+            .batchFetchFeatureViewCellsAsync(
+                DEFAULT_REQUEST.withDataKeys(ImmutableList.of("key1", "key2")))
+            .get();
+
+    assertThat(cells).hasSize(1);
+    assertThat(cells.get(0).getStringKey()).isEqualTo("key1");
+    assertThat(cells.get(0).getInternalStorage()).isEqualTo(storage);
+    assertThat(cells.get(0).getTimestampMs()).isEqualTo(2);
+  }
 }
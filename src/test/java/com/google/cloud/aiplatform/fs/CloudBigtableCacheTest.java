@@ -25,7 +25,10 @@ import com.google.cloud.aiplatform.v1.FeatureOnlineStore.Bigtable;
 import com.google.cloud.aiplatform.v1.FeatureOnlineStore.Bigtable.AutoScaling;
 import com.google.cloud.aiplatform.v1.FeatureOnlineStore.Bigtable.BigtableMetadata;
 import com.google.cloud.aiplatform.v1.FeatureOnlineStore.Optimized;
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.MoreExecutors;
 import io.grpc.StatusRuntimeException;
+import java.time.Duration;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -64,6 +67,19 @@ public final class CloudBigtableCacheTest {
               .build())
           .build();
 
+  private static class FakeTicker extends Ticker {
+    private long nanos;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    void advance(Duration duration) {
+      nanos += duration.toNanos();
+    }
+  }
+
   @Test
   public void loadingCache_bigtable_success() throws Exception {
     // Prepare
@@ -188,4 +204,24 @@ public final class CloudBigtableCacheTest {
       // pass
     }
   }
+
+  @Test
+  public void loadingCache_refreshFails_keepsLastSpec() throws Exception {
+    MockFeatureOnlineStoreAdminServiceClientFactory factory =
+        new MockFeatureOnlineStoreAdminServiceClientFactory();
+    FakeTicker ticker = new FakeTicker();
+    CloudBigtableCache cache =
+        new CloudBigtableCache(
+            factory, Duration.ofMinutes(5), MoreExecutors.directExecutor(), ticker);
+    MockFeatureOnlineStoreAdminService mockService = factory.getMockService();
+    mockService.addResponse(BIGTABLE_FEATURE_ONLINE_STORE);
+    cache.getCloudBigtableSpec(FOS_NAME);
+
+    mockService.addException(new StatusRuntimeException(io.grpc.Status.UNAVAILABLE));
+    ticker.advance(Duration.ofMinutes(6));
+
+    // The failed refresh is not surfaced, and the last spec is still served.
+    CloudBigtableSpec spec = cache.getCloudBigtableSpec(FOS_NAME);
+    assertThat(spec.instanceId).isEqualTo(BIGTABLE_INSTANCE_ID);
+  }
 }
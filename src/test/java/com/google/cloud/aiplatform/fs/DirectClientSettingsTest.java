@@ -33,6 +33,7 @@ import com.google.auth.oauth2.GoogleCredentials;
 import java.time.Duration;
 import java.util.Date;
 import java.util.Set;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -218,4 +219,32 @@ public class DirectClientSettingsTest {
     assertThat(retrievedProvider).isNotNull();
     assertThat(retrievedProvider).isEqualTo(credentialsProvider);
   }
+
+  @Test
+  public void directClientSettings_nonPositiveCoalescingWindow_throws() throws Exception {
+    for (Duration window : new Duration[] {Duration.ZERO, Duration.ofMillis(-1)}) {
+      try {
+        new DirectClientSettings.Builder().setCoalescingWindow(window);
+        Assert.fail("Exception should be thrown but did not");
+      } catch (IllegalArgumentException e) {
+        assertThat(e).hasMessageThat().contains("Coalescing window must be positive");
+      }
+    }
+    // A null window disables coalescing.
+    DirectClientSettings settings =
+        new DirectClientSettings.Builder().setCoalescingWindow(null).build();
+    assertThat(settings.getCoalescingWindow()).isNull();
+  }
+
+  @Test
+  public void directClientSettings_nonPositiveMaxCoalescedBatchSize_throws() throws Exception {
+    for (int size : new int[] {0, -1}) {
+      try {
+        new DirectClientSettings.Builder().setMaxCoalescedBatchSize(size);
+        Assert.fail("Exception should be thrown but did not");
+      } catch (IllegalArgumentException e) {
+        assertThat(e).hasMessageThat().contains("Max coalesced batch size must be at least 1");
+      }
+    }
+  }
 }
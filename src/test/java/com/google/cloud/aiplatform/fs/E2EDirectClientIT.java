@@ -30,9 +30,14 @@ import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse.FeatureNameValu
 import com.google.cloud.aiplatform.v1.StringArray;
 import com.google.common.collect.ImmutableMap;
 import com.google.protobuf.ByteString;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -96,6 +101,57 @@ public class E2EDirectClientIT {
         assertThat(actual).ignoringRepeatedFieldOrder().containsExactlyElementsIn(expected);
     }
 
+    @Test
+    public void connection_refresh_p99_test() throws Exception {
+        FetchFeatureValuesRequest request = testData.keySet().iterator().next();
+        // Warm up the channels and the JIT.
+        measureLatencies(request, Duration.ofSeconds(5));
+        long p99Before = p99(measureLatencies(request, Duration.ofSeconds(10)));
+
+        // Replace the Bigtable connection in the middle of the load, as a spec change does.
+        ExecutorService load = Executors.newSingleThreadExecutor();
+        Future<List<Long>> acrossSwap =
+                load.submit(() -> measureLatencies(request, Duration.ofSeconds(10)));
+        Thread.sleep(3000);
+        client.getBigtableClientManager().createConnection();
+        long p99AcrossSwap = p99(acrossSwap.get());
+        load.shutdown();
+
+        // Leaves room for network noise, but not for the handshakes of cold channels.
+        assertThat(p99AcrossSwap).isAtMost(Math.max(2 * p99Before, p99Before + 20_000_000L));
+    }
+
+    // Sends the request from several threads for the duration, and returns the latencies in nanos.
+    private static List<Long> measureLatencies(FetchFeatureValuesRequest request, Duration duration)
+            throws Exception {
+        int threadCount = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        long endNanos = System.nanoTime() + duration.toNanos();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            workers.add(executor.submit(() -> {
+                while (System.nanoTime() < endNanos) {
+                    long start = System.nanoTime();
+                    client.fetchFeatureValues(request);
+                    latencies.add(System.nanoTime() - start);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+        return latencies;
+    }
+
+    private static long p99(List<Long> latencies) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+    }
+
     public static void setupTestData() {
         FetchFeatureValuesRequest request10001 = FetchFeatureValuesRequest.newBuilder()
             .setFeatureView(featureViewPath)
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import com.google.api.gax.rpc.ApiCallContext;
+import com.google.api.gax.rpc.ResponseObserver;
+import com.google.api.gax.rpc.ServerStreamingCallable;
+import com.google.api.gax.rpc.StreamController;
+import com.google.cloud.bigtable.data.v2.models.Query;
+import com.google.cloud.bigtable.data.v2.models.Row;
+import com.google.cloud.bigtable.data.v2.models.RowAdapter;
+import com.google.cloud.bigtable.data.v2.models.RowAdapter.RowBuilder;
+import com.google.cloud.bigtable.data.v2.models.RowCell;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Fake of the callable returned by {@code BigtableDataClient.readRowsCallable(RowAdapter)}. It
+ * streams the given rows through the adapter, as Bigtable does, regardless of the query.
+ */
+final class FakeReadRowsCallable<RowT> extends ServerStreamingCallable<Query, RowT> {
+
+  private final RowAdapter<RowT> adapter;
+  private final List<Row> rows;
+
+  FakeReadRowsCallable(RowAdapter<RowT> adapter, List<Row> rows) {
+    this.adapter = adapter;
+    this.rows = rows;
+  }
+
+  // Builds the row with the adapter, cell by cell.
+  static <RowT> RowT adapt(RowAdapter<RowT> adapter, Row row) {
+    RowBuilder<RowT> builder = adapter.createRowBuilder();
+    builder.startRow(row.getKey());
+    for (RowCell cell : row.getCells()) {
+      builder.startCell(
+          cell.getFamily(),
+          cell.getQualifier(),
+          cell.getTimestamp(),
+          cell.getLabels(),
+          cell.getValue().size());
+      builder.cellValue(cell.getValue());
+      builder.finishCell();
+    }
+    return builder.finishRow();
+  }
+
+  @Override
+  public void call(Query query, ResponseObserver<RowT> observer, ApiCallContext context) {
+    Stream stream = new Stream(observer);
+    observer.onStart(stream);
+    if (stream.autoFlowControl) {
+      stream.request(Integer.MAX_VALUE);
+    }
+  }
+
+  // Sends the rows as the observer requests them. A ServerStream only buffers one row, so it
+  // fails if rows are pushed before it asks for them.
+  private final class Stream implements StreamController {
+
+    private final ResponseObserver<RowT> observer;
+    private final Iterator<Row> remaining = rows.iterator();
+    private boolean autoFlowControl = true;
+    private int requested;
+    private boolean sending;
+    private boolean done;
+
+    Stream(ResponseObserver<RowT> observer) {
+      this.observer = observer;
+    }
+
+    @Override
+    public void cancel() {
+      done = true;
+    }
+
+    @Override
+    public void disableAutoInboundFlowControl() {
+      autoFlowControl = false;
+    }
+
+    @Override
+    public void request(int count) {
+      requested = (int) Math.min((long) requested + count, Integer.MAX_VALUE);
+      // The observer may request more rows from onResponse.
+      if (sending) {
+        return;
+      }
+      sending = true;
+      try {
+        send();
+      } finally {
+        sending = false;
+      }
+    }
+
+    private void send() {
+      while (!done && requested > 0 && remaining.hasNext()) {
+        requested--;
+        RowT row;
+        try {
+          row = adapt(adapter, remaining.next());
+        } catch (RuntimeException e) {
+          done = true;
+          observer.onError(e);
+          return;
+        }
+        observer.onResponse(row);
+      }
+      if (!done && !remaining.hasNext()) {
+        done = true;
+        observer.onComplete();
+      }
+    }
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.api.gax.rpc.InternalException;
+import com.google.api.gax.rpc.InvalidArgumentException;
+import com.google.cloud.aiplatform.fs.FeatureViewInternalStorage.FeatureData;
+import com.google.cloud.aiplatform.v1.FeatureValue;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import java.io.ByteArrayOutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class FeatureColumnWriterTest {
+
+  private static final InternalFetchRequest REQUEST =
+      InternalFetchRequest.builder()
+          .featureViewId("my_feature_view")
+          .featureViewSpec(new FeatureViewSpec(false, "profile", false))
+          .build();
+
+  private static final FeatureSchema SCHEMA =
+      FeatureSchema.newBuilder()
+          .addDoubleFeature("price")
+          .addLongFeature("count")
+          .addBooleanFeature("flag")
+          .addDoubleFeature("widened")
+          .build();
+
+  private static FeatureData feature(String name, FeatureValue value) {
+    return FeatureData.newBuilder().setName(name).addValues(value).build();
+  }
+
+  private static final FeatureViewInternalStorage STORAGE =
+      FeatureViewInternalStorage.newBuilder()
+          .addFeatureData(
+              feature("other", FeatureValue.newBuilder().setStringValue("skipped").build()))
+          .addFeatureData(feature("flag", FeatureValue.newBuilder().setBoolValue(true).build()))
+          .addFeatureData(feature("price", FeatureValue.newBuilder().setDoubleValue(1.5).build()))
+          .addFeatureData(feature("count", FeatureValue.newBuilder().setInt64Value(42).build()))
+          .addFeatureData(feature("widened", FeatureValue.newBuilder().setInt64Value(3).build()))
+          .build();
+
+  @Test
+  public void writeCell_writesSchemaFeatures() throws Exception {
+    PrimitiveColumns columns = new PrimitiveColumns(SCHEMA, 1);
+
+    new FeatureColumnWriter(SCHEMA, columns, REQUEST).writeCell(STORAGE.toByteString(), 0, "key");
+
+    assertThat(columns.getDoubleColumn(0)[0]).isEqualTo(1.5);
+    assertThat(columns.getLongColumn(1)[0]).isEqualTo(42);
+    assertThat(columns.getBooleanColumn(2)[0]).isTrue();
+    assertThat(columns.getDoubleColumn(3)[0]).isEqualTo(3.0);
+    for (int column = 0; column < SCHEMA.getColumnCount(); column++) {
+      assertThat(columns.isNull(column, 0)).isFalse();
+    }
+  }
+
+  @Test
+  public void writeCell_missingFeaturesAreNull() throws Exception {
+    FeatureViewInternalStorage storage =
+        FeatureViewInternalStorage.newBuilder()
+            .addFeatureData(feature("count", FeatureValue.newBuilder().setInt64Value(7).build()))
+            .addFeatureData(FeatureData.newBuilder().setName("price"))
+            .addFeatureData(feature("flag", FeatureValue.getDefaultInstance()))
+            .build();
+    PrimitiveColumns columns = new PrimitiveColumns(SCHEMA, 2);
+    FeatureColumnWriter writer = new FeatureColumnWriter(SCHEMA, columns, REQUEST);
+
+    writer.writeCell(storage.toByteString(), 0, "key");
+    writer.writeNullRow(1);
+
+    assertThat(columns.getLongColumn(1)[0]).isEqualTo(7);
+    assertThat(columns.getNulls(0).get(0)).isTrue();
+    assertThat(columns.getNulls(1).get(0)).isFalse();
+    assertThat(columns.getNulls(2).get(0)).isTrue();
+    assertThat(columns.getNulls(3).get(0)).isTrue();
+    for (int column = 0; column < SCHEMA.getColumnCount(); column++) {
+      assertThat(columns.isNull(column, 1)).isTrue();
+    }
+  }
+
+  @Test
+  public void writeCell_valueWithOtherFieldsAndValueBeforeName() throws Exception {
+    FeatureValue withMetadata =
+        FeatureValue.newBuilder()
+            .setDoubleValue(2.5)
+            .setMetadata(FeatureValue.Metadata.getDefaultInstance())
+            .build();
+    // FeatureData of "count" with its value written before its name.
+    ByteArrayOutputStream featureData = new ByteArrayOutputStream();
+    CodedOutputStream featureDataOutput = CodedOutputStream.newInstance(featureData);
+    featureDataOutput.writeMessage(
+        FeatureData.VALUES_FIELD_NUMBER, FeatureValue.newBuilder().setInt64Value(9).build());
+    featureDataOutput.writeString(FeatureData.NAME_FIELD_NUMBER, "count");
+    featureDataOutput.flush();
+    ByteArrayOutputStream storage = new ByteArrayOutputStream();
+    CodedOutputStream storageOutput = CodedOutputStream.newInstance(storage);
+    storageOutput.writeMessage(
+        FeatureViewInternalStorage.FEATURE_DATA_FIELD_NUMBER, feature("price", withMetadata));
+    storageOutput.writeBytes(
+        FeatureViewInternalStorage.FEATURE_DATA_FIELD_NUMBER,
+        ByteString.copyFrom(featureData.toByteArray()));
+    storageOutput.flush();
+    PrimitiveColumns columns = new PrimitiveColumns(SCHEMA, 1);
+
+    new FeatureColumnWriter(SCHEMA, columns, REQUEST)
+        .writeCell(ByteString.copyFrom(storage.toByteArray()), 0, "key");
+
+    assertThat(columns.getDoubleColumn(0)[0]).isEqualTo(2.5);
+    assertThat(columns.getLongColumn(1)[0]).isEqualTo(9);
+  }
+
+  @Test
+  public void writeCell_typeMismatch_throws() throws Exception {
+    FeatureViewInternalStorage storage =
+        FeatureViewInternalStorage.newBuilder()
+            .addFeatureData(feature("count", FeatureValue.newBuilder().setDoubleValue(1).build()))
+            .build();
+    PrimitiveColumns columns = new PrimitiveColumns(SCHEMA, 1);
+    try {
+      new FeatureColumnWriter(SCHEMA, columns, REQUEST).writeCell(storage.toByteString(), 0, "key");
+      Assert.fail("Exception should be thrown but did not");
+    } catch (InvalidArgumentException e) {
+      assertThat(e.getMessage()).contains("Feature 'count' of key 'key'");
+    }
+  }
+
+  @Test
+  public void writeCell_multipleValues_throws() throws Exception {
+    FeatureViewInternalStorage storage =
+        FeatureViewInternalStorage.newBuilder()
+            .addFeatureData(
+                FeatureData.newBuilder()
+                    .setName("count")
+                    .addValues(FeatureValue.newBuilder().setInt64Value(1))
+                    .addValues(FeatureValue.newBuilder().setInt64Value(2)))
+            .build();
+    PrimitiveColumns columns = new PrimitiveColumns(SCHEMA, 1);
+    try {
+      new FeatureColumnWriter(SCHEMA, columns, REQUEST).writeCell(storage.toByteString(), 0, "key");
+      Assert.fail("Exception should be thrown but did not");
+    } catch (InternalException e) {
+      assertThat(e.getMessage()).contains("Multiple feature values is not yet supported");
+    }
+  }
+
+  @Test
+  public void writeResponse_sameAsWriteCell() throws Exception {
+    FetchFeatureValuesResponse response =
+        FetchFeatureValuesResponse.newBuilder()
+            .setKeyValues(Converter.internalStorageToKeyValuesList(STORAGE, REQUEST))
+            .build();
+    PrimitiveColumns fromCell = new PrimitiveColumns(SCHEMA, 1);
+    PrimitiveColumns fromResponse = new PrimitiveColumns(SCHEMA, 1);
+
+    new FeatureColumnWriter(SCHEMA, fromCell, REQUEST).writeCell(STORAGE.toByteString(), 0, "key");
+    new FeatureColumnWriter(SCHEMA, fromResponse, REQUEST).writeResponse(response, 0, "key");
+
+    assertThat(fromResponse.getDoubleColumn(0)).isEqualTo(fromCell.getDoubleColumn(0));
+    assertThat(fromResponse.getLongColumn(1)).isEqualTo(fromCell.getLongColumn(1));
+    assertThat(fromResponse.getBooleanColumn(2)).isEqualTo(fromCell.getBooleanColumn(2));
+    assertThat(fromResponse.getDoubleColumn(3)).isEqualTo(fromCell.getDoubleColumn(3));
+  }
+}
@@ -20,11 +20,14 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.mock;
 import static org.powermock.api.mockito.PowerMockito.when;
 
+import com.google.api.core.ApiFutures;
 import com.google.api.gax.retrying.RetrySettings;
-import com.google.api.gax.rpc.ServerStream;
+import com.google.api.gax.rpc.NotFoundException;
 import com.google.cloud.aiplatform.fs.FeatureViewInternalStorage.FeatureData;
 import com.google.cloud.aiplatform.v1.FeatureOnlineStore;
 import com.google.cloud.aiplatform.v1.FeatureOnlineStore.Bigtable;
@@ -43,11 +46,12 @@ import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse.FeatureNameValu
 import com.google.cloud.aiplatform.v1.GenerateFetchAccessTokenResponse;
 import com.google.cloud.bigtable.data.v2.BigtableDataClient;
 import com.google.cloud.bigtable.data.v2.models.Filters.Filter;
-import com.google.cloud.bigtable.data.v2.models.Query;
 import com.google.cloud.bigtable.data.v2.models.Row;
+import com.google.cloud.bigtable.data.v2.models.RowAdapter;
 import com.google.cloud.bigtable.data.v2.models.RowCell;
 import com.google.cloud.bigtable.data.v2.models.TableId;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.Timestamp;
 import com.google.protobuf.util.Timestamps;
@@ -56,6 +60,7 @@ import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -254,14 +259,97 @@ public final class FeatureOnlineStoreDirectClientTest {
   }
 
   @Test
-  public void batchFetchFeatureValues_keyValue_success() {
-    // Set the response for Bigtable.readRows API.
-    List<Row> expectedRows = Arrays.asList(SAMPLE_ROW, SAMPLE_ROW_2);
-    ServerStream<Row> mockRowStream = org.mockito.Mockito.mock(ServerStream.class);
-    org.mockito.Mockito.when(mockRowStream.iterator()).thenReturn(expectedRows.iterator());
+  public void create_connectionSharingEnabled_sharesBigtableConnection() throws Exception {
+    when(mockBigtableClient.readRow(any(TableId.class), anyString(), any(Filter.class)))
+        .thenReturn(SAMPLE_ROW);
+    DirectClientSettings settings =
+        new DirectClientSettings.Builder().setConnectionSharingEnabled(true).build();
+    FeatureOnlineStoreDirectClient client =
+        FeatureOnlineStoreDirectClient.create(FV_NAME, settings);
+    FeatureOnlineStoreDirectClient otherClient =
+        FeatureOnlineStoreDirectClient.create(FV_NAME, settings);
+    FetchFeatureValuesRequest request = FetchFeatureValuesRequest.newBuilder()
+        .setFeatureView(FV_NAME)
+        .setDataFormat(FeatureViewDataFormat.KEY_VALUE)
+        .setDataKey(FeatureViewDataKey.newBuilder().setKey("entityId").build())
+        .build();
+
+    PowerMockito.verifyStatic(BigtableDataClient.class, times(1));
+    BigtableDataClient.create(any());
+    // Each client checks its own access to the FeatureView.
+    verify(mockOnlineStoreServiceClient, times(2)).generateFetchAccessToken(any());
+
+    // The connection stays open until the last client is closed.
+    client.close();
+    client.close();
+    assertThat(otherClient.fetchFeatureValues(request).getKeyValues().getFeaturesCount())
+        .isEqualTo(1);
+    verify(mockBigtableClient, times(0)).close();
+    otherClient.close();
+    verify(mockBigtableClient, times(1)).close();
+  }
+
+  @Test
+  public void fetchSerializedFeatureValues_keyValue_success() throws Exception {
+    when(mockBigtableClient.readRow(any(TableId.class), anyString(), any(Filter.class)))
+        .thenReturn(SAMPLE_ROW);
+    FeatureOnlineStoreDirectClient client = FeatureOnlineStoreDirectClient.create(FV_NAME, "");
+    FetchFeatureValuesRequest request = FetchFeatureValuesRequest.newBuilder()
+        .setFeatureView(FV_NAME)
+        .setDataFormat(FeatureViewDataFormat.KEY_VALUE)
+        .setDataKey(FeatureViewDataKey.newBuilder().setKey("entityId").build())
+        .build();
+
+    PassThroughResponse response = client.fetchSerializedFeatureValues(request);
+
+    assertThat(FetchFeatureValuesResponse.parseFrom(response.toByteString()))
+        .isEqualTo(client.fetchFeatureValues(request));
+  }
 
-    // Stub the readRows method to return the mocked stream
-    when(mockBigtableClient.readRows(any(Query.class))).thenReturn(mockRowStream);
+  @Test
+  public void fetchLazyFeatureValues_keyValue_success() throws Exception {
+    when(mockBigtableClient.readRow(any(TableId.class), anyString(), any(Filter.class)))
+        .thenReturn(SAMPLE_ROW);
+    FeatureOnlineStoreDirectClient client = FeatureOnlineStoreDirectClient.create(FV_NAME, "");
+    FetchFeatureValuesRequest request = FetchFeatureValuesRequest.newBuilder()
+        .setFeatureView(FV_NAME)
+        .setDataFormat(FeatureViewDataFormat.KEY_VALUE)
+        .setDataKey(FeatureViewDataKey.newBuilder().setKey("entityId").build())
+        .build();
+
+    LazyFetchFeatureValuesResponse response = client.fetchLazyFeatureValues(request);
+
+    assertThat(response.getFeatureValue("test"))
+        .isEqualTo(FeatureValue.newBuilder().setStringValue("sample feature value").build());
+    assertThat(response.toResponse()).isEqualTo(client.fetchFeatureValues(request));
+  }
+
+  @Test
+  public void fetchSerializedFeatureValues_notFound() throws Exception {
+    when(mockBigtableClient.readRow(any(TableId.class), anyString(), any(Filter.class)))
+        .thenReturn(null);
+    FeatureOnlineStoreDirectClient client = FeatureOnlineStoreDirectClient.create(FV_NAME, "");
+    FetchFeatureValuesRequest request = FetchFeatureValuesRequest.newBuilder()
+        .setFeatureView(FV_NAME)
+        .setDataFormat(FeatureViewDataFormat.KEY_VALUE)
+        .setDataKey(FeatureViewDataKey.newBuilder().setKey("entityId").build())
+        .build();
+    try {
+      client.fetchSerializedFeatureValues(request);
+      Assert.fail("Exception should be thrown");
+    } catch (NotFoundException e) {
+      // pass
+    }
+  }
+
+  @Test
+  public void batchFetchFeatureValues_keyValue_success() {
+    // Stream the rows through the RowAdapter passed to Bigtable.readRowsCallable API.
+    when(mockBigtableClient.readRowsCallable(any(RowAdapter.class)))
+        .thenAnswer(
+            invocation ->
+                new FakeReadRowsCallable<>(
+                    invocation.getArgument(0), Arrays.asList(SAMPLE_ROW, SAMPLE_ROW_2)));
 
     List<FetchFeatureValuesResponse> expectedResponses = new ArrayList<>();
     expectedResponses.add(FetchFeatureValuesResponse.newBuilder()
@@ -339,4 +427,183 @@ public final class FeatureOnlineStoreDirectClientTest {
       Assert.fail("Exception should not be thrown");
     }
   }
+
+  @Test
+  public void fetchFeatureValuesAsync_keyValue_success() throws Exception {
+    // Set the response for Bigtable.readRowAsync API.
+    when(mockBigtableClient.readRowAsync(any(TableId.class), anyString(), any(Filter.class)))
+        .thenReturn(ApiFutures.immediateFuture(SAMPLE_ROW));
+    FetchFeatureValuesResponse expected = FetchFeatureValuesResponse.newBuilder()
+        .setKeyValues(
+            FeatureNameValuePairList.newBuilder()
+                .addFeatures(
+                    FeatureNameValuePair.newBuilder()
+                        .setName("test")
+                        .setValue(FeatureValue.newBuilder().setStringValue("sample feature value").build())
+                        .build())
+                .build())
+        .build();
+
+    FeatureOnlineStoreDirectClient client = FeatureOnlineStoreDirectClient.create(FV_NAME, "");
+    FetchFeatureValuesRequest request = FetchFeatureValuesRequest.newBuilder()
+        .setFeatureView(FV_NAME)
+        .setDataFormat(FeatureViewDataFormat.KEY_VALUE)
+        .setDataKey(FeatureViewDataKey.newBuilder().setKey("entityId").build())
+        .build();
+
+    FetchFeatureValuesResponse response =
+        client.fetchFeatureValuesAsync(request, MoreExecutors.directExecutor()).get();
+    assertThat(response).isEqualTo(expected);
+  }
+
+  @Test
+  public void fetchFeatureValuesAsync_notFound() throws Exception {
+    // readRowAsync resolves to null when the row does not exist.
+    when(mockBigtableClient.readRowAsync(any(TableId.class), anyString(), any(Filter.class)))
+        .thenReturn(ApiFutures.immediateFuture(null));
+
+    FeatureOnlineStoreDirectClient client = FeatureOnlineStoreDirectClient.create(FV_NAME, "");
+    FetchFeatureValuesRequest request = FetchFeatureValuesRequest.newBuilder()
+        .setFeatureView(FV_NAME)
+        .setDataFormat(FeatureViewDataFormat.KEY_VALUE)
+        .setDataKey(FeatureViewDataKey.newBuilder().setKey("entityId").build())
+        .build();
+    try {
+      client.fetchFeatureValuesAsync(request, MoreExecutors.directExecutor()).get();
+      Assert.fail("Exception should be thrown");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(NotFoundException.class);
+    }
+  }
+
+  @Test
+  public void batchFetchFeatureValuesAsync_keyValue_success() throws Exception {
+    // Stream the rows through the RowAdapter passed to Bigtable.readRowsCallable API.
+    when(mockBigtableClient.readRowsCallable(any(RowAdapter.class)))
+        .thenAnswer(
+            invocation ->
+                new FakeReadRowsCallable<>(
+                    invocation.getArgument(0), Arrays.asList(SAMPLE_ROW_2, SAMPLE_ROW)));
+
+    FeatureOnlineStoreDirectClient client = FeatureOnlineStoreDirectClient.create(FV_NAME, "");
+    List<FetchFeatureValuesRequest> requests = new ArrayList<>();
+    requests.add(FetchFeatureValuesRequest.newBuilder()
+        .setFeatureView(FV_NAME)
+        .setDataFormat(FeatureViewDataFormat.KEY_VALUE)
+        .setDataKey(FeatureViewDataKey.newBuilder().setKey("key").build())
+        .build());
+    requests.add(FetchFeatureValuesRequest.newBuilder()
+        .setFeatureView(FV_NAME)
+        .setDataFormat(FeatureViewDataFormat.KEY_VALUE)
+        .setDataKey(FeatureViewDataKey.newBuilder().setKey("key_2").build())
+        .build());
+
+    List<FetchFeatureValuesResponse> responses =
+        client.batchFetchFeatureValuesAsync(requests, MoreExecutors.directExecutor()).get();
+    // Responses follow the request order, not the order rows were streamed.
+    assertThat(responses).hasSize(2);
+    assertThat(responses.get(0).getKeyValues().getFeatures(0).getValue().getStringValue())
+        .isEqualTo("sample feature value");
+    assertThat(responses.get(1).getKeyValues().getFeatures(0).getValue().getStringValue())
+        .isEqualTo("sample feature value 2");
+  }
+
+  @Test
+  public void preparedFeatureView_fetchFeatureValues_success() throws Exception {
+    when(mockBigtableClient.readRow(any(TableId.class), anyString(), any(Filter.class)))
+        .thenReturn(SAMPLE_ROW);
+    FetchFeatureValuesResponse expected = FetchFeatureValuesResponse.newBuilder()
+        .setKeyValues(
+            FeatureNameValuePairList.newBuilder()
+                .addFeatures(
+                    FeatureNameValuePair.newBuilder()
+                        .setName("test")
+                        .setValue(FeatureValue.newBuilder().setStringValue("sample feature value").build())
+                        .build())
+                .build())
+        .build();
+
+    FeatureOnlineStoreDirectClient client = FeatureOnlineStoreDirectClient.create(FV_NAME, "");
+    PreparedFeatureView featureView = client.prepareFeatureView();
+    assertThat(featureView.getFeatureView()).isEqualTo(FV_NAME);
+
+    assertThat(featureView.fetchFeatureValues("entityId")).isEqualTo(expected);
+    assertThat(
+            featureView.fetchFeatureValues(
+                FeatureViewDataKey.newBuilder()
+                    .setCompositeKey(
+                        FeatureViewDataKey.CompositeKey.newBuilder().addParts("a").addParts("b"))
+                    .build()))
+        .isEqualTo(expected);
+
+    verify(mockBigtableClient)
+        .readRow(eq(TableId.of(BIGTABLE_TABLE_ID)), eq("entityId"), any(Filter.class));
+    verify(mockBigtableClient)
+        .readRow(eq(TableId.of(BIGTABLE_TABLE_ID)), eq("a:b"), any(Filter.class));
+    // The specs are looked up once by the client, and once by prepareFeatureView, not per fetch.
+    verify(mockFeatureViewCache, times(2)).getFeatureViewSpec(FV_NAME);
+    verify(mockBigtableCache, times(2)).getCloudBigtableSpec(FOS_NAME);
+  }
+
+  @Test
+  public void fetchFeatureValues_specsReloaded_readsWithNewSpecs() throws Exception {
+    when(mockBigtableClient.readRow(any(TableId.class), anyString(), any(Filter.class)))
+        .thenReturn(SAMPLE_ROW);
+    FeatureOnlineStoreDirectClient client = FeatureOnlineStoreDirectClient.create(FV_NAME, "");
+    FetchFeatureValuesRequest request = FetchFeatureValuesRequest.newBuilder()
+        .setFeatureView(FV_NAME)
+        .setDataFormat(FeatureViewDataFormat.KEY_VALUE)
+        .setDataKey(FeatureViewDataKey.newBuilder().setKey("entityId").build())
+        .build();
+    client.fetchFeatureValues(request);
+    client.fetchFeatureValues(request);
+
+    // The metadata cache reloads the FeatureOnlineStore, which moved to another table.
+    when(mockBigtableCache.getCloudBigtableSpec(anyString()))
+        .thenReturn(new CloudBigtableSpec(TENANT_PROJECT_ID, BIGTABLE_INSTANCE_ID, "other-table"));
+    client.fetchFeatureValues(request);
+
+    verify(mockBigtableClient, times(2))
+        .readRow(eq(TableId.of(BIGTABLE_TABLE_ID)), eq("entityId"), any(Filter.class));
+    verify(mockBigtableClient)
+        .readRow(eq(TableId.of("other-table")), eq("entityId"), any(Filter.class));
+  }
+
+  @Test
+  public void preparedFeatureView_fetchFeatureValuesAsync_notFound() throws Exception {
+    when(mockBigtableClient.readRowAsync(any(TableId.class), anyString(), any(Filter.class)))
+        .thenReturn(ApiFutures.immediateFuture(null));
+
+    FeatureOnlineStoreDirectClient client = FeatureOnlineStoreDirectClient.create(FV_NAME, "");
+    PreparedFeatureView featureView = client.prepareFeatureView();
+    try {
+      featureView.fetchFeatureValuesAsync("entityId", MoreExecutors.directExecutor()).get();
+      Assert.fail("Exception should be thrown");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(NotFoundException.class);
+    }
+  }
+
+  @Test
+  public void preparedFeatureView_batchFetchFeatureValuesAsync_success() throws Exception {
+    when(mockBigtableClient.readRowsCallable(any(RowAdapter.class)))
+        .thenAnswer(
+            invocation ->
+                new FakeReadRowsCallable<>(
+                    invocation.getArgument(0), Arrays.asList(SAMPLE_ROW_2, SAMPLE_ROW)));
+
+    FeatureOnlineStoreDirectClient client = FeatureOnlineStoreDirectClient.create(FV_NAME, "");
+    List<FetchFeatureValuesResponse> responses =
+        client
+            .prepareFeatureView()
+            .batchFetchFeatureValuesAsync(
+                Arrays.asList("key", "key_2"), MoreExecutors.directExecutor())
+            .get();
+
+    assertThat(responses).hasSize(2);
+    assertThat(responses.get(0).getKeyValues().getFeatures(0).getValue().getStringValue())
+        .isEqualTo("sample feature value");
+    assertThat(responses.get(1).getKeyValues().getFeatures(0).getValue().getStringValue())
+        .isEqualTo("sample feature value 2");
+  }
 }
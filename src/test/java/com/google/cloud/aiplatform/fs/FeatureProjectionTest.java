@@ -0,0 +1,133 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.cloud.aiplatform.fs.FeatureViewInternalStorage.FeatureData;
+import com.google.cloud.aiplatform.v1.FeatureValue;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse.FeatureNameValuePairList;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse.FeatureNameValuePairList.FeatureNameValuePair;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import java.io.ByteArrayOutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class FeatureProjectionTest {
+
+  private static FeatureValue value(long value) {
+    return FeatureValue.newBuilder().setInt64Value(value).build();
+  }
+
+  private static FeatureData featureData(String name, long value) {
+    return FeatureData.newBuilder().setName(name).addValues(value(value)).build();
+  }
+
+  private static final FeatureViewInternalStorage STORAGE =
+      FeatureViewInternalStorage.newBuilder()
+          .addFeatureData(featureData("a", 1))
+          .addFeatureData(featureData("ab", 2))
+          .addFeatureData(featureData("b", 3))
+          .addFeatureData(featureData("c", 4))
+          .build();
+
+  @Test
+  public void parse_keepsRequestedFeaturesInStorageOrder() throws Exception {
+    FeatureProjection projection = FeatureProjection.of(ImmutableList.of("c", "a", "missing"));
+
+    assertThat(projection.parse(STORAGE.toByteString()))
+        .isEqualTo(
+            FeatureViewInternalStorage.newBuilder()
+                .addFeatureData(featureData("a", 1))
+                .addFeatureData(featureData("c", 4))
+                .build());
+  }
+
+  @Test
+  public void parse_noRequestedFeature_returnsEmptyStorage() throws Exception {
+    FeatureProjection projection = FeatureProjection.of(ImmutableList.of("missing"));
+
+    assertThat(projection.parse(STORAGE.toByteString()))
+        .isEqualTo(FeatureViewInternalStorage.getDefaultInstance());
+  }
+
+  @Test
+  public void parse_valuesBeforeName() throws Exception {
+    // FeatureData of "b" with its value written before its name.
+    ByteArrayOutputStream featureData = new ByteArrayOutputStream();
+    CodedOutputStream featureDataOutput = CodedOutputStream.newInstance(featureData);
+    featureDataOutput.writeMessage(FeatureData.VALUES_FIELD_NUMBER, value(3));
+    featureDataOutput.writeString(FeatureData.NAME_FIELD_NUMBER, "b");
+    featureDataOutput.flush();
+    ByteArrayOutputStream storage = new ByteArrayOutputStream();
+    CodedOutputStream storageOutput = CodedOutputStream.newInstance(storage);
+    storageOutput.writeBytes(
+        FeatureViewInternalStorage.FEATURE_DATA_FIELD_NUMBER,
+        ByteString.copyFrom(featureData.toByteArray()));
+    storageOutput.writeMessage(
+        FeatureViewInternalStorage.FEATURE_DATA_FIELD_NUMBER, featureData("c", 4));
+    storageOutput.flush();
+
+    FeatureProjection projection = FeatureProjection.of(ImmutableList.of("b"));
+    assertThat(projection.parse(ByteString.copyFrom(storage.toByteArray())))
+        .isEqualTo(
+            FeatureViewInternalStorage.newBuilder().addFeatureData(featureData("b", 3)).build());
+  }
+
+  @Test
+  public void project_keepsRequestedFeatures() {
+    FetchFeatureValuesResponse response =
+        FetchFeatureValuesResponse.newBuilder()
+            .setKeyValues(
+                FeatureNameValuePairList.newBuilder()
+                    .addFeatures(FeatureNameValuePair.newBuilder().setName("a").setValue(value(1)))
+                    .addFeatures(FeatureNameValuePair.newBuilder().setName("b").setValue(value(2))))
+            .build();
+
+    assertThat(FeatureProjection.of(ImmutableList.of("b")).project(response))
+        .isEqualTo(
+            FetchFeatureValuesResponse.newBuilder()
+                .setKeyValues(
+                    FeatureNameValuePairList.newBuilder()
+                        .addFeatures(
+                            FeatureNameValuePair.newBuilder().setName("b").setValue(value(2))))
+                .build());
+  }
+
+  @Test
+  public void equals_sameFeatureNames() {
+    assertThat(FeatureProjection.of(ImmutableList.of("a", "b")))
+        .isEqualTo(FeatureProjection.of(ImmutableList.of("a", "b", "a")));
+    assertThat(FeatureProjection.of(ImmutableList.of("a")))
+        .isNotEqualTo(FeatureProjection.of(ImmutableList.of("b")));
+  }
+
+  @Test
+  public void of_emptyFeatureNames_throws() {
+    try {
+      FeatureProjection.of(ImmutableList.of());
+      Assert.fail("Exception should be thrown but did not");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("at least one feature");
+    }
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.cloud.aiplatform.v1.FeatureValue;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse.FeatureNameValuePairList;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse.FeatureNameValuePairList.FeatureNameValuePair;
+import com.google.common.base.Ticker;
+import java.time.Duration;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class FeatureValueCacheTest {
+
+  private static final String FV =
+      "projects/p/locations/us-central1/featureOnlineStores/store/featureViews/users";
+  // A FeatureView of another online store with the same ID.
+  private static final String OTHER_STORE_FV =
+      "projects/p/locations/us-central1/featureOnlineStores/other_store/featureViews/users";
+
+  private static final FetchFeatureValuesResponse RESPONSE =
+      FetchFeatureValuesResponse.newBuilder()
+          .setKeyValues(
+              FeatureNameValuePairList.newBuilder()
+                  .addFeatures(
+                      FeatureNameValuePair.newBuilder()
+                          .setName("test")
+                          .setValue(FeatureValue.newBuilder().setStringValue("value").build())
+                          .build())
+                  .build())
+          .build();
+
+  private static class FakeTicker extends Ticker {
+    private long nanos;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    void advance(Duration duration) {
+      nanos += duration.toNanos();
+    }
+  }
+
+  @Test
+  public void put_admittedOnSecondMiss() {
+    FeatureValueCache cache = FeatureValueCache.newBuilder().build();
+
+    cache.put(FV, "key", RESPONSE, 1000L);
+    // A key missed only once is not admitted, so that scans do not evict the hot set.
+    assertThat(cache.get(FV, "key")).isNull();
+
+    cache.put(FV, "key", RESPONSE, 1000L);
+    assertThat(cache.get(FV, "key")).isEqualTo(RESPONSE);
+    assertThat(cache.get(OTHER_STORE_FV, "key")).isNull();
+  }
+
+  @Test
+  public void get_expiresAfterTtlOfFeatureView() {
+    FakeTicker ticker = new FakeTicker();
+    FeatureValueCache cache =
+        FeatureValueCache.newBuilder()
+            .setAdmissionFilterSize(0)
+            .setDefaultTtl(Duration.ofMinutes(10))
+            .setTtl(FV, Duration.ofSeconds(5))
+            .setTicker(ticker)
+            .build();
+    cache.put(FV, "key", RESPONSE, 1000L);
+    cache.put(OTHER_STORE_FV, "key", RESPONSE, 1000L);
+
+    ticker.advance(Duration.ofSeconds(4));
+    assertThat(cache.get(FV, "key")).isEqualTo(RESPONSE);
+
+    ticker.advance(Duration.ofSeconds(1));
+    assertThat(cache.get(FV, "key")).isNull();
+    assertThat(cache.get(OTHER_STORE_FV, "key")).isEqualTo(RESPONSE);
+  }
+
+  @Test
+  public void put_expiredEntry_replacedWithoutAdmission() {
+    FakeTicker ticker = new FakeTicker();
+    FeatureValueCache cache =
+        FeatureValueCache.newBuilder()
+            .setDefaultTtl(Duration.ofSeconds(5))
+            .setTicker(ticker)
+            .build();
+    cache.put(FV, "key", RESPONSE, 1000L);
+    cache.put(FV, "key", RESPONSE, 1000L);
+
+    ticker.advance(Duration.ofSeconds(5));
+    assertThat(cache.get(FV, "key")).isNull();
+
+    // The response read after the expiry is cached at once, as the key is known to be hot.
+    cache.put(FV, "key", RESPONSE, 2000L);
+    assertThat(cache.get(FV, "key")).isEqualTo(RESPONSE);
+    assertThat(cache.cellTimestampMicros(FV, "key")).isEqualTo(2000L);
+  }
+
+  @Test
+  public void stats_countOnlyGets() {
+    FakeTicker ticker = new FakeTicker();
+    FeatureValueCache cache =
+        FeatureValueCache.newBuilder()
+            .setAdmissionFilterSize(0)
+            .setRefreshAfter(FV, Duration.ofSeconds(10))
+            .setTicker(ticker)
+            .build();
+    cache.put(FV, "key", RESPONSE, 1000L);
+    assertThat(cache.get(FV, "key")).isEqualTo(RESPONSE);
+    assertThat(cache.get(FV, "other_key")).isNull();
+
+    ticker.advance(Duration.ofSeconds(10));
+    assertThat(cache.claimRefresh(FV, "key")).isTrue();
+    cache.releaseRefresh(FV, "key");
+    assertThat(cache.cellTimestampMicros(FV, "key")).isEqualTo(1000L);
+    cache.revalidated(FV, "key");
+    cache.put(FV, "key", RESPONSE, 2000L);
+
+    assertThat(cache.stats().hitCount()).isEqualTo(1L);
+    assertThat(cache.stats().missCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void put_boundedByWeight() {
+    FeatureValueCache cache =
+        FeatureValueCache.newBuilder()
+            .setAdmissionFilterSize(0)
+            .setMaximumWeightBytes(1000)
+            .build();
+
+    for (int i = 0; i < 100; i++) {
+      cache.put(FV, "key" + i, RESPONSE, 1000L);
+    }
+
+    // Each entry weighs over 100 bytes, so at most 10 entries fit.
+    assertThat(cache.size()).isAtMost(10L);
+    assertThat(cache.stats().evictionCount()).isGreaterThan(0L);
+  }
+
+  @Test
+  public void claimRefresh_oncePerEntryAfterRefreshTime() {
+    FakeTicker ticker = new FakeTicker();
+    FeatureValueCache cache =
+        FeatureValueCache.newBuilder()
+            .setAdmissionFilterSize(0)
+            .setDefaultTtl(Duration.ofMinutes(1))
+            .setRefreshAfter(FV, Duration.ofSeconds(10))
+            .setTicker(ticker)
+            .build();
+    cache.put(FV, "key", RESPONSE, 1000L);
+    cache.put(OTHER_STORE_FV, "key", RESPONSE, 1000L);
+
+    assertThat(cache.claimRefresh(FV, "key")).isFalse();
+    ticker.advance(Duration.ofSeconds(10));
+    assertThat(cache.claimRefresh(FV, "key")).isTrue();
+    assertThat(cache.claimRefresh(FV, "key")).isFalse();
+    // FeatureViews without a refresh time are not refreshed.
+    assertThat(cache.claimRefresh(OTHER_STORE_FV, "key")).isFalse();
+    // The stale entry is still served until its TTL.
+    assertThat(cache.get(FV, "key")).isEqualTo(RESPONSE);
+
+    // A new response resets the refresh time.
+    cache.put(FV, "key", RESPONSE, 1000L);
+    assertThat(cache.claimRefresh(FV, "key")).isFalse();
+  }
+}
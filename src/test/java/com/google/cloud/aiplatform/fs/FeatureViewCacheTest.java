@@ -21,7 +21,10 @@ import com.google.api.gax.rpc.InvalidArgumentException;
 import com.google.api.gax.rpc.NotFoundException;
 import com.google.api.gax.rpc.PermissionDeniedException;
 import com.google.cloud.aiplatform.v1.FeatureView;
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.MoreExecutors;
 import io.grpc.StatusRuntimeException;
+import java.time.Duration;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -44,6 +47,19 @@ public final class FeatureViewCacheTest {
               FeatureView.BigtableMetadata.newBuilder().setReadAppProfile(READ_PROFILE_ID).build())
           .build();
 
+  private static class FakeTicker extends Ticker {
+    private long nanos;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    void advance(Duration duration) {
+      nanos += duration.toNanos();
+    }
+  }
+
   @Test
   public void loadingCache_bigtable_success() throws Exception {
     // Prepare
@@ -142,4 +158,44 @@ public final class FeatureViewCacheTest {
       // pass
     }
   }
+
+  @Test
+  public void loadingCache_refreshAfterWrite_reloadsSpec() throws Exception {
+    MockFeatureOnlineStoreAdminServiceClientFactory factory =
+        new MockFeatureOnlineStoreAdminServiceClientFactory();
+    FakeTicker ticker = new FakeTicker();
+    FeatureViewCache cache =
+        new FeatureViewCache(
+            factory, Duration.ofMinutes(5), MoreExecutors.directExecutor(), ticker);
+    MockFeatureOnlineStoreAdminService mockService = factory.getMockService();
+    mockService.addResponse(DEFAULT_BIGTABLE_FEATURE_VIEW);
+    assertThat(cache.getFeatureViewSpec(FV_NAME).readAppProfileId).isEqualTo(READ_PROFILE_ID);
+
+    mockService.addResponse(
+        DEFAULT_BIGTABLE_FEATURE_VIEW.toBuilder()
+            .setBigtableMetadata(
+                FeatureView.BigtableMetadata.newBuilder().setReadAppProfile("new-profile").build())
+            .build());
+    ticker.advance(Duration.ofMinutes(6));
+
+    assertThat(cache.getFeatureViewSpec(FV_NAME).readAppProfileId).isEqualTo("new-profile");
+  }
+
+  @Test
+  public void loadingCache_refreshFails_keepsLastSpec() throws Exception {
+    MockFeatureOnlineStoreAdminServiceClientFactory factory =
+        new MockFeatureOnlineStoreAdminServiceClientFactory();
+    FakeTicker ticker = new FakeTicker();
+    FeatureViewCache cache =
+        new FeatureViewCache(
+            factory, Duration.ofMinutes(5), MoreExecutors.directExecutor(), ticker);
+    MockFeatureOnlineStoreAdminService mockService = factory.getMockService();
+    mockService.addResponse(DEFAULT_BIGTABLE_FEATURE_VIEW);
+    cache.getFeatureViewSpec(FV_NAME);
+
+    mockService.addException(new StatusRuntimeException(io.grpc.Status.UNAVAILABLE));
+    ticker.advance(Duration.ofMinutes(6));
+
+    assertThat(cache.getFeatureViewSpec(FV_NAME).readAppProfileId).isEqualTo(READ_PROFILE_ID);
+  }
 }
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.api.gax.rpc.InternalException;
+import com.google.api.gax.rpc.UnimplementedException;
+import com.google.cloud.aiplatform.fs.FeatureViewInternalStorage.FeatureData;
+import com.google.cloud.aiplatform.v1.FeatureValue;
+import com.google.cloud.bigtable.data.v2.models.Row;
+import com.google.cloud.bigtable.data.v2.models.RowAdapter.RowBuilder;
+import com.google.cloud.bigtable.data.v2.models.RowCell;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class FeatureViewCellAdapterTest {
+
+  private static final String FV_ID = "my_feature_view";
+
+  private static final InternalFetchRequest REQUEST =
+      InternalFetchRequest.builder()
+          .featureViewId(FV_ID)
+          .featureViewSpec(new FeatureViewSpec(false, "profile", false))
+          .build();
+
+  private static final FeatureViewInternalStorage BATCH_STORAGE = storage("batch value");
+  private static final FeatureViewInternalStorage DIRECT_WRITE_STORAGE = storage("dw value");
+
+  private static FeatureViewInternalStorage storage(String value) {
+    return FeatureViewInternalStorage.newBuilder()
+        .addFeatureData(
+            FeatureData.newBuilder()
+                .setName("test")
+                .addValues(FeatureValue.newBuilder().setStringValue(value).build())
+                .build())
+        .build();
+  }
+
+  private static RowCell cell(String family, String qualifier, long timestamp, ByteString value) {
+    return RowCell.create(
+        family, ByteString.copyFromUtf8(qualifier), timestamp, ImmutableList.of(), value);
+  }
+
+  private static Row row(RowCell... cells) {
+    return Row.create(ByteString.copyFromUtf8("key"), ImmutableList.copyOf(cells));
+  }
+
+  @Test
+  public void finishRow_selectsNewerCell() {
+    FeatureViewCellAdapter adapter = FeatureViewCellAdapter.forRequest(REQUEST);
+
+    FeatureViewCell newerDirectWrite =
+        FakeReadRowsCallable.adapt(
+            adapter,
+            row(
+                cell(FV_ID, "default", 1000_000, BATCH_STORAGE.toByteString()),
+                cell(FV_ID, "dw", 2000_000, DIRECT_WRITE_STORAGE.toByteString())));
+    assertThat(newerDirectWrite.getInternalStorage()).isEqualTo(DIRECT_WRITE_STORAGE);
+    assertThat(newerDirectWrite.getTimestampMs()).isEqualTo(2000);
+    assertThat(newerDirectWrite.getStringKey()).isEqualTo("key");
+
+    FeatureViewCell newerBatch =
+        FakeReadRowsCallable.adapt(
+            adapter,
+            row(
+                cell(FV_ID, "default", 3000_000, BATCH_STORAGE.toByteString()),
+                cell(FV_ID, "dw", 2000_000, DIRECT_WRITE_STORAGE.toByteString())));
+    assertThat(newerBatch.getInternalStorage()).isEqualTo(BATCH_STORAGE);
+
+    // On equal timestamps, the batch sync cell wins.
+    FeatureViewCell tie =
+        FakeReadRowsCallable.adapt(
+            adapter,
+            row(
+                cell(FV_ID, "default", 1000_000, BATCH_STORAGE.toByteString()),
+                cell(FV_ID, "dw", 1000_000, DIRECT_WRITE_STORAGE.toByteString())));
+    assertThat(tie.getInternalStorage()).isEqualTo(BATCH_STORAGE);
+  }
+
+  @Test
+  public void finishRow_singleCell() {
+    FeatureViewCellAdapter adapter = FeatureViewCellAdapter.forRequest(REQUEST);
+
+    assertThat(
+            FakeReadRowsCallable.adapt(
+                    adapter, row(cell(FV_ID, "dw", 1000, DIRECT_WRITE_STORAGE.toByteString())))
+                .getInternalStorage())
+        .isEqualTo(DIRECT_WRITE_STORAGE);
+    assertThat(
+            FakeReadRowsCallable.adapt(
+                    adapter, row(cell(FV_ID, "default", 1000, BATCH_STORAGE.toByteString())))
+                .getInternalStorage())
+        .isEqualTo(BATCH_STORAGE);
+  }
+
+  @Test
+  public void cellValue_joinsChunks() {
+    RowBuilder<FeatureViewCell> builder =
+        FeatureViewCellAdapter.forRequest(REQUEST).createRowBuilder();
+    ByteString value = BATCH_STORAGE.toByteString();
+
+    builder.startRow(ByteString.copyFromUtf8("key"));
+    builder.startCell(FV_ID, ByteString.copyFromUtf8("default"), 1000, ImmutableList.of(), 0);
+    builder.cellValue(value.substring(0, 5));
+    builder.cellValue(value.substring(5));
+    builder.finishCell();
+
+    assertThat(builder.finishRow().getInternalStorage()).isEqualTo(BATCH_STORAGE);
+  }
+
+  @Test
+  public void finishRow_unexpectedCell_throws() {
+    FeatureViewCellAdapter adapter = FeatureViewCellAdapter.forRequest(REQUEST);
+    try {
+      FakeReadRowsCallable.adapt(
+          adapter, row(cell("other_view", "default", 1000, BATCH_STORAGE.toByteString())));
+      Assert.fail("Exception should be thrown but did not");
+    } catch (InternalException e) {
+      assertThat(e.getMessage()).contains("Unexpected data is returned from bigtable");
+    }
+    try {
+      FakeReadRowsCallable.adapt(
+          adapter, row(cell(FV_ID, "other", 1000, BATCH_STORAGE.toByteString())));
+      Assert.fail("Exception should be thrown but did not");
+    } catch (InternalException e) {
+      assertThat(e.getMessage()).contains("Unexpected data is returned from bigtable");
+    }
+  }
+
+  @Test
+  public void finishRow_featureProjection() {
+    FeatureViewCellAdapter adapter =
+        FeatureViewCellAdapter.forRequest(
+            InternalFetchRequest.builder()
+                .featureViewId(FV_ID)
+                .featureViewSpec(new FeatureViewSpec(false, "profile", false))
+                .featureProjection(FeatureProjection.of(ImmutableList.of("other")))
+                .build());
+
+    FeatureViewCell cell =
+        FakeReadRowsCallable.adapt(
+            adapter, row(cell(FV_ID, "default", 1000, BATCH_STORAGE.toByteString())));
+
+    assertThat(cell.getInternalStorage())
+        .isEqualTo(FeatureViewInternalStorage.getDefaultInstance());
+    assertThat(adapter.isScanMarkerRow(cell)).isFalse();
+  }
+
+  @Test
+  public void createScanMarkerRow_isScanMarker() {
+    FeatureViewCellAdapter adapter = FeatureViewCellAdapter.forRequest(REQUEST);
+
+    FeatureViewCell marker =
+        adapter.createRowBuilder().createScanMarkerRow(ByteString.copyFromUtf8("key"));
+
+    assertThat(adapter.isScanMarkerRow(marker)).isTrue();
+    assertThat(adapter.getKey(marker)).isEqualTo(ByteString.copyFromUtf8("key"));
+    assertThat(
+            adapter.isScanMarkerRow(
+                FakeReadRowsCallable.adapt(
+                    adapter, row(cell(FV_ID, "default", 1000, BATCH_STORAGE.toByteString())))))
+        .isFalse();
+  }
+
+  @Test
+  public void forRequest_continuousSync_unimplemented() {
+    try {
+      FeatureViewCellAdapter.forRequest(
+          InternalFetchRequest.builder()
+              .featureViewId(FV_ID)
+              .featureViewSpec(new FeatureViewSpec(true, "profile", false))
+              .build());
+      Assert.fail("Exception should be thrown but did not");
+    } catch (UnimplementedException e) {
+      assertThat(e.getMessage()).contains("continuous sync is not supported");
+    }
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.auth.oauth2.AccessToken;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class FetchAccessTokenCredentialsTest {
+
+  private static final URI BIGTABLE_URI = URI.create("https://bigtable.googleapis.com");
+
+  @Test
+  public void refresh_replacesToken() throws Exception {
+    FetchAccessTokenCredentials credentials =
+        new FetchAccessTokenCredentials(
+            new AccessToken("first", null), () -> new AccessToken("second", null));
+    assertThat(authorizationOf(credentials)).containsExactly("Bearer first");
+
+    credentials.refresh();
+
+    assertThat(credentials.getAccessToken().getTokenValue()).isEqualTo("second");
+    assertThat(authorizationOf(credentials)).containsExactly("Bearer second");
+  }
+
+  @Test
+  public void refresh_failure_keepsToken() throws Exception {
+    FetchAccessTokenCredentials credentials =
+        new FetchAccessTokenCredentials(
+            new AccessToken("first", null),
+            () -> {
+              throw new IllegalStateException("unavailable");
+            });
+    try {
+      credentials.refresh();
+      Assert.fail("Exception should be thrown but did not");
+    } catch (IOException e) {
+      assertThat(e).hasCauseThat().isInstanceOf(IllegalStateException.class);
+    }
+    assertThat(credentials.getAccessToken().getTokenValue()).isEqualTo("first");
+  }
+
+  private static List<String> authorizationOf(FetchAccessTokenCredentials credentials)
+      throws IOException {
+    Map<String, List<String>> metadata = credentials.getRequestMetadata(BIGTABLE_URI);
+    return metadata.getOrDefault("Authorization", Collections.emptyList());
+  }
+}
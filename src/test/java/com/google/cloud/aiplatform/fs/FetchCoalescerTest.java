@@ -0,0 +1,148 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.aiplatform.v1.FeatureOnlineStore;
+import com.google.cloud.aiplatform.v1.FeatureOnlineStore.Bigtable;
+import com.google.cloud.aiplatform.v1.FeatureOnlineStore.Bigtable.BigtableMetadata;
+import com.google.cloud.aiplatform.v1.FeatureView;
+import com.google.cloud.aiplatform.v1.FeatureViewDataFormat;
+import com.google.cloud.bigtable.data.v2.models.Row;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+
+@RunWith(JUnit4.class)
+public final class FetchCoalescerTest {
+
+  private static final String FV_ID = "my_feature_view";
+
+  private static final FeatureOnlineStore FEATURE_ONLINE_STORE =
+      FeatureOnlineStore.newBuilder()
+          .setBigtable(Bigtable.newBuilder()
+              .setBigtableMetadata(
+                  BigtableMetadata.newBuilder()
+                      .setTenantProjectId("tenant-project")
+                      .setInstanceId("instance-id")
+                      .setTableId("default")
+                      .build())
+              .build())
+          .build();
+
+  private static final Row ROW_1 = Row.create(ByteString.copyFromUtf8("key1"), ImmutableList.of());
+
+  private BigtableClient mockBigtableClient;
+  private BigtableClientManager mockClientManager;
+
+  @Before
+  public void setup() {
+    mockBigtableClient = mock(BigtableClient.class);
+    mockClientManager = mock(BigtableClientManager.class);
+    when(mockClientManager.getClient()).thenReturn(mockBigtableClient);
+    when(mockBigtableClient.batchFetchDataAsync(any()))
+        .thenReturn(ApiFutures.immediateFuture(ImmutableList.of(ROW_1)));
+  }
+
+  private static InternalFetchRequest request(String dataKey) {
+    return InternalFetchRequest.builder()
+        .featureViewId(FV_ID)
+        .format(FeatureViewDataFormat.KEY_VALUE)
+        .dataKey(dataKey)
+        .cloudBigtableSpec(new CloudBigtableSpec(FEATURE_ONLINE_STORE))
+        .featureViewSpec(new FeatureViewSpec(FeatureView.getDefaultInstance()))
+        .build();
+  }
+
+  @Test
+  public void fetch_fullBatch_sentAsOneRead() throws Exception {
+    FetchCoalescer coalescer =
+        new FetchCoalescer(mockClientManager, Duration.ofMinutes(1), /* maxBatchSize= */ 2);
+
+    ApiFuture<Row> first = coalescer.fetch(request("key1"));
+    ApiFuture<Row> second = coalescer.fetch(request("key2"));
+
+    // The batch is sent once it is full, without waiting for the window.
+    assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo(ROW_1);
+    assertThat(second.get(1, TimeUnit.SECONDS)).isNull();
+    ArgumentCaptor<InternalFetchRequest> captor = ArgumentCaptor.forClass(InternalFetchRequest.class);
+    verify(mockBigtableClient, times(1)).batchFetchDataAsync(captor.capture());
+    assertThat(captor.getValue().dataKeys).containsExactly("key1", "key2").inOrder();
+    assertThat(captor.getValue().featureViewId).isEqualTo(FV_ID);
+    coalescer.close();
+  }
+
+  @Test
+  public void fetch_duplicateKeys_shareOneResult() throws Exception {
+    FetchCoalescer coalescer =
+        new FetchCoalescer(mockClientManager, Duration.ofMillis(10), /* maxBatchSize= */ 10);
+
+    ApiFuture<Row> first = coalescer.fetch(request("key1"));
+    ApiFuture<Row> second = coalescer.fetch(request("key1"));
+
+    assertThat(first).isSameInstanceAs(second);
+    assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo(ROW_1);
+    coalescer.close();
+  }
+
+  @Test
+  public void fetch_windowOver_partialBatchSent() throws Exception {
+    FetchCoalescer coalescer =
+        new FetchCoalescer(mockClientManager, Duration.ofMillis(10), /* maxBatchSize= */ 10);
+
+    ApiFuture<Row> result = coalescer.fetch(request("key1"));
+
+    assertThat(result.get(1, TimeUnit.SECONDS)).isEqualTo(ROW_1);
+    verify(mockBigtableClient, times(1)).batchFetchDataAsync(any());
+    coalescer.close();
+  }
+
+  @Test
+  public void fetch_batchReadFails_allCallersFail() throws Exception {
+    when(mockBigtableClient.batchFetchDataAsync(any()))
+        .thenReturn(ApiFutures.immediateFailedFuture(new IllegalStateException("unavailable")));
+    FetchCoalescer coalescer =
+        new FetchCoalescer(mockClientManager, Duration.ofMinutes(1), /* maxBatchSize= */ 2);
+
+    ApiFuture<Row> first = coalescer.fetch(request("key1"));
+    ApiFuture<Row> second = coalescer.fetch(request("key2"));
+
+    try {
+      first.get(1, TimeUnit.SECONDS);
+      Assert.fail("Exception should be thrown");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+    }
+    assertThat(second.isDone()).isTrue();
+    coalescer.close();
+  }
+}
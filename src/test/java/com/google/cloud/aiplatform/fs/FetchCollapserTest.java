@@ -0,0 +1,124 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class FetchCollapserTest {
+
+  private static final FetchFeatureValuesResponse RESPONSE =
+      FetchFeatureValuesResponse.getDefaultInstance();
+
+  private static InternalFetchRequest request(String featureViewId, String dataKey) {
+    return InternalFetchRequest.builder().featureViewId(featureViewId).dataKey(dataKey).build();
+  }
+
+  @Test
+  public void fetch_sameEntityInFlight_sharesOneFetch() throws Exception {
+    FetchCollapser collapser = new FetchCollapser();
+    AtomicInteger fetchCount = new AtomicInteger();
+    SettableApiFuture<FetchFeatureValuesResponse> pending = SettableApiFuture.create();
+
+    ApiFuture<FetchFeatureValuesResponse> first =
+        collapser.fetch(request("fv", "key"), () -> {
+          fetchCount.incrementAndGet();
+          return pending;
+        });
+    ApiFuture<FetchFeatureValuesResponse> second =
+        collapser.fetch(request("fv", "key"), () -> {
+          fetchCount.incrementAndGet();
+          return pending;
+        });
+    pending.set(RESPONSE);
+
+    assertThat(fetchCount.get()).isEqualTo(1);
+    assertThat(first.get()).isSameInstanceAs(RESPONSE);
+    assertThat(second.get()).isSameInstanceAs(RESPONSE);
+    assertThat(collapser.inFlightCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void fetch_differentEntities_fetchedSeparately() throws Exception {
+    FetchCollapser collapser = new FetchCollapser();
+    AtomicInteger fetchCount = new AtomicInteger();
+    SettableApiFuture<FetchFeatureValuesResponse> pending = SettableApiFuture.create();
+
+    collapser.fetch(request("fv", "key1"), () -> {
+      fetchCount.incrementAndGet();
+      return pending;
+    });
+    collapser.fetch(request("fv", "key2"), () -> {
+      fetchCount.incrementAndGet();
+      return pending;
+    });
+    collapser.fetch(request("other_fv", "key1"), () -> {
+      fetchCount.incrementAndGet();
+      return pending;
+    });
+
+    assertThat(fetchCount.get()).isEqualTo(3);
+    assertThat(collapser.inFlightCount()).isEqualTo(3);
+    pending.set(RESPONSE);
+    assertThat(collapser.inFlightCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void fetch_afterCompletion_startsNewFetch() throws Exception {
+    FetchCollapser collapser = new FetchCollapser();
+    AtomicInteger fetchCount = new AtomicInteger();
+
+    collapser.fetch(request("fv", "key"), () -> {
+      fetchCount.incrementAndGet();
+      return ApiFutures.immediateFuture(RESPONSE);
+    }).get();
+    collapser.fetch(request("fv", "key"), () -> {
+      fetchCount.incrementAndGet();
+      return ApiFutures.immediateFuture(RESPONSE);
+    }).get();
+
+    assertThat(fetchCount.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void fetch_fetcherThrows_failureSharedAndCleared() throws Exception {
+    FetchCollapser collapser = new FetchCollapser();
+
+    ApiFuture<FetchFeatureValuesResponse> result =
+        collapser.fetch(request("fv", "key"), () -> {
+          throw new IllegalStateException("unavailable");
+        });
+
+    try {
+      result.get();
+      Assert.fail("Exception should be thrown");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+    }
+    assertThat(collapser.inFlightCount()).isEqualTo(0);
+  }
+}
@@ -16,6 +16,7 @@
 package com.google.cloud.aiplatform.fs;
 
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.cloud.bigtable.data.v2.models.Filters.FILTERS;
 import static org.mockito.Mockito.anyString;
 import static org.powermock.api.mockito.PowerMockito.mock;
 import static org.powermock.api.mockito.PowerMockito.when;
@@ -30,7 +31,9 @@ import com.google.cloud.aiplatform.v1.FeatureViewDataFormat;
 import com.google.cloud.aiplatform.v1.FeatureViewDataKey;
 import com.google.cloud.aiplatform.v1.FeatureViewDataKey.CompositeKey;
 import com.google.cloud.aiplatform.v1.FetchFeatureValuesRequest;
+import com.google.cloud.bigtable.data.v2.models.Filters.Filter;
 import com.google.cloud.bigtable.data.v2.models.Row;
+import com.google.cloud.bigtable.data.v2.models.TableId;
 import com.google.common.collect.ImmutableList;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.Timestamp;
@@ -118,6 +121,7 @@ public final class InternalFetchRequestTest {
 
     // Assert.
     assertThat(r.format).isEqualTo(FeatureViewDataFormat.PROTO_STRUCT);
+    assertThat(r.featureViewResourceName).isEqualTo(FV_NAME);
     assertThat(r.dataKey).isEqualTo("entityId");
     assertThat(r.cloudBigtableSpec).isEqualTo(bigtableSpec);
     assertThat(r.featureViewSpec).isEqualTo(featureViewSpec);
@@ -225,4 +229,60 @@ public final class InternalFetchRequestTest {
       assertThat(e.getMessage()).contains("PROTO_STRUCT is not supported");
     }
   }
+
+  @Test
+  public void constructDataKey_fromDataKey() {
+    assertThat(
+            InternalFetchRequest.constructDataKey(
+                FeatureViewDataKey.newBuilder()
+                    .setCompositeKey(CompositeKey.newBuilder().addParts("a").addParts("b"))
+                    .build()))
+        .isEqualTo("a:b");
+    try {
+      InternalFetchRequest.constructDataKey(FeatureViewDataKey.getDefaultInstance());
+      Assert.fail("Exception should be thrown but did not");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("No key or composite key provided in data key");
+    }
+  }
+
+  @Test
+  public void newRequest_keepsPreparedRead() {
+    TableId tableId = TableId.of("table");
+    Filter filter = FILTERS.limit().cellsPerColumn(1);
+    InternalFetchRequest template =
+        InternalFetchRequest.builder()
+            .projectId(PROJECT_ID)
+            .location(LOCATION)
+            .onlineStoreId(FOS_ID)
+            .featureViewId(FV_ID)
+            .format(FeatureViewDataFormat.KEY_VALUE)
+            .preparedRead(tableId, filter)
+            .build();
+    assertThat(template.featureViewResourceName).isEqualTo(FV_NAME);
+
+    InternalFetchRequest single = template.newRequest("key");
+    assertThat(single.dataKey).isEqualTo("key");
+    assertThat(single.dataKeys).isEmpty();
+    assertThat(single.tableId).isEqualTo(tableId);
+    assertThat(single.filter).isSameInstanceAs(filter);
+    assertThat(single.featureViewResourceName).isEqualTo(FV_NAME);
+
+    InternalFetchRequest batch = single.withDataKeys(ImmutableList.of("key", "key_2"));
+    assertThat(batch.dataKey).isNull();
+    assertThat(batch.dataKeys).containsExactly("key", "key_2").inOrder();
+    assertThat(batch.filter).isSameInstanceAs(filter);
+  }
+
+  @Test
+  public void arrivalTime_convertedFromMillis() {
+    Timestamp arrivalTime = Timestamp.newBuilder().setSeconds(1735684800L).setNanos(5_000_000).build();
+    InternalFetchRequest request =
+        InternalFetchRequest.builder().featureViewId(FV_ID).arrivalTime(arrivalTime).build();
+
+    assertThat(request.arrivalTimeMillis).isEqualTo(1735684800005L);
+    assertThat(request.arrivalTime()).isEqualTo(arrivalTime);
+    // Copies for other keys keep the arrival time of the request they are derived from.
+    assertThat(request.withDataKeys(ImmutableList.of("key")).arrivalTime()).isEqualTo(arrivalTime);
+  }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.api.gax.rpc.InternalException;
+import com.google.cloud.aiplatform.fs.FeatureViewInternalStorage.FeatureData;
+import com.google.cloud.aiplatform.v1.FeatureValue;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse;
+import com.google.protobuf.ByteString;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class LazyFetchFeatureValuesResponseTest {
+
+  private static final InternalFetchRequest REQUEST =
+      InternalFetchRequest.builder()
+          .featureViewId("my_feature_view")
+          .featureViewSpec(new FeatureViewSpec(false, "profile", false))
+          .build();
+
+  private static final FeatureValue STRING_VALUE =
+      FeatureValue.newBuilder().setStringValue("value").build();
+  private static final FeatureValue INT_VALUE = FeatureValue.newBuilder().setInt64Value(7).build();
+
+  private static final FeatureViewInternalStorage STORAGE =
+      FeatureViewInternalStorage.newBuilder()
+          .addFeatureData(
+              FeatureData.newBuilder().setName("string_feature").addValues(STRING_VALUE))
+          .addFeatureData(FeatureData.newBuilder().setName("no_value"))
+          .addFeatureData(FeatureData.newBuilder().setName("int_feature").addValues(INT_VALUE))
+          .build();
+
+  private static FetchFeatureValuesResponse convert(FeatureViewInternalStorage storage) {
+    return FetchFeatureValuesResponse.newBuilder()
+        .setKeyValues(Converter.internalStorageToKeyValuesList(storage, REQUEST))
+        .build();
+  }
+
+  @Test
+  public void fromCell_accessByNameAndIndex() throws Exception {
+    LazyFetchFeatureValuesResponse response =
+        LazyFetchFeatureValuesResponse.fromCell(STORAGE.toByteString(), REQUEST);
+
+    assertThat(response.getFeatureCount()).isEqualTo(2);
+    assertThat(response.getFeatureName(0)).isEqualTo("string_feature");
+    assertThat(response.getFeatureName(1)).isEqualTo("int_feature");
+    assertThat(response.getFeatureValue(1)).isEqualTo(INT_VALUE);
+    assertThat(response.getFeatureValue("string_feature")).isEqualTo(STRING_VALUE);
+    assertThat(response.getFeatureValue("no_value")).isNull();
+    assertThat(response.getFeatureValue("missing")).isNull();
+    assertThat(response.containsFeature("int_feature")).isTrue();
+    assertThat(response.containsFeature("int")).isFalse();
+  }
+
+  @Test
+  public void fromCell_toResponse_sameAsConvertedResponse() throws Exception {
+    LazyFetchFeatureValuesResponse response =
+        LazyFetchFeatureValuesResponse.fromCell(STORAGE.toByteString(), REQUEST);
+    response.getFeatureValue("int_feature");
+
+    FetchFeatureValuesResponse built = response.toResponse();
+
+    assertThat(built).isEqualTo(convert(STORAGE));
+    assertThat(response.toResponse()).isSameInstanceAs(built);
+  }
+
+  @Test
+  public void fromCell_malformedValue_throwsOnAccess() throws Exception {
+    FeatureViewInternalStorage storage =
+        FeatureViewInternalStorage.newBuilder()
+            .addFeatureData(FeatureData.newBuilder().setName("valid").addValues(INT_VALUE))
+            .build();
+    // Replaces the serialized value of "valid" with an invalid tag.
+    ByteString serialized = storage.toByteString();
+    ByteString cellValue =
+        serialized
+            .substring(0, serialized.size() - 2)
+            .concat(ByteString.copyFrom(new byte[] {0, 0}));
+    LazyFetchFeatureValuesResponse response =
+        LazyFetchFeatureValuesResponse.fromCell(cellValue, REQUEST);
+
+    assertThat(response.getFeatureName(0)).isEqualTo("valid");
+    try {
+      response.getFeatureValue(0);
+      Assert.fail("Exception should be thrown but did not");
+    } catch (InternalException e) {
+      assertThat(e.getMessage()).contains("Failed to parse the value of feature 'valid'");
+    }
+  }
+
+  @Test
+  public void of_wrapsResponse() {
+    FetchFeatureValuesResponse cached = convert(STORAGE);
+
+    LazyFetchFeatureValuesResponse response = LazyFetchFeatureValuesResponse.of(cached);
+
+    assertThat(response.getFeatureCount()).isEqualTo(2);
+    assertThat(response.getFeatureValue("int_feature")).isEqualTo(INT_VALUE);
+    assertThat(response.containsFeature("missing")).isFalse();
+    assertThat(response.toResponse()).isSameInstanceAs(cached);
+  }
+}
@@ -0,0 +1,393 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.cloud.aiplatform.fs.FeatureViewInternalStorage.FeatureData;
+import com.google.cloud.aiplatform.v1.FeatureValue;
+import com.google.cloud.aiplatform.v1.FeatureView;
+import com.google.cloud.aiplatform.v1.FeatureViewDataFormat;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse.FeatureNameValuePairList;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse.FeatureNameValuePairList.FeatureNameValuePair;
+import com.google.cloud.bigtable.data.v2.models.Row;
+import com.google.cloud.bigtable.data.v2.models.RowCell;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class LocalCachesTest {
+
+  private static final String FV_ID = "users";
+  private static final String STORE_ID = "store";
+  private static final String FV =
+      "projects/p/locations/us-central1/featureOnlineStores/store/featureViews/users";
+
+  private static final FetchFeatureValuesResponse RESPONSE =
+      FetchFeatureValuesResponse.newBuilder()
+          .setKeyValues(
+              FeatureNameValuePairList.newBuilder()
+                  .addFeatures(
+                      FeatureNameValuePair.newBuilder()
+                          .setName("test")
+                          .setValue(FeatureValue.newBuilder().setStringValue("value").build())
+                          .build())
+                  .build())
+          .build();
+
+  private static class FakeTicker extends Ticker {
+    private long nanos;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    void advance(Duration duration) {
+      nanos += duration.toNanos();
+    }
+  }
+
+  private static RowCell cell(String value) {
+    FeatureViewInternalStorage storage =
+        FeatureViewInternalStorage.newBuilder()
+            .addFeatureData(FeatureData.newBuilder()
+                .setName("test")
+                .addValues(FeatureValue.newBuilder().setStringValue(value).build())
+                .build())
+            .build();
+    return RowCell.create(
+        FV_ID, ByteString.copyFromUtf8("default"), 1000, ImmutableList.of(), storage.toByteString());
+  }
+
+  // A row as returned by a revalidation read, with one cell without its value.
+  private static Row strippedRow(String dataKey, long timestampMicros) {
+    return Row.create(
+        ByteString.copyFromUtf8(dataKey),
+        ImmutableList.of(
+            RowCell.create(
+                FV_ID,
+                ByteString.copyFromUtf8("default"),
+                timestampMicros,
+                ImmutableList.of(),
+                ByteString.EMPTY)));
+  }
+
+  private static InternalFetchRequest request(List<String> dataKeys) {
+    return request(STORE_ID, dataKeys);
+  }
+
+  private static InternalFetchRequest request(String onlineStoreId, List<String> dataKeys) {
+    return InternalFetchRequest.builder()
+        .projectId("p")
+        .location("us-central1")
+        .onlineStoreId(onlineStoreId)
+        .featureViewId(FV_ID)
+        .format(FeatureViewDataFormat.KEY_VALUE)
+        .dataKeys(dataKeys)
+        .featureViewSpec(new FeatureViewSpec(FeatureView.getDefaultInstance()))
+        .build();
+  }
+
+  @Test
+  public void lookup_onlyMissingKeysRead() throws Exception {
+    FeatureValueCache cache = FeatureValueCache.newBuilder().setAdmissionFilterSize(0).build();
+    cache.put(FV, "cached", RESPONSE, 1000L);
+    LocalCaches caches =
+        new LocalCaches(
+            cache,
+            /* offHeapCellStore= */ null,
+            /* negativeResultCache= */ null,
+            /* refresher= */ null);
+    InternalFetchRequest request = request(ImmutableList.of("missing", "cached", "not_found"));
+
+    LocalCaches.BatchLookup lookup = caches.lookup(request);
+
+    assertThat(lookup.missingRequest().dataKeys).containsExactly("missing", "not_found").inOrder();
+    Row missingRow =
+        Row.create(ByteString.copyFromUtf8("missing"), ImmutableList.of(cell("fetched")));
+    List<FetchFeatureValuesResponse> responses = lookup.complete(ImmutableList.of(missingRow));
+    assertThat(responses).hasSize(3);
+    assertThat(responses.get(0).getKeyValues().getFeatures(0).getValue().getStringValue())
+        .isEqualTo("fetched");
+    assertThat(responses.get(1)).isEqualTo(RESPONSE);
+    assertThat(responses.get(2).getKeyValues().getFeaturesList()).isEmpty();
+    // Found keys are cached, keys which are not found are not.
+    assertThat(cache.get(FV, "missing")).isEqualTo(responses.get(0));
+    assertThat(cache.get(FV, "not_found")).isNull();
+  }
+
+  @Test
+  public void lookup_allCached_noRead() throws Exception {
+    FeatureValueCache cache = FeatureValueCache.newBuilder().setAdmissionFilterSize(0).build();
+    cache.put(FV, "cached", RESPONSE, 1000L);
+    LocalCaches caches =
+        new LocalCaches(
+            cache,
+            /* offHeapCellStore= */ null,
+            /* negativeResultCache= */ null,
+            /* refresher= */ null);
+
+    LocalCaches.BatchLookup lookup = caches.lookup(request(ImmutableList.of("cached", "cached")));
+
+    assertThat(lookup.missingRequest()).isNull();
+    assertThat(lookup.complete(ImmutableList.of())).containsExactly(RESPONSE, RESPONSE);
+  }
+
+  @Test
+  public void get_offHeapHit_decodedAndPromoted() throws Exception {
+    FeatureValueCache cache = FeatureValueCache.newBuilder().setAdmissionFilterSize(0).build();
+    OffHeapCellStore store =
+        OffHeapCellStore.newBuilder()
+            .setCapacityBytes(64 * 1024)
+            .setSlabSizeBytes(16 * 1024)
+            .setSegmentCount(2)
+            .build();
+    InternalFetchRequest request = request(ImmutableList.of("key"));
+    Row row = Row.create(ByteString.copyFromUtf8("key"), ImmutableList.of(cell("stored")));
+    FetchFeatureValuesResponse response = Converter.rowToResponse(row, request);
+
+    new LocalCaches(
+            /* featureValueCache= */ null,
+            store,
+            /* negativeResultCache= */ null,
+            /* refresher= */ null)
+        .put(request, "key", row, response);
+    LocalCaches caches =
+        new LocalCaches(cache, store, /* negativeResultCache= */ null, /* refresher= */ null);
+
+    assertThat(cache.get(FV, "key")).isNull();
+    assertThat(caches.get(request, "key")).isEqualTo(response);
+    assertThat(store.hitCount()).isEqualTo(1L);
+    // The decoded response is kept on the heap for the next fetches.
+    assertThat(cache.get(FV, "key")).isEqualTo(response);
+  }
+
+  @Test
+  public void lookup_knownMissingKeysNotRead() throws Exception {
+    NegativeResultCache negativeResultCache = NegativeResultCache.newBuilder().build();
+    LocalCaches caches =
+        new LocalCaches(
+            /* featureValueCache= */ null,
+            /* offHeapCellStore= */ null,
+            negativeResultCache,
+            /* refresher= */ null);
+    InternalFetchRequest request = request(ImmutableList.of("found", "not_found"));
+
+    // The first batch reads both keys, and only "found" exists.
+    LocalCaches.BatchLookup first = caches.lookup(request);
+    assertThat(first.missingRequest().dataKeys).containsExactly("found", "not_found").inOrder();
+    first.complete(
+        ImmutableList.of(
+            Row.create(ByteString.copyFromUtf8("found"), ImmutableList.of(cell("value")))));
+
+    LocalCaches.BatchLookup second = caches.lookup(request);
+
+    assertThat(second.missingRequest().dataKeys).containsExactly("found");
+    List<FetchFeatureValuesResponse> responses =
+        second.complete(
+            ImmutableList.of(
+                Row.create(ByteString.copyFromUtf8("found"), ImmutableList.of(cell("value")))));
+    assertThat(responses.get(1).getKeyValues().getFeaturesList()).isEmpty();
+    assertThat(negativeResultCache.stats().hitCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void get_staleEntry_servedAndRefreshedOnce() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    FeatureValueCache cache =
+        FeatureValueCache.newBuilder()
+            .setAdmissionFilterSize(0)
+            .setDefaultTtl(Duration.ofMinutes(1))
+            .setDefaultRefreshAfter(Duration.ofSeconds(10))
+            .setTicker(ticker)
+            .build();
+    List<InternalFetchRequest> refreshes = new ArrayList<>();
+    LocalCaches caches =
+        new LocalCaches(
+            cache,
+            /* offHeapCellStore= */ null,
+            /* negativeResultCache= */ null,
+            refreshes::add);
+    InternalFetchRequest request = request(ImmutableList.of("key"));
+    cache.put(FV, "key", RESPONSE, 1000L);
+
+    assertThat(caches.get(request, "key")).isEqualTo(RESPONSE);
+    assertThat(refreshes).isEmpty();
+
+    ticker.advance(Duration.ofSeconds(10));
+    assertThat(caches.get(request, "key")).isEqualTo(RESPONSE);
+    assertThat(caches.get(request, "key")).isEqualTo(RESPONSE);
+    // Only the first fetch of the stale entry refreshes it.
+    assertThat(refreshes).hasSize(1);
+    assertThat(refreshes.get(0).dataKeys).containsExactly("key");
+
+    caches.completeRefresh(
+        refreshes.get(0),
+        ImmutableList.of(
+            Row.create(ByteString.copyFromUtf8("key"), ImmutableList.of(cell("refreshed")))));
+    FetchFeatureValuesResponse refreshed = caches.get(request, "key");
+    assertThat(refreshed.getKeyValues().getFeatures(0).getValue().getStringValue())
+        .isEqualTo("refreshed");
+    assertThat(refreshes).hasSize(1);
+  }
+
+  @Test
+  public void completeRefresh_deletedRow_droppedFromBothTiers() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    FeatureValueCache cache =
+        FeatureValueCache.newBuilder()
+            .setAdmissionFilterSize(0)
+            .setDefaultRefreshAfter(Duration.ofSeconds(10))
+            .setTicker(ticker)
+            .build();
+    OffHeapCellStore store =
+        OffHeapCellStore.newBuilder()
+            .setCapacityBytes(64 * 1024)
+            .setSlabSizeBytes(16 * 1024)
+            .setSegmentCount(2)
+            .build();
+    NegativeResultCache negativeResultCache =
+        NegativeResultCache.newBuilder().setTtl(Duration.ofSeconds(5)).setTicker(ticker).build();
+    List<InternalFetchRequest> refreshes = new ArrayList<>();
+    LocalCaches caches = new LocalCaches(cache, store, negativeResultCache, refreshes::add);
+    InternalFetchRequest request = request(ImmutableList.of("key"));
+    Row row = Row.create(ByteString.copyFromUtf8("key"), ImmutableList.of(cell("value")));
+    caches.put(request, "key", row, Converter.rowToResponse(row, request));
+    ticker.advance(Duration.ofSeconds(10));
+    assertThat(caches.get(request, "key")).isNotNull();
+
+    // The refresh finds no row, as the entity was deleted.
+    caches.completeRefresh(refreshes.get(0), ImmutableList.of());
+
+    assertThat(caches.isKnownMissing(request, "key")).isTrue();
+    // Once the not-found entry expires, neither tier serves the deleted entity.
+    ticker.advance(Duration.ofSeconds(5));
+    assertThat(caches.isKnownMissing(request, "key")).isFalse();
+    assertThat(caches.get(request, "key")).isNull();
+    assertThat(store.get(FV, "key")).isNull();
+  }
+
+  @Test
+  public void failRefresh_letsLaterFetchRefresh() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    FeatureValueCache cache =
+        FeatureValueCache.newBuilder()
+            .setAdmissionFilterSize(0)
+            .setDefaultRefreshAfter(Duration.ofSeconds(10))
+            .setTicker(ticker)
+            .build();
+    List<InternalFetchRequest> refreshes = new ArrayList<>();
+    LocalCaches caches =
+        new LocalCaches(
+            cache,
+            /* offHeapCellStore= */ null,
+            /* negativeResultCache= */ null,
+            refreshes::add);
+    InternalFetchRequest request = request(ImmutableList.of("key"));
+    cache.put(FV, "key", RESPONSE, 1000L);
+    ticker.advance(Duration.ofSeconds(10));
+
+    caches.get(request, "key");
+    caches.failRefresh(refreshes.get(0));
+    caches.get(request, "key");
+
+    assertThat(refreshes).hasSize(2);
+  }
+
+  @Test
+  public void completeRevalidation_newerAndDeletedRowsReadAgain() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    FeatureValueCache cache =
+        FeatureValueCache.newBuilder()
+            .setAdmissionFilterSize(0)
+            .setDefaultRefreshAfter(Duration.ofSeconds(10))
+            .setTicker(ticker)
+            .build();
+    LocalCaches caches =
+        new LocalCaches(
+            cache,
+            /* offHeapCellStore= */ null,
+            /* negativeResultCache= */ null,
+            request -> {});
+    cache.put(FV, "unchanged", RESPONSE, 1000L);
+    cache.put(FV, "changed", RESPONSE, 1000L);
+    cache.put(FV, "deleted", RESPONSE, 1000L);
+    ticker.advance(Duration.ofSeconds(10));
+    InternalFetchRequest refreshRequest =
+        request(ImmutableList.of("unchanged", "changed", "deleted"));
+    assertThat(caches.oldestCellTimestampMicros(refreshRequest)).isEqualTo(1000L);
+
+    // The revalidation read returns every existing row without values: the unchanged one with its
+    // latest cell, the changed one with its newer cell. The deleted row is not returned.
+    InternalFetchRequest changedRequest =
+        caches.completeRevalidation(
+            refreshRequest,
+            ImmutableList.of(strippedRow("unchanged", 1000), strippedRow("changed", 2000)));
+
+    assertThat(changedRequest.dataKeys).containsExactly("changed", "deleted").inOrder();
+    // The unchanged entry is fresh again, the others are still being refreshed.
+    assertThat(cache.claimRefresh(FV, "unchanged")).isFalse();
+    ticker.advance(Duration.ofSeconds(10));
+    assertThat(cache.claimRefresh(FV, "unchanged")).isTrue();
+    assertThat(
+            caches.completeRevalidation(
+                request(ImmutableList.of("unchanged")),
+                ImmutableList.of(strippedRow("unchanged", 1000))))
+        .isNull();
+  }
+
+  @Test
+  public void sharedCaches_sameFeatureViewIdInOtherStore_notShared() throws Exception {
+    FeatureValueCache cache = FeatureValueCache.newBuilder().setAdmissionFilterSize(0).build();
+    OffHeapCellStore store =
+        OffHeapCellStore.newBuilder()
+            .setCapacityBytes(64 * 1024)
+            .setSlabSizeBytes(16 * 1024)
+            .setSegmentCount(2)
+            .build();
+    NegativeResultCache negativeResultCache = NegativeResultCache.newBuilder().build();
+    LocalCaches caches =
+        new LocalCaches(cache, store, negativeResultCache, /* refresher= */ null);
+    // Both online stores have a FeatureView named "users".
+    InternalFetchRequest request = request(ImmutableList.of("found", "not_found"));
+    InternalFetchRequest otherStoreRequest =
+        request("other_store", ImmutableList.of("found", "not_found"));
+
+    caches
+        .lookup(request)
+        .complete(
+            ImmutableList.of(
+                Row.create(ByteString.copyFromUtf8("found"), ImmutableList.of(cell("value")))));
+    assertThat(caches.get(request, "found")).isNotNull();
+    assertThat(caches.isKnownMissing(request, "not_found")).isTrue();
+
+    // Neither the values nor the missing keys of the first store are served for the other one.
+    assertThat(caches.get(otherStoreRequest, "found")).isNull();
+    assertThat(caches.isKnownMissing(otherStoreRequest, "not_found")).isFalse();
+    assertThat(caches.lookup(otherStoreRequest).missingRequest().dataKeys)
+        .containsExactly("found", "not_found")
+        .inOrder();
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.cloud.aiplatform.v1.FeatureOnlineStore;
+import com.google.cloud.aiplatform.v1.FeatureOnlineStore.Bigtable;
+import com.google.cloud.aiplatform.v1.FeatureOnlineStore.Bigtable.BigtableMetadata;
+import com.google.cloud.aiplatform.v1.FeatureView;
+import com.google.cloud.aiplatform.v1.FeatureView.SyncConfig;
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.StatusRuntimeException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class MetadataSnapshotsTest {
+
+  private static final String FOS_NAME =
+      "projects/test/locations/us-central1/featureOnlineStores/my_online_store";
+  private static final String FV_NAME = FOS_NAME + "/featureViews/my_feature_view";
+
+  private static final FeatureOnlineStore FEATURE_ONLINE_STORE =
+      FeatureOnlineStore.newBuilder()
+          .setName(FOS_NAME)
+          .setBigtable(
+              Bigtable.newBuilder()
+                  .setBigtableMetadata(
+                      BigtableMetadata.newBuilder()
+                          .setTenantProjectId("tenant-project")
+                          .setInstanceId("instance-id")
+                          .setTableId("default")
+                          .build())
+                  .build())
+          .build();
+
+  private static final FeatureView FEATURE_VIEW =
+      FeatureView.newBuilder()
+          .setName(FV_NAME)
+          .setSyncConfig(SyncConfig.newBuilder().setContinuous(true).build())
+          .setBigtableMetadata(
+              FeatureView.BigtableMetadata.newBuilder().setReadAppProfile("read-profile").build())
+          .build();
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void load_servesExportedSpecsWhileAdminApiFails() throws Exception {
+    MockFeatureOnlineStoreAdminServiceClientFactory exportFactory =
+        new MockFeatureOnlineStoreAdminServiceClientFactory();
+    CloudBigtableCache exportBigtableCache = new CloudBigtableCache(exportFactory);
+    FeatureViewCache exportFeatureViewCache = new FeatureViewCache(exportFactory);
+    exportFactory.getMockService().addResponse(FEATURE_ONLINE_STORE);
+    exportFactory.getMockService().addResponse(FEATURE_VIEW);
+    exportBigtableCache.getCloudBigtableSpec(FOS_NAME);
+    exportFeatureViewCache.getFeatureViewSpec(FV_NAME);
+    Path file = folder.getRoot().toPath().resolve("metadata.pb");
+
+    new MetadataSnapshots(exportBigtableCache, exportFeatureViewCache).export(file);
+
+    // A new process, whose admin API is unavailable.
+    MockFeatureOnlineStoreAdminServiceClientFactory factory =
+        new MockFeatureOnlineStoreAdminServiceClientFactory();
+    MockFeatureOnlineStoreAdminService mockService = factory.getMockService();
+    mockService.addException(new StatusRuntimeException(io.grpc.Status.UNAVAILABLE));
+    mockService.addException(new StatusRuntimeException(io.grpc.Status.UNAVAILABLE));
+    CloudBigtableCache bigtableCache =
+        new CloudBigtableCache(
+            factory, Duration.ofMinutes(5), MoreExecutors.directExecutor(), Ticker.systemTicker());
+    FeatureViewCache featureViewCache =
+        new FeatureViewCache(
+            factory, Duration.ofMinutes(5), MoreExecutors.directExecutor(), Ticker.systemTicker());
+
+    MetadataSnapshot snapshot = new MetadataSnapshots(bigtableCache, featureViewCache).load(file);
+
+    assertThat(snapshot.getCloudBigtableSpecsCount()).isEqualTo(1);
+    assertThat(snapshot.getFeatureViewSpecsCount()).isEqualTo(1);
+    CloudBigtableSpec btSpec = bigtableCache.getCloudBigtableSpec(FOS_NAME);
+    assertThat(btSpec.tenantProjectId).isEqualTo("tenant-project");
+    assertThat(btSpec.instanceId).isEqualTo("instance-id");
+    assertThat(btSpec.tableId).isEqualTo("default");
+    FeatureViewSpec fvSpec = featureViewCache.getFeatureViewSpec(FV_NAME);
+    assertThat(fvSpec.continuousSyncEnabled).isTrue();
+    assertThat(fvSpec.readAppProfileId).isEqualTo("read-profile");
+  }
+
+  @Test
+  public void load_revalidatesSpecsInBackground() throws Exception {
+    Path file = folder.getRoot().toPath().resolve("metadata.pb");
+    Files.write(
+        file,
+        MetadataSnapshot.newBuilder()
+            .addFeatureViewSpecs(
+                MetadataSnapshot.FeatureViewSpecEntry.newBuilder()
+                    .setFeatureView(FV_NAME)
+                    .setReadAppProfileId("old-profile")
+                    .build())
+            .build()
+            .toByteArray());
+    MockFeatureOnlineStoreAdminServiceClientFactory factory =
+        new MockFeatureOnlineStoreAdminServiceClientFactory();
+    factory.getMockService().addResponse(FEATURE_VIEW);
+    FeatureViewCache featureViewCache =
+        new FeatureViewCache(
+            factory, Duration.ofMinutes(5), MoreExecutors.directExecutor(), Ticker.systemTicker());
+
+    new MetadataSnapshots(new CloudBigtableCache(factory), featureViewCache).load(file);
+
+    // The reload ran on the direct executor, so the admin spec has replaced the snapshot one.
+    assertThat(featureViewCache.getFeatureViewSpec(FV_NAME).readAppProfileId)
+        .isEqualTo("read-profile");
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.cloud.aiplatform.v1.FeatureOnlineStore;
+import com.google.cloud.aiplatform.v1.FeatureOnlineStore.Bigtable;
+import com.google.cloud.aiplatform.v1.FeatureOnlineStore.Bigtable.BigtableMetadata;
+import com.google.cloud.aiplatform.v1.FeatureView;
+import com.google.cloud.aiplatform.v1.ListFeatureViewsResponse;
+import io.grpc.StatusRuntimeException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class MetadataWarmUpTest {
+
+  private static final String FOS_NAME =
+      "projects/test/locations/us-central1/featureOnlineStores/my_online_store";
+
+  private static final FeatureOnlineStore FEATURE_ONLINE_STORE =
+      FeatureOnlineStore.newBuilder()
+          .setName(FOS_NAME)
+          .setBigtable(
+              Bigtable.newBuilder()
+                  .setBigtableMetadata(
+                      BigtableMetadata.newBuilder()
+                          .setTenantProjectId("tenant-project")
+                          .setInstanceId("instance-id")
+                          .setTableId("default")
+                          .build())
+                  .build())
+          .build();
+
+  private static final FeatureView FEATURE_VIEW =
+      FeatureView.newBuilder()
+          .setBigtableMetadata(
+              FeatureView.BigtableMetadata.newBuilder().setReadAppProfile("read-profile").build())
+          .build();
+
+  private static String fvName(int i) {
+    return FOS_NAME + "/featureViews/view_" + i;
+  }
+
+  @Test
+  public void run_loadsAllFeatureViews() throws Exception {
+    MockFeatureOnlineStoreAdminServiceClientFactory factory =
+        new MockFeatureOnlineStoreAdminServiceClientFactory();
+    CloudBigtableCache bigtableCache = new CloudBigtableCache(factory);
+    FeatureViewCache featureViewCache = new FeatureViewCache(factory);
+    MockFeatureOnlineStoreAdminService mockService = factory.getMockService();
+    mockService.addResponse(FEATURE_ONLINE_STORE);
+    ListFeatureViewsResponse.Builder list = ListFeatureViewsResponse.newBuilder();
+    for (int i = 0; i < 8; i++) {
+      list.addFeatureViews(FeatureView.newBuilder().setName(fvName(i)).build());
+    }
+    mockService.addResponse(list.build());
+    for (int i = 0; i < 8; i++) {
+      mockService.addResponse(FEATURE_VIEW);
+    }
+
+    WarmUpResult result =
+        new MetadataWarmUp(bigtableCache, featureViewCache).run(FOS_NAME, /* maxConcurrency= */ 4);
+
+    assertThat(result.isSuccessful()).isTrue();
+    assertThat(result.getLoadTimes()).hasSize(8);
+    assertThat(result.getSkipped()).isEmpty();
+    // 1 online store, 1 list and 8 FeatureViews.
+    assertThat(mockService.getRequests()).hasSize(10);
+    // All the specs are cached, so no more admin RPC is made.
+    for (int i = 0; i < 8; i++) {
+      assertThat(featureViewCache.getFeatureViewSpec(fvName(i)).readAppProfileId)
+          .isEqualTo("read-profile");
+    }
+    assertThat(bigtableCache.getCloudBigtableSpec(FOS_NAME).instanceId).isEqualTo("instance-id");
+    assertThat(mockService.getRequests()).hasSize(10);
+  }
+
+  @Test
+  public void run_moreFeatureViewsThanCacheHolds_skipsTheRest() throws Exception {
+    MockFeatureOnlineStoreAdminServiceClientFactory factory =
+        new MockFeatureOnlineStoreAdminServiceClientFactory();
+    FeatureViewCache featureViewCache = new FeatureViewCache(factory, /* maximumSize= */ 2);
+    MockFeatureOnlineStoreAdminService mockService = factory.getMockService();
+    mockService.addResponse(FEATURE_ONLINE_STORE);
+    ListFeatureViewsResponse.Builder list = ListFeatureViewsResponse.newBuilder();
+    for (int i = 0; i < 3; i++) {
+      list.addFeatureViews(FeatureView.newBuilder().setName(fvName(i)).build());
+    }
+    mockService.addResponse(list.build());
+    mockService.addResponse(FEATURE_VIEW);
+    mockService.addResponse(FEATURE_VIEW);
+
+    WarmUpResult result =
+        new MetadataWarmUp(new CloudBigtableCache(factory), featureViewCache)
+            .run(FOS_NAME, /* maxConcurrency= */ 4);
+
+    assertThat(result.isSuccessful()).isFalse();
+    assertThat(result.getFailures()).isEmpty();
+    assertThat(result.getLoadTimes().keySet()).containsExactly(fvName(0), fvName(1));
+    assertThat(result.getSkipped()).containsExactly(fvName(2));
+    // The loaded specs are all still cached.
+    assertThat(featureViewCache.snapshot().keySet()).containsExactly(fvName(0), fvName(1));
+  }
+
+  @Test
+  public void run_reportsFailedFeatureViews() throws Exception {
+    MockFeatureOnlineStoreAdminServiceClientFactory factory =
+        new MockFeatureOnlineStoreAdminServiceClientFactory();
+    MockFeatureOnlineStoreAdminService mockService = factory.getMockService();
+    mockService.addResponse(FEATURE_ONLINE_STORE);
+    mockService.addResponse(
+        ListFeatureViewsResponse.newBuilder()
+            .addFeatureViews(FeatureView.newBuilder().setName(fvName(0)).build())
+            .build());
+    mockService.addException(new StatusRuntimeException(io.grpc.Status.NOT_FOUND));
+
+    WarmUpResult result =
+        new MetadataWarmUp(new CloudBigtableCache(factory), new FeatureViewCache(factory))
+            .run(FOS_NAME, /* maxConcurrency= */ 4);
+
+    assertThat(result.isSuccessful()).isFalse();
+    assertThat(result.getFailures().keySet()).containsExactly(fvName(0));
+    assertThat(result.getLoadTimes().keySet()).containsExactly(fvName(0));
+  }
+}
@@ -24,14 +24,18 @@ import com.google.cloud.aiplatform.v1.FeatureOnlineStoreAdminServiceSettings;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.After;
 
 // Mock class to initialize the mock FeatureOnlineStoreAdminServiceClient.
  class MockFeatureOnlineStoreAdminServiceClientFactory implements FeatureOnlineStoreAdminServiceClientFactory {
 
   private final MockFeatureOnlineStoreAdminService mockService;
+  private final FeatureOnlineStoreAdminServiceSettings settings;
   private FeatureOnlineStoreAdminServiceClient client;
   private final MockServiceHelper mockServiceHelper;
+  // Number of clients, each with its own channel, created so far.
+  private final AtomicInteger createdClientCount = new AtomicInteger();
 
   MockFeatureOnlineStoreAdminServiceClientFactory() throws IOException {
     mockService = new MockFeatureOnlineStoreAdminService();
@@ -40,26 +44,34 @@ import org.junit.After;
         Arrays.<MockGrpcService>asList(mockService));
     mockServiceHelper.start();
     LocalChannelProvider channelProvider = mockServiceHelper.createChannelProvider();
-    FeatureOnlineStoreAdminServiceSettings settings =
+    this.settings =
         FeatureOnlineStoreAdminServiceSettings.newBuilder()
             .setTransportChannelProvider(channelProvider)
             .setCredentialsProvider(NoCredentialsProvider.create())
             .build();
-     this.client = FeatureOnlineStoreAdminServiceClient.create(settings);
    }
 
   @After
   public void tearDown() throws Exception {
     mockServiceHelper.stop();
-    client.close();
+    if (client != null) {
+      client.close();
+    }
   }
 
   @Override
   public FeatureOnlineStoreAdminServiceClient createClient(String region) throws IOException {
+    // The caller closes the client once it is done, so every call needs a new one.
+    this.client = FeatureOnlineStoreAdminServiceClient.create(settings);
+    createdClientCount.incrementAndGet();
     return this.client;
   }
 
   MockFeatureOnlineStoreAdminService getMockService() {
     return this.mockService;
   }
+
+  int getCreatedClientCount() {
+    return this.createdClientCount.get();
+  }
 }
@@ -20,12 +20,15 @@ import com.google.cloud.aiplatform.v1.FeatureOnlineStoreAdminServiceGrpc.Feature
 import com.google.cloud.aiplatform.v1.FeatureView;
 import com.google.cloud.aiplatform.v1.GetFeatureOnlineStoreRequest;
 import com.google.cloud.aiplatform.v1.GetFeatureViewRequest;
+import com.google.cloud.aiplatform.v1.ListFeatureViewsRequest;
+import com.google.cloud.aiplatform.v1.ListFeatureViewsResponse;
 import com.google.protobuf.AbstractMessage;
 import io.grpc.stub.StreamObserver;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 // Mock implementation for FeatureOnlineStoreAdminService.
 public class MockFeatureOnlineStoreAdminServiceImpl extends FeatureOnlineStoreAdminServiceImplBase {
@@ -33,9 +36,10 @@ public class MockFeatureOnlineStoreAdminServiceImpl extends FeatureOnlineStoreAd
   private List<AbstractMessage> requests;
   private Queue<Object> responses;
 
+  // Requests may be served concurrently, e.g. by a parallel warm-up.
   public MockFeatureOnlineStoreAdminServiceImpl() {
-    requests = new ArrayList<>();
-    responses = new LinkedList<>();
+    requests = Collections.synchronizedList(new ArrayList<>());
+    responses = new ConcurrentLinkedQueue<>();
   }
 
   public List<AbstractMessage> getRequests() {
@@ -47,7 +51,7 @@ public class MockFeatureOnlineStoreAdminServiceImpl extends FeatureOnlineStoreAd
   }
 
   public void setResponses(List<AbstractMessage> responses) {
-    this.responses = new LinkedList<Object>(responses);
+    this.responses = new ConcurrentLinkedQueue<Object>(responses);
   }
 
   public void addException(Exception exception) {
@@ -55,8 +59,8 @@ public class MockFeatureOnlineStoreAdminServiceImpl extends FeatureOnlineStoreAd
   }
 
   public void reset() {
-    requests = new ArrayList<>();
-    responses = new LinkedList<>();
+    requests = Collections.synchronizedList(new ArrayList<>());
+    responses = new ConcurrentLinkedQueue<>();
   }
 
   @Override
@@ -100,4 +104,25 @@ public class MockFeatureOnlineStoreAdminServiceImpl extends FeatureOnlineStoreAd
                   Exception.class.getName())));
     }
   }
+
+  @Override
+  public void listFeatureViews(
+      ListFeatureViewsRequest request, StreamObserver<ListFeatureViewsResponse> responseObserver) {
+    Object response = responses.poll();
+    if (response instanceof ListFeatureViewsResponse) {
+      requests.add(request);
+      responseObserver.onNext(((ListFeatureViewsResponse) response));
+      responseObserver.onCompleted();
+    } else if (response instanceof Exception) {
+      responseObserver.onError(((Exception) response));
+    } else {
+      responseObserver.onError(
+          new IllegalArgumentException(
+              String.format(
+                  "Unrecognized response type %s for method ListFeatureViews, expected %s or %s",
+                  response == null ? "null" : response.getClass().getName(),
+                  ListFeatureViewsResponse.class.getName(),
+                  Exception.class.getName())));
+    }
+  }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Ticker;
+import java.time.Duration;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class NegativeResultCacheTest {
+
+  private static final String FV =
+      "projects/p/locations/us-central1/featureOnlineStores/store/featureViews/users";
+  // A FeatureView of another online store with the same ID.
+  private static final String OTHER_STORE_FV =
+      "projects/p/locations/us-central1/featureOnlineStores/other_store/featureViews/users";
+
+  private static class FakeTicker extends Ticker {
+    private long nanos;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    void advance(Duration duration) {
+      nanos += duration.toNanos();
+    }
+  }
+
+  @Test
+  public void isKnownMissing_expiresAfterTtl() {
+    FakeTicker ticker = new FakeTicker();
+    NegativeResultCache cache =
+        NegativeResultCache.newBuilder().setTtl(Duration.ofSeconds(5)).setTicker(ticker).build();
+    cache.putMissing(FV, "key");
+
+    assertThat(cache.isKnownMissing(FV, "key")).isTrue();
+    assertThat(cache.isKnownMissing(OTHER_STORE_FV, "key")).isFalse();
+
+    ticker.advance(Duration.ofSeconds(5));
+    assertThat(cache.isKnownMissing(FV, "key")).isFalse();
+    assertThat(cache.stats().hitCount()).isEqualTo(1L);
+    assertThat(cache.stats().missCount()).isEqualTo(2L);
+  }
+
+  @Test
+  public void invalidate_forgetsKey() {
+    NegativeResultCache cache = NegativeResultCache.newBuilder().build();
+    cache.putMissing(FV, "key");
+
+    cache.invalidate(FV, "key");
+
+    assertThat(cache.isKnownMissing(FV, "key")).isFalse();
+  }
+
+  @Test
+  public void putMissing_boundedBySize() {
+    NegativeResultCache cache = NegativeResultCache.newBuilder().setMaximumSize(10).build();
+
+    for (int i = 0; i < 100; i++) {
+      cache.putMissing(FV, "key" + i);
+    }
+
+    assertThat(cache.size()).isAtMost(10L);
+  }
+}
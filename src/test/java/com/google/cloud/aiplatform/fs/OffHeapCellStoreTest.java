@@ -0,0 +1,106 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.cloud.aiplatform.fs.OffHeapCellStore.StoredCell;
+import com.google.protobuf.ByteString;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class OffHeapCellStoreTest {
+
+  private static final String FV =
+      "projects/p/locations/us-central1/featureOnlineStores/store/featureViews/users";
+  // A FeatureView of another online store with the same ID.
+  private static final String OTHER_STORE_FV =
+      "projects/p/locations/us-central1/featureOnlineStores/other_store/featureViews/users";
+
+  private static OffHeapCellStore.Builder smallStore() {
+    return OffHeapCellStore.newBuilder()
+        .setCapacityBytes(4 * 1024)
+        .setSlabSizeBytes(1024)
+        .setSegmentCount(1);
+  }
+
+  @Test
+  public void put_thenGet() {
+    OffHeapCellStore store = smallStore().build();
+    store.put(FV, "key", ByteString.copyFromUtf8("value"), 1234L);
+
+    StoredCell cell = store.get(FV, "key");
+
+    assertThat(cell.value.toStringUtf8()).isEqualTo("value");
+    assertThat(cell.timestampMicros).isEqualTo(1234L);
+    assertThat(store.get(OTHER_STORE_FV, "key")).isNull();
+    assertThat(store.get(FV, "other_key")).isNull();
+    assertThat(store.hitCount()).isEqualTo(1L);
+    assertThat(store.missCount()).isEqualTo(2L);
+  }
+
+  @Test
+  public void put_overwritesPreviousValue() {
+    OffHeapCellStore store = smallStore().build();
+    store.put(FV, "key", ByteString.copyFromUtf8("old"), 1L);
+    store.put(FV, "key", ByteString.copyFromUtf8("new"), 2L);
+
+    StoredCell cell = store.get(FV, "key");
+
+    assertThat(cell.value.toStringUtf8()).isEqualTo("new");
+    assertThat(cell.timestampMicros).isEqualTo(2L);
+  }
+
+  @Test
+  public void invalidate_removesOnlyThatKey() {
+    OffHeapCellStore store = smallStore().build();
+    store.put(FV, "key", ByteString.copyFromUtf8("value"), 1L);
+    store.put(FV, "other_key", ByteString.copyFromUtf8("value"), 1L);
+
+    store.invalidate(FV, "key");
+
+    assertThat(store.get(FV, "key")).isNull();
+    assertThat(store.get(FV, "other_key")).isNotNull();
+    // The key can be stored again.
+    store.put(FV, "key", ByteString.copyFromUtf8("new"), 2L);
+    assertThat(store.get(FV, "key").value.toStringUtf8()).isEqualTo("new");
+  }
+
+  @Test
+  public void put_reusesOldestSlabWhenFull() {
+    OffHeapCellStore store = smallStore().build();
+    ByteString value = ByteString.copyFrom(new byte[200]);
+
+    // About 4 entries fit in a slab, so 100 entries wrap around the 4 slabs many times.
+    for (int i = 0; i < 100; i++) {
+      store.put(FV, "key" + i, value, i);
+    }
+
+    assertThat(store.evictedSlabCount()).isGreaterThan(0L);
+    assertThat(store.get(FV, "key0")).isNull();
+    assertThat(store.get(FV, "key99").timestampMicros).isEqualTo(99L);
+  }
+
+  @Test
+  public void put_valueLargerThanSlab_notStored() {
+    OffHeapCellStore store = smallStore().build();
+    store.put(FV, "key", ByteString.copyFrom(new byte[2048]), 1L);
+
+    assertThat(store.get(FV, "key")).isNull();
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.api.gax.rpc.InternalException;
+import com.google.cloud.aiplatform.fs.FeatureViewInternalStorage.FeatureData;
+import com.google.cloud.aiplatform.v1.FeatureValue;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse.FeatureNameValuePairList;
+import com.google.cloud.aiplatform.v1.FetchFeatureValuesResponse.FeatureNameValuePairList.FeatureNameValuePair;
+import com.google.protobuf.Timestamp;
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class PassThroughResponseTest {
+
+  private static final InternalFetchRequest REQUEST =
+      InternalFetchRequest.builder()
+          .featureViewId("my_feature_view")
+          .featureViewSpec(new FeatureViewSpec(false, "profile", false))
+          .build();
+
+  private static final FeatureViewInternalStorage STORAGE =
+      FeatureViewInternalStorage.newBuilder()
+          .setFeatureTimestamp(Timestamp.newBuilder().setSeconds(1000))
+          .addFeatureData(
+              FeatureData.newBuilder()
+                  .setName("string_feature")
+                  .addValues(FeatureValue.newBuilder().setStringValue("value")))
+          .addFeatureData(FeatureData.newBuilder().setName("no_value"))
+          .addFeatureData(
+              FeatureData.newBuilder()
+                  .setName("int_feature")
+                  .addValues(FeatureValue.newBuilder().setInt64Value(7)))
+          .addFeatureData(
+              FeatureData.newBuilder()
+                  .setName("default_value")
+                  .addValues(FeatureValue.getDefaultInstance()))
+          .build();
+
+  @Test
+  public void fromCell_sameAsConvertedResponse() throws Exception {
+    FetchFeatureValuesResponse expected =
+        FetchFeatureValuesResponse.newBuilder()
+            .setKeyValues(Converter.internalStorageToKeyValuesList(STORAGE, REQUEST))
+            .build();
+
+    PassThroughResponse response = PassThroughResponse.fromCell(STORAGE.toByteString(), REQUEST);
+
+    assertThat(response.getSerializedSize()).isEqualTo(expected.getSerializedSize());
+    assertThat(FetchFeatureValuesResponse.parseFrom(response.toByteString())).isEqualTo(expected);
+  }
+
+  @Test
+  public void fromCell_emptyStorage() throws Exception {
+    PassThroughResponse response =
+        PassThroughResponse.fromCell(
+            FeatureViewInternalStorage.getDefaultInstance().toByteString(), REQUEST);
+
+    assertThat(FetchFeatureValuesResponse.parseFrom(response.toByteString()))
+        .isEqualTo(Converter.notFoundResponse());
+  }
+
+  @Test
+  public void fromCell_multipleValues_throws() throws Exception {
+    FeatureViewInternalStorage storage =
+        FeatureViewInternalStorage.newBuilder()
+            .addFeatureData(
+                FeatureData.newBuilder()
+                    .setName("test")
+                    .addValues(FeatureValue.newBuilder().setInt64Value(1))
+                    .addValues(FeatureValue.newBuilder().setInt64Value(2)))
+            .build();
+    try {
+      PassThroughResponse.fromCell(storage.toByteString(), REQUEST);
+      Assert.fail("Exception should be thrown but did not");
+    } catch (InternalException e) {
+      assertThat(e.getMessage()).contains("Multiple feature values is not yet supported");
+    }
+  }
+
+  @Test
+  public void writeTo_outputStreamAndByteBuffer() throws Exception {
+    PassThroughResponse response = PassThroughResponse.fromCell(STORAGE.toByteString(), REQUEST);
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ByteBuffer buffer = ByteBuffer.allocate(response.getSerializedSize() + 2);
+    buffer.put((byte) 1);
+
+    response.writeTo(output);
+    response.writeTo(buffer);
+
+    assertThat(output.toByteArray()).isEqualTo(response.toByteString().toByteArray());
+    assertThat(buffer.position()).isEqualTo(response.getSerializedSize() + 1);
+    buffer.flip();
+    buffer.get();
+    assertThat(FetchFeatureValuesResponse.parseFrom(buffer))
+        .isEqualTo(FetchFeatureValuesResponse.parseFrom(output.toByteArray()));
+  }
+
+  @Test
+  public void writeTo_byteBufferTooSmall_throws() throws Exception {
+    PassThroughResponse response = PassThroughResponse.fromCell(STORAGE.toByteString(), REQUEST);
+    ByteBuffer buffer = ByteBuffer.allocate(response.getSerializedSize() - 1);
+    try {
+      response.writeTo(buffer);
+      Assert.fail("Exception should be thrown but did not");
+    } catch (BufferOverflowException e) {
+      assertThat(buffer.position()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void of_writesResponse() throws Exception {
+    FetchFeatureValuesResponse cached =
+        FetchFeatureValuesResponse.newBuilder()
+            .setKeyValues(
+                FeatureNameValuePairList.newBuilder()
+                    .addFeatures(
+                        FeatureNameValuePair.newBuilder()
+                            .setName("test")
+                            .setValue(FeatureValue.newBuilder().setBoolValue(true))))
+            .build();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    PassThroughResponse.of(cached).writeTo(output);
+
+    assertThat(output.toByteArray()).isEqualTo(cached.toByteArray());
+  }
+}
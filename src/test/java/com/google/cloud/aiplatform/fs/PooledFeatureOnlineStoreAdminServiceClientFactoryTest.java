@@ -0,0 +1,123 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.cloud.aiplatform.v1.FeatureOnlineStore;
+import com.google.cloud.aiplatform.v1.FeatureOnlineStore.Bigtable;
+import com.google.cloud.aiplatform.v1.FeatureOnlineStore.Bigtable.BigtableMetadata;
+import com.google.cloud.aiplatform.v1.FeatureOnlineStoreAdminServiceClient;
+import com.google.cloud.aiplatform.v1.FeatureView;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class PooledFeatureOnlineStoreAdminServiceClientFactoryTest {
+
+  private static final String FOS_NAME =
+      "projects/test/locations/us-central1/featureOnlineStores/my_online_store";
+
+  private static final FeatureOnlineStore FEATURE_ONLINE_STORE =
+      FeatureOnlineStore.newBuilder()
+          .setName(FOS_NAME)
+          .setBigtable(
+              Bigtable.newBuilder()
+                  .setBigtableMetadata(
+                      BigtableMetadata.newBuilder()
+                          .setTenantProjectId("tenant-project")
+                          .setInstanceId("instance-id")
+                          .setTableId("default")
+                          .build())
+                  .build())
+          .build();
+
+  private static FeatureView featureView(String name) {
+    return FeatureView.newBuilder()
+        .setName(name)
+        .setBigtableMetadata(
+            FeatureView.BigtableMetadata.newBuilder().setReadAppProfile("read-profile").build())
+        .build();
+  }
+
+  @Test
+  public void metadataLoads_shareOneClientPerRegion() throws Exception {
+    MockFeatureOnlineStoreAdminServiceClientFactory mockFactory =
+        new MockFeatureOnlineStoreAdminServiceClientFactory();
+    PooledFeatureOnlineStoreAdminServiceClientFactory factory =
+        new PooledFeatureOnlineStoreAdminServiceClientFactory(mockFactory);
+    CloudBigtableCache bigtableCache = new CloudBigtableCache(factory);
+    FeatureViewCache featureViewCache = new FeatureViewCache(factory);
+    MockFeatureOnlineStoreAdminService mockService = mockFactory.getMockService();
+
+    mockService.addResponse(FEATURE_ONLINE_STORE);
+    bigtableCache.getCloudBigtableSpec(FOS_NAME);
+    for (int i = 0; i < 10; i++) {
+      String fvName = FOS_NAME + "/featureViews/view_" + i;
+      mockService.addResponse(featureView(fvName));
+      featureViewCache.getFeatureViewSpec(fvName);
+    }
+
+    // All 11 lookups in the region share one channel.
+    assertThat(mockService.getRequests()).hasSize(11);
+    assertThat(mockFactory.getCreatedClientCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void shutdown_closesClientOnceReleased() throws Exception {
+    MockFeatureOnlineStoreAdminServiceClientFactory mockFactory =
+        new MockFeatureOnlineStoreAdminServiceClientFactory();
+    PooledFeatureOnlineStoreAdminServiceClientFactory factory =
+        new PooledFeatureOnlineStoreAdminServiceClientFactory(mockFactory);
+    FeatureOnlineStoreAdminServiceClient idle = factory.createClient("us-central1");
+    factory.releaseClient("us-central1", idle);
+    FeatureOnlineStoreAdminServiceClient inUse = factory.createClient("us-east1");
+
+    factory.shutdown();
+
+    assertThat(idle.isShutdown()).isTrue();
+    assertThat(inUse.isShutdown()).isFalse();
+    factory.releaseClient("us-east1", inUse);
+    assertThat(inUse.isShutdown()).isTrue();
+    try {
+      factory.createClient("us-central1");
+      Assert.fail("Exception should be thrown but did not");
+    } catch (IllegalStateException e) {
+      // pass
+    }
+  }
+
+  @Test
+  public void closeAll_closesClientsInUse() throws Exception {
+    PooledFeatureOnlineStoreAdminServiceClientFactory factory =
+        new PooledFeatureOnlineStoreAdminServiceClientFactory(
+            new MockFeatureOnlineStoreAdminServiceClientFactory());
+    FeatureOnlineStoreAdminServiceClient inUse = factory.createClient("us-central1");
+
+    // What the shutdown hook runs when the JVM exits.
+    factory.closeAll();
+
+    assertThat(inUse.isShutdown()).isTrue();
+    try {
+      factory.createClient("us-central1");
+      Assert.fail("Exception should be thrown but did not");
+    } catch (IllegalStateException e) {
+      // pass
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class PrimitiveColumnsTest {
+
+  private static final FeatureSchema SCHEMA =
+      FeatureSchema.newBuilder()
+          .addDoubleFeature("price")
+          .addLongFeature("count")
+          .addBooleanFeature("flag")
+          .build();
+
+  @Test
+  public void put_writesColumns() {
+    PrimitiveColumns columns = new PrimitiveColumns(SCHEMA, 2);
+
+    columns.putDouble(0, 0, 1.5);
+    columns.putNull(0, 1);
+    columns.putLong(1, 1, 3);
+    columns.putNull(1, 0);
+    columns.putBoolean(2, 0, true);
+    columns.putBoolean(2, 1, false);
+
+    assertThat(columns.getRowCount()).isEqualTo(2);
+    assertThat(columns.getDoubleColumn(0)).isEqualTo(new double[] {1.5, 0});
+    assertThat(columns.getLongColumn(1)).isEqualTo(new long[] {0, 3});
+    assertThat(columns.getBooleanColumn(2)).isEqualTo(new boolean[] {true, false});
+    assertThat(columns.isNull(0, 1)).isTrue();
+    assertThat(columns.isNull(1, 0)).isTrue();
+    assertThat(columns.getNulls(2).isEmpty()).isTrue();
+
+    columns.clearNulls();
+    assertThat(columns.getNulls(0).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void getColumn_wrongType_throws() {
+    PrimitiveColumns columns = new PrimitiveColumns(SCHEMA, 1);
+    try {
+      columns.getLongColumn(0);
+      Assert.fail("Exception should be thrown but did not");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("Column 0 is of type DOUBLE");
+    }
+  }
+
+  @Test
+  public void schema_columns() {
+    assertThat(SCHEMA.getColumnCount()).isEqualTo(3);
+    assertThat(SCHEMA.getColumn("count")).isEqualTo(1);
+    assertThat(SCHEMA.getColumn("missing")).isEqualTo(-1);
+    assertThat(SCHEMA.getColumnType(2)).isEqualTo(FeatureSchema.ColumnType.BOOLEAN);
+    try {
+      FeatureSchema.newBuilder().addDoubleFeature("price").addLongFeature("price");
+      Assert.fail("Exception should be thrown but did not");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("already in the schema");
+    }
+    try {
+      FeatureSchema.newBuilder().build();
+      Assert.fail("Exception should be thrown but did not");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("at least one feature");
+    }
+  }
+}
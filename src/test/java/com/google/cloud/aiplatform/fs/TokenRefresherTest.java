@@ -0,0 +1,221 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.cloud.aiplatform.fs.TokenRefreshStatus.Health;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+
+@RunWith(JUnit4.class)
+public final class TokenRefresherTest {
+
+  private static final class FakeClock extends Clock {
+    private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+
+  // Random whose jitter is always the given fraction of its range.
+  private static final class FixedRandom extends Random {
+    private final double value;
+
+    FixedRandom(double value) {
+      this.value = value;
+    }
+
+    @Override
+    public double nextDouble() {
+      return value;
+    }
+  }
+
+  private FakeClock clock;
+  private ScheduledExecutorService scheduler;
+  // Tokens or errors returned by the next refreshes.
+  private Deque<Object> refreshResults;
+  private FetchAccessTokenCredentials credentials;
+
+  @Before
+  public void setUp() {
+    clock = new FakeClock();
+    scheduler = mock(ScheduledExecutorService.class);
+    refreshResults = new ArrayDeque<>();
+    credentials =
+        new FetchAccessTokenCredentials(
+            tokenExpiringIn(Duration.ofHours(1)),
+            () -> {
+              Object result = refreshResults.removeFirst();
+              if (result instanceof Exception) {
+                throw (Exception) result;
+              }
+              return (AccessToken) result;
+            });
+  }
+
+  private AccessToken tokenExpiringIn(Duration duration) {
+    return new AccessToken("token", Date.from(clock.instant().plus(duration)));
+  }
+
+  private TokenRefresher newRefresher(double jitter) {
+    return new TokenRefresher(credentials, scheduler, clock, new FixedRandom(jitter));
+  }
+
+  // Returns the delay of the last scheduled refresh, in millis.
+  private long lastScheduledDelay(int scheduleCount) {
+    ArgumentCaptor<Long> delay = ArgumentCaptor.forClass(Long.class);
+    verify(scheduler, times(scheduleCount))
+        .schedule(any(Runnable.class), delay.capture(), eq(TimeUnit.MILLISECONDS));
+    return delay.getValue();
+  }
+
+  @Test
+  public void start_schedulesFromExpirationTime() {
+    newRefresher(/* jitter= */ 0).start();
+
+    assertThat(lastScheduledDelay(1)).isEqualTo(Duration.ofMinutes(55).toMillis());
+  }
+
+  @Test
+  public void start_jitterMovesRefreshEarlier() {
+    newRefresher(/* jitter= */ 1).start();
+
+    // 10% of the 55 minutes before the refresh is due.
+    assertThat(lastScheduledDelay(1)).isEqualTo(Duration.ofMinutes(55).toMillis() * 9 / 10);
+  }
+
+  @Test
+  public void start_tokenWithoutExpiration_usesDefaultInterval() {
+    credentials = new FetchAccessTokenCredentials(new AccessToken("token", null), () -> null);
+
+    newRefresher(/* jitter= */ 0).start();
+
+    assertThat(lastScheduledDelay(1)).isEqualTo(TokenRefresher.DEFAULT_REFRESH_INTERVAL.toMillis());
+  }
+
+  @Test
+  public void refresh_success_schedulesFromNewExpirationTime() {
+    TokenRefresher refresher = newRefresher(/* jitter= */ 0);
+    refresher.start();
+    clock.advance(Duration.ofMinutes(55));
+    refreshResults.add(tokenExpiringIn(Duration.ofMinutes(30)));
+
+    refresher.refresh();
+
+    assertThat(lastScheduledDelay(2)).isEqualTo(Duration.ofMinutes(25).toMillis());
+    TokenRefreshStatus status = refresher.getStatus();
+    assertThat(status.getHealth()).isEqualTo(Health.HEALTHY);
+    assertThat(status.getLastSuccessTime()).isEqualTo(clock.instant());
+    assertThat(status.getTokenExpirationTime())
+        .isEqualTo(clock.instant().plus(Duration.ofMinutes(30)));
+  }
+
+  @Test
+  public void refresh_failures_retryWithBackoffUntilSuccess() {
+    TokenRefresher refresher = newRefresher(/* jitter= */ 1);
+    refresher.start();
+    Instant startTime = clock.instant();
+    clock.advance(Duration.ofMinutes(50));
+    IllegalStateException error = new IllegalStateException("unavailable");
+    refreshResults.add(error);
+    refreshResults.add(error);
+
+    refresher.refresh();
+    assertThat(lastScheduledDelay(2)).isEqualTo(TokenRefresher.INITIAL_BACKOFF.toMillis());
+    refresher.refresh();
+    assertThat(lastScheduledDelay(3)).isEqualTo(2 * TokenRefresher.INITIAL_BACKOFF.toMillis());
+
+    TokenRefreshStatus status = refresher.getStatus();
+    assertThat(status.getHealth()).isEqualTo(Health.RETRYING);
+    assertThat(status.getConsecutiveFailures()).isEqualTo(2);
+    assertThat(status.getLastError()).hasCauseThat().isSameInstanceAs(error);
+    assertThat(status.getLastSuccessTime()).isEqualTo(startTime);
+
+    // The token expires while the refreshes keep failing.
+    clock.advance(Duration.ofMinutes(10));
+    assertThat(refresher.getStatus().getHealth()).isEqualTo(Health.EXPIRED);
+
+    refreshResults.add(tokenExpiringIn(Duration.ofHours(1)));
+    refresher.refresh();
+    status = refresher.getStatus();
+    assertThat(status.getHealth()).isEqualTo(Health.HEALTHY);
+    assertThat(status.getConsecutiveFailures()).isEqualTo(0);
+    assertThat(status.getLastError()).isNull();
+    assertThat(credentials.getAccessToken().getExpirationTime().toInstant())
+        .isEqualTo(clock.instant().plus(Duration.ofHours(1)));
+  }
+
+  @Test
+  public void backoffDelay_isCapped() {
+    TokenRefresher refresher = newRefresher(/* jitter= */ 1);
+
+    assertThat(refresher.backoffDelay(3)).isEqualTo(Duration.ofSeconds(4));
+    assertThat(refresher.backoffDelay(100)).isEqualTo(TokenRefresher.MAX_BACKOFF);
+    // Without jitter, half of the backoff is dropped.
+    assertThat(newRefresher(/* jitter= */ 0).backoffDelay(3)).isEqualTo(Duration.ofSeconds(2));
+  }
+
+  @Test
+  public void stop_noMoreRefreshes() {
+    TokenRefresher refresher = newRefresher(/* jitter= */ 0);
+    refresher.stop();
+    refreshResults.add(tokenExpiringIn(Duration.ofHours(1)));
+
+    refresher.refresh();
+
+    verify(scheduler, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+  }
+}
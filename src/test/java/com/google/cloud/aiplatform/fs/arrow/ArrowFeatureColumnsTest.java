@@ -0,0 +1,122 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.aiplatform.fs.arrow;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.cloud.aiplatform.fs.FeatureSchema;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class ArrowFeatureColumnsTest {
+
+  private static final FeatureSchema SCHEMA =
+      FeatureSchema.newBuilder()
+          .addDoubleFeature("price")
+          .addLongFeature("count")
+          .addBooleanFeature("flag")
+          .build();
+
+  private BufferAllocator allocator;
+
+  @Before
+  public void setUp() {
+    allocator = new RootAllocator();
+  }
+
+  @After
+  public void tearDown() {
+    // Fails if a buffer was not released.
+    allocator.close();
+  }
+
+  @Test
+  public void toArrowSchema_oneNullableFieldPerFeature() {
+    Schema schema = ArrowFeatureColumns.toArrowSchema(SCHEMA);
+
+    assertThat(schema.getFields()).hasSize(3);
+    assertThat(schema.getFields().get(0).getName()).isEqualTo("price");
+    assertThat(schema.getFields().get(0).isNullable()).isTrue();
+    assertThat(schema.getFields().get(1).getType()).isEqualTo(new ArrowType.Int(64, true));
+    assertThat(schema.getFields().get(2).getType()).isEqualTo(ArrowType.Bool.INSTANCE);
+  }
+
+  @Test
+  public void put_writesVectors() throws Exception {
+    try (ArrowFeatureColumns columns = new ArrowFeatureColumns(SCHEMA, allocator)) {
+      VectorSchemaRoot root = write(columns);
+
+      Float8Vector price = (Float8Vector) root.getVector("price");
+      BigIntVector count = (BigIntVector) root.getVector("count");
+      BitVector flag = (BitVector) root.getVector("flag");
+      assertThat(root.getRowCount()).isEqualTo(2);
+      assertThat(price.get(0)).isEqualTo(1.5);
+      assertThat(price.isNull(1)).isTrue();
+      assertThat(count.isNull(0)).isTrue();
+      assertThat(count.get(1)).isEqualTo(3);
+      assertThat(flag.getObject(0)).isTrue();
+      assertThat(flag.getObject(1)).isFalse();
+    }
+  }
+
+  @Test
+  public void prepare_reusesAndGrowsVectors() throws Exception {
+    try (ArrowFeatureColumns columns = new ArrowFeatureColumns(SCHEMA, allocator)) {
+      write(columns);
+      Float8Vector price = (Float8Vector) columns.getVectorSchemaRoot().getVector("price");
+      int capacity = price.getValueCapacity();
+
+      // A smaller batch keeps the buffers and clears the values of the last one.
+      columns.prepare(1);
+      columns.putNull(0, 0);
+      columns.getVectorSchemaRoot().setRowCount(1);
+      assertThat(price.getValueCapacity()).isEqualTo(capacity);
+      assertThat(price.isNull(0)).isTrue();
+
+      columns.prepare(capacity + 1);
+      assertThat(price.getValueCapacity()).isAtLeast(capacity + 1);
+      columns.putDouble(0, capacity, 2.5);
+      columns.getVectorSchemaRoot().setRowCount(capacity + 1);
+      assertThat(price.get(capacity)).isEqualTo(2.5);
+    }
+  }
+
+  // Writes two rows as a batch fetch would.
+  private static VectorSchemaRoot write(ArrowFeatureColumns columns) {
+    columns.prepare(2);
+    columns.putDouble(0, 0, 1.5);
+    columns.putNull(0, 1);
+    columns.putNull(1, 0);
+    columns.putLong(1, 1, 3);
+    columns.putBoolean(2, 0, true);
+    columns.putBoolean(2, 1, false);
+    VectorSchemaRoot root = columns.getVectorSchemaRoot();
+    root.setRowCount(2);
+    return root;
+  }
+}